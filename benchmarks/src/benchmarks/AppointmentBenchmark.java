@@ -0,0 +1,104 @@
+package benchmarks;
+
+import Model.Appointment;
+import helper.JDBC;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the Appointment operations on the scheduling hot paths: building an Appointment from the strings read from
+ * the database, formatting its timestamps, and the business hours and overlapping Appointment checks run on every save.
+ *
+ * Each operation cycles through a sample of real rows so the JIT cannot specialise on a single value, and the database is
+ * loaded with the number of appointments in the rows parameter so the cost of the overlap check can be tracked as the
+ * schedules grow.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AppointmentBenchmark {
+    private static final int sampleSize = 1024; // A power of two, so the next sample row is found with a mask
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private String[][] sampleRows;
+    private Appointment[] sampleAppointments;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.start(rows);
+
+        sampleRows = BenchmarkDatabase.sampleAppointments(sampleSize);
+        BenchmarkDatabase.parseTimestamp(sampleRows[0][5]); // Fails fast if the database returns timestamps in another format
+
+        sampleAppointments = new Appointment[sampleSize];
+        for(int i = 0; i < sampleSize; i++) {
+            sampleAppointments[i] = construct(sampleRows[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        JDBC.closeConnection();
+    }
+
+    private int nextIndex() {
+        return next++ & (sampleSize - 1);
+    }
+
+    @Benchmark
+    public Appointment constructFromDatabaseStrings() {
+        return construct(sampleRows[nextIndex()]);
+    }
+
+    @Benchmark
+    public Appointment setStartTimestamps() {
+        Appointment appointment = sampleAppointments[nextIndex()];
+        appointment.setStartTimestamps();
+        return appointment;
+    }
+
+    @Benchmark
+    public Appointment setEndTimestamps() {
+        Appointment appointment = sampleAppointments[nextIndex()];
+        appointment.setEndTimestamps();
+        return appointment;
+    }
+
+    @Benchmark
+    public boolean isWithinBusinessHours() {
+        return sampleAppointments[nextIndex()].isWithinBusinessHours();
+    }
+
+    /**
+     * The overlap check run when an Appointment is saved, which queries the database.
+     */
+    @Benchmark
+    public boolean customerOverlappingAppt() {
+        return sampleAppointments[nextIndex()].customerOverlappingAppt();
+    }
+
+    private static Appointment construct(String[] row) {
+        return new Appointment(Integer.parseInt(row[0]), row[1], row[2], row[3], row[4], row[5], row[6],
+                Integer.parseInt(row[7]), row[8], Integer.parseInt(row[9]), Integer.parseInt(row[10]), row[11]);
+    }
+}
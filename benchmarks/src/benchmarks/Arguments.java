@@ -0,0 +1,54 @@
+package benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options of the form "--name value", as taken by the DatasetGenerator and the LoadDriver.
+ */
+final class Arguments {
+    private final Map<String, String> values = new HashMap<>();
+
+    Arguments(String[] args) {
+        for(int i = 0; i < args.length; i++) {
+            if(!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --name value but found: " + args[i]);
+            }
+            values.put(args[i].substring(2), args[++i]);
+        }
+    }
+
+    boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        return values.containsKey(name) ? Integer.parseInt(values.get(name)) : defaultValue;
+    }
+
+    long getLong(String name, long defaultValue) {
+        return values.containsKey(name) ? Long.parseLong(values.get(name)) : defaultValue;
+    }
+
+    /**
+     * Points helper.JDBC at the database given by --url, --user, --password and --driver, if a URL was given.
+     *
+     * @return true if a database was given.
+     */
+    boolean configureDatabase() {
+        if(!has("url")) {
+            return false;
+        }
+        System.setProperty("scheduler.jdbc.url", get("url", null));
+        System.setProperty("scheduler.jdbc.user", get("user", ""));
+        System.setProperty("scheduler.jdbc.password", get("password", ""));
+        if(has("driver")) {
+            System.setProperty("scheduler.jdbc.driver", get("driver", null));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,178 @@
+package benchmarks;
+
+import helper.JDBC;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * An embedded, in-memory H2 database in MySQL compatibility mode holding the client_schedule schema and a synthetic
+ * data set. END, YEAR and MONTH are declared non-keywords, as they are in MySQL, so the application's queries run
+ * unchanged. start() points helper.JDBC at it through the scheduler.jdbc.* system properties, so the benchmarks exercise
+ * the application's own DAOs and Model classes without a MySQL server.
+ *
+ * The data is generated by the DatasetGenerator from a fixed seed, so every run of a benchmark sees the same rows.
+ */
+public final class BenchmarkDatabase {
+    private static final String url = "jdbc:h2:mem:client_schedule;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=END,YEAR,MONTH";
+    private static final String userName = "sa";
+    private static final String password = "";
+    private static final long seed = 42;
+
+    private static final DateTimeFormatter utcFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static SizeProfile loadedProfile;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Creates the schema, fills it with the number of appointments requested unless it already holds them, and opens the
+     * application's connection pool against it.
+     *
+     * @param appointments is the number of appointments to generate.
+     */
+    public static void start(int appointments) throws SQLException {
+        start(SizeProfile.forAppointments(appointments));
+    }
+
+    /**
+     * Creates the schema, fills it with a data set of the given size unless it already holds one, and opens the
+     * application's connection pool against it.
+     *
+     * @param profile is the size of the data set to generate.
+     */
+    public static synchronized void start(SizeProfile profile) throws SQLException {
+        System.setProperty("scheduler.jdbc.url", url);
+        System.setProperty("scheduler.jdbc.user", userName);
+        System.setProperty("scheduler.jdbc.password", password);
+        System.setProperty("scheduler.jdbc.driver", "org.h2.Driver");
+
+        if(!profile.equals(loadedProfile)) {
+            try(Connection connection = connect()) {
+                createSchema(connection);
+                new DatasetGenerator(seed, profile).generate(connection);
+            }
+            loadedProfile = profile;
+        }
+
+        JDBC.openConnection();
+    }
+
+    /**
+     * Opens a connection to the embedded database outside the application's connection pool.
+     */
+    static Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, userName, password);
+    }
+
+    private static void createSchema(Connection connection) throws SQLException {
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+            st.execute("CREATE TABLE countries (Country_ID INT PRIMARY KEY, Country VARCHAR(50), Create_Date DATETIME, " +
+                    "Created_By VARCHAR(50), Last_Update TIMESTAMP, Last_Updated_By VARCHAR(50))");
+            st.execute("CREATE TABLE first_level_divisions (Division_ID INT PRIMARY KEY, Division VARCHAR(50), Create_Date DATETIME, " +
+                    "Created_By VARCHAR(50), Last_Update TIMESTAMP, Last_Updated_By VARCHAR(50), Country_ID INT)");
+            st.execute("CREATE TABLE contacts (Contact_ID INT PRIMARY KEY, Contact_Name VARCHAR(50), Email VARCHAR(50))");
+            st.execute("CREATE TABLE users (User_ID INT PRIMARY KEY, User_Name VARCHAR(50), Password TEXT, Create_Date DATETIME, " +
+                    "Created_By VARCHAR(50), Last_Update TIMESTAMP, Last_Updated_By VARCHAR(50))");
+            st.execute("CREATE TABLE customers (Customer_ID INT PRIMARY KEY, Customer_Name VARCHAR(50), Address VARCHAR(100), " +
+                    "Postal_Code VARCHAR(50), Phone VARCHAR(50), Create_Date DATETIME, Created_By VARCHAR(50), " +
+                    "Last_Update TIMESTAMP, Last_Updated_By VARCHAR(50), Division_ID INT)");
+            st.execute("CREATE TABLE appointments (Appointment_ID INT PRIMARY KEY, Title VARCHAR(50), Description VARCHAR(50), " +
+                    "Location VARCHAR(50), Type VARCHAR(50), Start DATETIME, End DATETIME, Create_Date DATETIME, " +
+                    "Created_By VARCHAR(50), Last_Update TIMESTAMP, Last_Updated_By VARCHAR(50), Customer_ID INT, " +
+                    "User_ID INT, Contact_ID INT)");
+            st.execute("CREATE INDEX appointments_start_end ON appointments (Start, End)");
+            st.execute("CREATE INDEX appointments_customer_start ON appointments (Customer_ID, Start)");
+            st.execute("CREATE INDEX appointments_contact_start ON appointments (Contact_ID, Start)");
+            st.execute("CREATE INDEX appointments_user_start ON appointments (User_ID, Start)");
+            st.execute("CREATE TABLE id_sequences (Sequence_Name VARCHAR(50) NOT NULL PRIMARY KEY, Next_ID INT NOT NULL)");
+            st.execute("CREATE TABLE appointment_changes (Change_ID BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, " +
+                    "Appointment_ID INT NOT NULL, Change_Type CHAR(1) NOT NULL, Changed_At TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        }
+    }
+
+    /**
+     * Reads a sample of appointment rows, spread evenly through the table, as the strings the application reads them as.
+     * If the table holds fewer rows than the sample, its rows are repeated.
+     *
+     * @param count is the number of rows to read.
+     * @return each row's columns in the order of the Appointment constructor, with the customer and contact names.
+     */
+    static String[][] sampleAppointments(int count) throws SQLException {
+        String query = "SELECT a.Appointment_ID, a.Title, a.Description, a.Location, a.Type, a.Start, a.End, a.Customer_ID, " +
+                "cu.Customer_Name, a.User_ID, a.Contact_ID, co.Contact_Name FROM appointments a " +
+                "LEFT JOIN customers cu ON cu.Customer_ID = a.Customer_ID " +
+                "LEFT JOIN contacts co ON co.Contact_ID = a.Contact_ID " +
+                "WHERE MOD(a.Appointment_ID, ?) = 0 ORDER BY a.Appointment_ID LIMIT ?";
+
+        String[][] rows = new String[count][];
+        try(Connection connection = connect();
+            PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setInt(1, Math.max(1, loadedProfile.getAppointments() / count));
+            ps.setInt(2, count);
+
+            try(ResultSet rs = ps.executeQuery()) {
+                int row = 0;
+                while(rs.next()) {
+                    rows[row] = new String[12];
+                    for(int column = 0; column < 12; column++) {
+                        rows[row][column] = rs.getString(column + 1);
+                    }
+                    row++;
+                }
+                if(row == 0) {
+                    throw new SQLException("No sample appointments could be read.");
+                }
+                // Data sets smaller than the sample repeat their rows
+                for(int repeat = row; repeat < count; repeat++) {
+                    rows[repeat] = rows[repeat - row];
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Reads a sample of customer rows, as the values the Customer constructor takes.
+     *
+     * @param count is the number of rows to read.
+     * @return each row's ID, name, address, postal code, phone number and division ID.
+     */
+    static Object[][] sampleCustomers(int count) throws SQLException {
+        String query = "SELECT Customer_ID, Customer_Name, Address, Postal_Code, Phone, Division_ID FROM customers " +
+                "ORDER BY Customer_ID LIMIT ?";
+
+        Object[][] rows = new Object[count][];
+        try(Connection connection = connect();
+            PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setInt(1, count);
+
+            try(ResultSet rs = ps.executeQuery()) {
+                int row = 0;
+                while(rs.next()) {
+                    rows[row++] = new Object[]{rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                            rs.getString(5), rs.getInt(6)};
+                }
+                if(row < count) {
+                    throw new SQLException("Only " + row + " sample customers could be read.");
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Parses a timestamp read from the database, to check that it is in the format the application expects.
+     */
+    static LocalDateTime parseTimestamp(String timestamp) {
+        return LocalDateTime.parse(timestamp, utcFormatter);
+    }
+}
@@ -0,0 +1,57 @@
+package benchmarks;
+
+import Model.Customer;
+import helper.JDBC;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building a Customer, which looks up the Customer's division and country in the reference data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CustomerBenchmark {
+    private static final int sampleSize = 32; // The smallest data set holds 50 customers
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private Object[][] sampleRows;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.start(rows);
+        sampleRows = BenchmarkDatabase.sampleCustomers(sampleSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        JDBC.closeConnection();
+    }
+
+    @Benchmark
+    public Customer construct() {
+        Object[] row = sampleRows[next++ & (sampleSize - 1)];
+        return new Customer((Integer) row[0], (String) row[1], (String) row[2], (String) row[3], (String) row[4],
+                (Integer) row[5]);
+    }
+}
@@ -0,0 +1,273 @@
+package benchmarks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Fills the countries, first_level_divisions, users, contacts, customers and appointments tables with a reproducible
+ * synthetic data set. The same seed and size profile always produce the same rows, so results measured against two
+ * builds of the application, or on two machines, can be compared.
+ *
+ * Rows are written with batched prepared statements in a single transaction. Against MySQL, add
+ * rewriteBatchedStatements=true to the URL so each batch is sent as one multi-row INSERT.
+ *
+ * Usage: DatasetGenerator --url jdbc:mysql://localhost/client_schedule?rewriteBatchedStatements=true --user sqlUser
+ * --password Passw0rd! [--profile small|medium|large|huge|appointments] [--seed 42]
+ *
+ * Every existing row of the six tables, and the appointment change log, is deleted first. The appointments and customers
+ * ID sequences are then restarted after the generated rows, so clients started afterwards do not reserve IDs that are
+ * already in use.
+ */
+public class DatasetGenerator {
+    // Appointments are spread over the two years starting on this day
+    private static final ZonedDateTime firstDay = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneId.of("America/New_York"));
+    private static final int days = 730;
+
+    static final String[] types = {"Planning Session", "De-Briefing", "Consultation", "Follow-up", "Review", "Onboarding"};
+
+    private static final DateTimeFormatter utcFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String createdBy = "script";
+    private static final String createDate = "2024-01-01 00:00:00";
+    private static final int batchSize = 1000;
+
+    private static final String[] countryNames = {"U.S", "UK", "Canada", "Mexico", "Germany", "France", "Japan", "Australia"};
+    private static final String[] firstNames = {"Daddy", "Lady", "Dudley", "Alice", "Bob", "Carmen", "Deepak", "Elena",
+            "Farid", "Grace", "Hiro", "Ines", "Jamal", "Keiko", "Liam", "Maria", "Noah", "Olga", "Priya", "Quinn"};
+    private static final String[] lastNames = {"Warbucks", "McGill", "Do-Right", "Smith", "Johnson", "Garcia", "Nguyen",
+            "Patel", "Kim", "Schmidt", "Rossi", "Dubois", "Tanaka", "Silva", "Brown", "Wilson", "Lopez", "Khan"};
+    private static final String[] streets = {"Main Street", "Oak Avenue", "Maple Drive", "Cedar Lane", "High Street",
+            "Church Road", "Lake Shore Boulevard", "King Street"};
+    private static final String[] locations = {"New York", "London", "Montreal", "Phoenix", "White Plains", "Online"};
+
+    private final long seed;
+    private final SizeProfile profile;
+
+    public DatasetGenerator(long seed, SizeProfile profile) {
+        this.seed = seed;
+        this.profile = profile;
+    }
+
+    public static void main(String[] args) throws SQLException, ClassNotFoundException {
+        Arguments arguments = new Arguments(args);
+        if(!arguments.has("url")) {
+            System.out.println("Usage: DatasetGenerator --url <jdbc url> [--user <name>] [--password <password>] " +
+                    "[--driver <class>] [--profile small|medium|large|huge|<appointments>] [--seed <seed>]");
+            return;
+        }
+        if(arguments.has("driver")) {
+            Class.forName(arguments.get("driver", null));
+        }
+
+        SizeProfile profile = SizeProfile.parse(arguments.get("profile", "small"));
+        DatasetGenerator generator = new DatasetGenerator(arguments.getLong("seed", 42), profile);
+
+        System.out.println("Generating " + profile);
+        long started = System.nanoTime();
+        try(Connection connection = DriverManager.getConnection(arguments.get("url", null), arguments.get("user", ""),
+                arguments.get("password", ""))) {
+            generator.generate(connection);
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("Done in %.1f s (%.0f appointments/s)%n", seconds, profile.getAppointments() / seconds);
+    }
+
+    /**
+     * Replaces the contents of the six tables with the data set. The connection's auto-commit mode is restored afterwards.
+     *
+     * @param connection is a connection to a database with the client_schedule schema.
+     */
+    public void generate(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            clear(connection);
+
+            Random random = new Random(seed);
+            insertCountriesAndDivisions(connection);
+            insertUsers(connection);
+            insertContacts(connection, random);
+            insertCustomers(connection, random);
+            insertAppointments(connection, random);
+            resetSequences(connection);
+
+            connection.commit();
+        }
+        catch(SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+        finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Deletes the existing rows, children before the parents their foreign keys point to, and the change log, whose
+     * entries refer to Appointments that no longer exist.
+     */
+    private static void clear(Connection connection) throws SQLException {
+        try(Statement st = connection.createStatement()) {
+            for(String table : new String[]{"appointment_changes", "appointments", "customers", "first_level_divisions",
+                    "countries", "contacts", "users"}) {
+                st.executeUpdate("DELETE FROM " + table);
+            }
+        }
+    }
+
+    /**
+     * Restarts the appointments and customers ID sequences after the highest generated ID, as IdAllocator expects.
+     */
+    private static void resetSequences(Connection connection) throws SQLException {
+        try(Statement st = connection.createStatement()) {
+            st.executeUpdate("DELETE FROM id_sequences WHERE Sequence_Name IN ('appointments', 'customers')");
+            st.executeUpdate("INSERT INTO id_sequences (Sequence_Name, Next_ID) " +
+                    "SELECT 'appointments', COALESCE(MAX(Appointment_ID), 0) + 1 FROM appointments");
+            st.executeUpdate("INSERT INTO id_sequences (Sequence_Name, Next_ID) " +
+                    "SELECT 'customers', COALESCE(MAX(Customer_ID), 0) + 1 FROM customers");
+        }
+    }
+
+    private void insertCountriesAndDivisions(Connection connection) throws SQLException {
+        try(PreparedStatement countries = connection.prepareStatement("INSERT INTO countries (Country_ID, Country, " +
+                "Create_Date, Created_By, Last_Update, Last_Updated_By) VALUES (?, ?, ?, ?, ?, ?)");
+            PreparedStatement divisions = connection.prepareStatement("INSERT INTO first_level_divisions (Division_ID, " +
+                "Division, Create_Date, Created_By, Last_Update, Last_Updated_By, Country_ID) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for(int country = 1; country <= profile.getCountries(); country++) {
+                String name = country <= countryNames.length ? countryNames[country - 1] : "Country " + country;
+                countries.setInt(1, country);
+                countries.setString(2, name);
+                setAudit(countries, 3);
+                countries.addBatch();
+
+                for(int i = 1; i <= profile.getDivisionsPerCountry(); i++) {
+                    divisions.setInt(1, (country - 1) * profile.getDivisionsPerCountry() + i);
+                    divisions.setString(2, name + " Division " + i);
+                    setAudit(divisions, 3);
+                    divisions.setInt(7, country);
+                    divisions.addBatch();
+                }
+            }
+            countries.executeBatch();
+            divisions.executeBatch();
+        }
+    }
+
+    private void insertUsers(Connection connection) throws SQLException {
+        try(PreparedStatement ps = connection.prepareStatement("INSERT INTO users (User_ID, User_Name, Password, " +
+                "Create_Date, Created_By, Last_Update, Last_Updated_By) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for(int user = 1; user <= profile.getUsers(); user++) {
+                ps.setInt(1, user);
+                ps.setString(2, user == 1 ? "test" : "clerk" + user);
+                ps.setString(3, "test");
+                setAudit(ps, 4);
+                addToBatch(ps, user);
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void insertContacts(Connection connection, Random random) throws SQLException {
+        try(PreparedStatement ps = connection.prepareStatement("INSERT INTO contacts (Contact_ID, Contact_Name, Email) " +
+                "VALUES (?, ?, ?)")) {
+            for(int contact = 1; contact <= profile.getContacts(); contact++) {
+                String firstName = pick(random, firstNames);
+                String lastName = pick(random, lastNames);
+                ps.setInt(1, contact);
+                ps.setString(2, firstName + " " + lastName);
+                ps.setString(3, (firstName + "." + lastName + contact).toLowerCase() + "@company.com");
+                addToBatch(ps, contact);
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void insertCustomers(Connection connection, Random random) throws SQLException {
+        try(PreparedStatement ps = connection.prepareStatement("INSERT INTO customers (Customer_ID, Customer_Name, " +
+                "Address, Postal_Code, Phone, Create_Date, Created_By, Last_Update, Last_Updated_By, Division_ID) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for(int customer = 1; customer <= profile.getCustomers(); customer++) {
+                ps.setInt(1, customer);
+                ps.setString(2, pick(random, firstNames) + " " + pick(random, lastNames));
+                ps.setString(3, (1 + random.nextInt(9999)) + " " + pick(random, streets));
+                ps.setString(4, String.format("%05d", random.nextInt(100000)));
+                ps.setString(5, String.format("%03d-%03d-%04d", 200 + random.nextInt(800), random.nextInt(1000),
+                        random.nextInt(10000)));
+                setAudit(ps, 6);
+                ps.setInt(10, 1 + random.nextInt(profile.getDivisions()));
+                addToBatch(ps, customer);
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Appointments start on a whole or half hour within business hours and last 30 minutes to 2 hours. A few customers
+     * book far more often than the rest, as regular customers do.
+     */
+    private void insertAppointments(Connection connection, Random random) throws SQLException {
+        try(PreparedStatement ps = connection.prepareStatement("INSERT INTO appointments (Appointment_ID, Title, " +
+                "Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update, Last_Updated_By, " +
+                "Customer_ID, User_ID, Contact_ID) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for(int appointment = 1; appointment <= profile.getAppointments(); appointment++) {
+                ZonedDateTime start = firstDay.plusDays(random.nextInt(days)).plusHours(8).plusMinutes(30L * random.nextInt(26));
+                ZonedDateTime end = start.plusMinutes(30L * (1 + random.nextInt(4)));
+                String type = pick(random, types);
+                int customer = 1 + (int) (profile.getCustomers() * Math.pow(random.nextDouble(), 2));
+
+                ps.setInt(1, appointment);
+                ps.setString(2, type + " #" + appointment);
+                ps.setString(3, type + " with customer " + customer);
+                ps.setString(4, pick(random, locations));
+                ps.setString(5, type);
+                ps.setString(6, toUtcTimestamp(start));
+                ps.setString(7, toUtcTimestamp(end));
+                setAudit(ps, 8);
+                ps.setInt(12, customer);
+                ps.setInt(13, 1 + random.nextInt(profile.getUsers()));
+                ps.setInt(14, 1 + random.nextInt(profile.getContacts()));
+                addToBatch(ps, appointment);
+
+                if(appointment % 100_000 == 0) {
+                    System.out.println("  " + appointment + " appointments");
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Sets the Create_Date, Created_By, Last_Update and Last_Updated_By columns, starting at the given parameter index.
+     */
+    private static void setAudit(PreparedStatement ps, int firstIndex) throws SQLException {
+        ps.setString(firstIndex, createDate);
+        ps.setString(firstIndex + 1, createdBy);
+        ps.setString(firstIndex + 2, createDate);
+        ps.setString(firstIndex + 3, createdBy);
+    }
+
+    /**
+     * Adds the row to the batch, sending the batch every batchSize rows.
+     */
+    private static void addToBatch(PreparedStatement ps, int row) throws SQLException {
+        ps.addBatch();
+        if(row % batchSize == 0) {
+            ps.executeBatch();
+        }
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String toUtcTimestamp(ZonedDateTime zonedDateTime) {
+        return utcFormatter.format(zonedDateTime.withZoneSameInstant(ZoneOffset.UTC));
+    }
+}
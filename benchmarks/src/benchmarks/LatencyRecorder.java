@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.util.Arrays;
+
+/**
+ * Records the latency of every call of one operation, for one thread, and reports percentiles over all of them. Each
+ * simulated clerk records into its own recorders, which are merged once the run is over, so recording never contends.
+ */
+final class LatencyRecorder {
+    private long[] nanos = new long[1024];
+    private int count;
+    private int errors;
+
+    void record(long elapsedNanos) {
+        if(count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = elapsedNanos;
+    }
+
+    void recordError() {
+        errors++;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    int getErrors() {
+        return errors;
+    }
+
+    /**
+     * Adds the latencies recorded by another thread.
+     */
+    void merge(LatencyRecorder other) {
+        if(count + other.count > nanos.length) {
+            nanos = Arrays.copyOf(nanos, count + other.count);
+        }
+        System.arraycopy(other.nanos, 0, nanos, count, other.count);
+        count += other.count;
+        errors += other.errors;
+    }
+
+    /**
+     * @param percentiles are the percentiles to report, between 0 and 100.
+     * @return the latency at each percentile in milliseconds, followed by the maximum, or zeros if nothing was recorded.
+     */
+    double[] percentilesMillis(double... percentiles) {
+        double[] millis = new double[percentiles.length + 1];
+        if(count == 0) {
+            return millis;
+        }
+
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        for(int i = 0; i < percentiles.length; i++) {
+            int rank = (int) Math.ceil(percentiles[i] / 100 * count) - 1;
+            millis[i] = sorted[Math.max(0, Math.min(count - 1, rank))] / 1e6;
+        }
+        millis[percentiles.length] = sorted[count - 1] / 1e6;
+        return millis;
+    }
+}
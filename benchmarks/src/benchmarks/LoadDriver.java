@@ -0,0 +1,320 @@
+package benchmarks;
+
+import DAO.AppointmentDAO;
+import Model.Appointment;
+import helper.JDBC;
+import helper.QueryMetrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the application's query mix with concurrent simulated clerks and reports the latency percentiles of each kind
+ * of request. Every request goes through the application's own DAOs and connection pool, exactly as the screens issue it:
+ * - paging the main calendar a week or a month at a time,
+ * - the checks run before an Appointment is saved (business hours and overlapping customer Appointments),
+ * - the contact schedule and the type/month reports.
+ *
+ * The latency table is followed by the statements that took the most time, from the connection pool's query metrics.
+ *
+ * Without --url the clerks run against the embedded database loaded with the size profile; with --url they run against
+ * an existing database, e.g. one filled by the DatasetGenerator.
+ *
+ * Usage: LoadDriver [--clerks 10] [--warmup 10] [--seconds 60] [--think-millis 0] [--seed 42]
+ * [--profile small|medium|large|huge|appointments] [--url <jdbc url> --user <name> --password <password>]
+ */
+public class LoadDriver {
+    private static final DateTimeFormatter utcFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final double[] percentiles = {50, 90, 99, 99.9};
+
+    /**
+     * The requests a clerk makes, with how often each is made relative to the others.
+     */
+    enum Operation {
+        WEEK_VIEW(45),
+        MONTH_VIEW(25),
+        SAVE_CHECKS(20),
+        CONTACT_SCHEDULE_REPORT(5),
+        TYPE_MONTH_REPORT(5);
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    public static void main(String[] args) throws SQLException, InterruptedException {
+        Arguments arguments = new Arguments(args);
+        int clerks = arguments.getInt("clerks", 10);
+        long warmupNanos = TimeUnit.SECONDS.toNanos(arguments.getLong("warmup", 10));
+        long measureNanos = TimeUnit.SECONDS.toNanos(arguments.getLong("seconds", 60));
+        long thinkMillis = arguments.getLong("think-millis", 0);
+        long seed = arguments.getLong("seed", 42);
+
+        if(arguments.configureDatabase()) {
+            JDBC.openConnection();
+        }
+        else {
+            SizeProfile profile = SizeProfile.parse(arguments.get("profile", "small"));
+            System.out.println("Loading the embedded database with " + profile);
+            BenchmarkDatabase.start(profile);
+        }
+
+        Workload workload = Workload.read();
+        System.out.println("Running " + clerks + " clerks for " + TimeUnit.NANOSECONDS.toSeconds(measureNanos) +
+                " s after a " + TimeUnit.NANOSECONDS.toSeconds(warmupNanos) + " s warmup");
+
+        long measureStart = System.nanoTime() + warmupNanos;
+        long measureEnd = measureStart + measureNanos;
+        List<Clerk> running = new ArrayList<>();
+        for(int i = 0; i < clerks; i++) {
+            Clerk clerk = new Clerk(workload, new Random(seed + i), thinkMillis, measureStart, measureEnd);
+            Thread thread = new Thread(clerk, "clerk-" + (i + 1));
+            clerk.thread = thread;
+            thread.start();
+            running.add(clerk);
+        }
+
+        Map<Operation, LatencyRecorder> results = new EnumMap<>(Operation.class);
+        for(Operation operation : Operation.values()) {
+            results.put(operation, new LatencyRecorder());
+        }
+        for(Clerk clerk : running) {
+            clerk.thread.join();
+            for(Operation operation : Operation.values()) {
+                results.get(operation).merge(clerk.recorders.get(operation));
+            }
+        }
+
+        report(results, measureNanos / 1e9);
+        reportStatements();
+        JDBC.closeConnection();
+    }
+
+    private static void report(Map<Operation, LatencyRecorder> results, double seconds) {
+        System.out.printf("%n%-24s %9s %7s %9s %9s %9s %9s %9s %9s%n", "Operation", "Requests", "Errors", "Req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        LatencyRecorder all = new LatencyRecorder();
+        for(Map.Entry<Operation, LatencyRecorder> result : results.entrySet()) {
+            printRow(result.getKey().name(), result.getValue(), seconds);
+            all.merge(result.getValue());
+        }
+        printRow("ALL", all, seconds);
+    }
+
+    /**
+     * Prints the statements that took the most time in total, as timed by the connection pool. The counts include the
+     * warmup.
+     */
+    private static void reportStatements() {
+        QueryMetrics metrics = JDBC.getPool().getQueryMetrics();
+        if(metrics == null) {
+            return;
+        }
+
+        System.out.printf("%n%9s %11s %9s %9s %9s %6s  %s%n", "Calls", "Total ms", "Mean ms", "p99 ms", "Rows/call", "N+1",
+                "Statement");
+        List<QueryMetrics.QueryStats> statements = metrics.snapshot();
+        for(QueryMetrics.QueryStats stats : statements.subList(0, Math.min(10, statements.size()))) {
+            System.out.printf("%9d %11.1f %9.2f %9.2f %9.1f %6d  %s%n", stats.getCalls(), stats.getTotalMillis(),
+                    stats.getMeanMillis(), stats.getP99Millis(), stats.getRowsPerCall(), stats.getRepeatBursts(),
+                    stats.getStatement());
+        }
+    }
+
+    private static void printRow(String name, LatencyRecorder recorder, double seconds) {
+        double[] millis = recorder.percentilesMillis(percentiles);
+        System.out.printf("%-24s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, recorder.getCount(),
+                recorder.getErrors(), recorder.getCount() / seconds, millis[0], millis[1], millis[2], millis[3], millis[4]);
+    }
+
+    /**
+     * The ranges of IDs and dates in the database, which the clerks pick their requests from.
+     */
+    private static final class Workload {
+        private final int customers;
+        private final int users;
+        private final int contacts;
+        private final ZonedDateTime firstStart;
+        private final int days;
+        private final int totalWeight;
+
+        private Workload(int customers, int users, int contacts, ZonedDateTime firstStart, ZonedDateTime lastStart) {
+            this.customers = customers;
+            this.users = users;
+            this.contacts = contacts;
+            this.firstStart = firstStart.truncatedTo(ChronoUnit.DAYS);
+            this.days = (int) Math.max(1, ChronoUnit.DAYS.between(this.firstStart, lastStart));
+
+            int weight = 0;
+            for(Operation operation : Operation.values()) {
+                weight += operation.weight;
+            }
+            this.totalWeight = weight;
+        }
+
+        static Workload read() throws SQLException {
+            String query = "SELECT (SELECT MAX(Customer_ID) FROM customers), (SELECT MAX(User_ID) FROM users), " +
+                    "(SELECT MAX(Contact_ID) FROM contacts), (SELECT MIN(Start) FROM appointments), " +
+                    "(SELECT MAX(Start) FROM appointments)";
+            try(Connection connection = JDBC.getConnection();
+                PreparedStatement ps = connection.prepareStatement(query);
+                ResultSet rs = ps.executeQuery()) {
+                if(!rs.next() || rs.getString(4) == null) {
+                    throw new SQLException("The database holds no appointments to load test with.");
+                }
+                return new Workload(rs.getInt(1), rs.getInt(2), rs.getInt(3), toLocal(rs.getString(4)),
+                        toLocal(rs.getString(5)));
+            }
+        }
+
+        Operation pick(Random random) {
+            int roll = random.nextInt(totalWeight);
+            for(Operation operation : Operation.values()) {
+                roll -= operation.weight;
+                if(roll < 0) {
+                    return operation;
+                }
+            }
+            throw new IllegalStateException();
+        }
+
+        private static ZonedDateTime toLocal(String utcTimestamp) {
+            return LocalDateTime.parse(utcTimestamp, utcFormatter).atZone(ZoneOffset.UTC).withZoneSameInstant(ZoneId.systemDefault());
+        }
+    }
+
+    /**
+     * One simulated clerk, paging through the calendar from a random starting week and checking Appointments before
+     * saving them, as a user of the application does.
+     */
+    private static final class Clerk implements Runnable {
+        private final Workload workload;
+        private final Random random;
+        private final long thinkMillis;
+        private final long measureStart;
+        private final long measureEnd;
+        private final Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+        private Thread thread;
+
+        // The calendar range currently viewed
+        private ZonedDateTime weekStart;
+        private ZonedDateTime monthStart;
+
+        private Clerk(Workload workload, Random random, long thinkMillis, long measureStart, long measureEnd) {
+            this.workload = workload;
+            this.random = random;
+            this.thinkMillis = thinkMillis;
+            this.measureStart = measureStart;
+            this.measureEnd = measureEnd;
+            for(Operation operation : Operation.values()) {
+                recorders.put(operation, new LatencyRecorder());
+            }
+
+            weekStart = workload.firstStart.plusDays(random.nextInt(workload.days));
+            monthStart = weekStart.withDayOfMonth(1);
+        }
+
+        @Override
+        public void run() {
+            while(true) {
+                long started = System.nanoTime();
+                if(started >= measureEnd) {
+                    return;
+                }
+
+                Operation operation = workload.pick(random);
+                try {
+                    perform(operation);
+                    if(started >= measureStart) {
+                        recorders.get(operation).record(System.nanoTime() - started);
+                    }
+                }
+                catch(SQLException e) {
+                    if(started >= measureStart) {
+                        recorders.get(operation).recordError();
+                    }
+                }
+
+                if(thinkMillis > 0) {
+                    try {
+                        Thread.sleep(thinkMillis);
+                    }
+                    catch(InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void perform(Operation operation) throws SQLException {
+            switch(operation) {
+                case WEEK_VIEW:
+                    weekStart = step(weekStart, ChronoUnit.WEEKS);
+                    AppointmentDAO.getAppointmentsInRange(weekStart, weekStart.plusWeeks(1));
+                    break;
+                case MONTH_VIEW:
+                    monthStart = step(monthStart, ChronoUnit.MONTHS);
+                    AppointmentDAO.getAppointmentsInRange(monthStart, monthStart.plusMonths(1).minusDays(1));
+                    break;
+                case SAVE_CHECKS:
+                    checkBeforeSave();
+                    break;
+                case CONTACT_SCHEDULE_REPORT:
+                    AppointmentDAO.getAppointmentsByContact(1 + random.nextInt(workload.contacts));
+                    break;
+                case TYPE_MONTH_REPORT:
+                    AppointmentDAO.getTypeMonthCounts();
+                    break;
+            }
+        }
+
+        /**
+         * Moves the viewed range one unit forwards or backwards, as the next and previous buttons do, staying within the
+         * dates the database holds appointments for.
+         */
+        private ZonedDateTime step(ZonedDateTime rangeStart, ChronoUnit unit) {
+            ZonedDateTime next = rangeStart.plus(random.nextInt(4) == 0 ? -1 : 1, unit);
+            ZonedDateTime lastStart = workload.firstStart.plusDays(workload.days);
+            if(next.isBefore(workload.firstStart) || next.isAfter(lastStart)) {
+                next = workload.firstStart.plusDays(random.nextInt(workload.days));
+                return unit == ChronoUnit.MONTHS ? next.withDayOfMonth(1) : next;
+            }
+            return next;
+        }
+
+        /**
+         * Runs the checks AddAppointmentController runs on save.
+         */
+        private void checkBeforeSave() {
+            ZonedDateTime start = workload.firstStart.plusDays(random.nextInt(workload.days)).plusHours(8)
+                    .plusMinutes(30L * random.nextInt(26));
+            long startEpochSecond = start.toEpochSecond();
+            long endEpochSecond = startEpochSecond + 1800L * (1 + random.nextInt(4));
+
+            Appointment appointment = new Appointment(0, "Load test", "Load test", "Online",
+                    DatasetGenerator.types[random.nextInt(DatasetGenerator.types.length)], startEpochSecond, endEpochSecond,
+                    1 + random.nextInt(workload.customers), null, 1 + random.nextInt(workload.users),
+                    1 + random.nextInt(workload.contacts), null);
+            if(appointment.isWithinBusinessHours()) {
+                appointment.customerOverlappingAppt();
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package benchmarks;
+
+/**
+ * The number of rows the DatasetGenerator puts in each table of the client_schedule schema. The named profiles scale
+ * the schema from a small office to a large call centre; other sizes are derived from a number of appointments.
+ */
+public final class SizeProfile {
+    public static final SizeProfile SMALL = forAppointments(1_000);
+    public static final SizeProfile MEDIUM = forAppointments(100_000);
+    public static final SizeProfile LARGE = forAppointments(1_000_000);
+    public static final SizeProfile HUGE = forAppointments(5_000_000);
+
+    private final int countries;
+    private final int divisionsPerCountry;
+    private final int users;
+    private final int contacts;
+    private final int customers;
+    private final int appointments;
+
+    public SizeProfile(int countries, int divisionsPerCountry, int users, int contacts, int customers, int appointments) {
+        this.countries = countries;
+        this.divisionsPerCountry = divisionsPerCountry;
+        this.users = users;
+        this.contacts = contacts;
+        this.customers = customers;
+        this.appointments = appointments;
+    }
+
+    /**
+     * Derives a profile from the number of appointments, with about 20 appointments per customer and the clerks and
+     * contacts growing with the square root of the appointments.
+     */
+    public static SizeProfile forAppointments(int appointments) {
+        int staff = (int) Math.max(10, Math.sqrt(appointments) / 10);
+        return new SizeProfile(3, 20, staff, 2 * staff, Math.max(50, appointments / 20), appointments);
+    }
+
+    /**
+     * Parses the name of a profile (small, medium, large or huge), or a number of appointments.
+     *
+     * @throws IllegalArgumentException if the profile is neither.
+     */
+    public static SizeProfile parse(String profile) {
+        switch(profile.toLowerCase()) {
+            case "small":
+                return SMALL;
+            case "medium":
+                return MEDIUM;
+            case "large":
+                return LARGE;
+            case "huge":
+                return HUGE;
+            default:
+                try {
+                    return forAppointments(Integer.parseInt(profile.replace("_", "")));
+                }
+                catch(NumberFormatException e) {
+                    throw new IllegalArgumentException("Unknown size profile: " + profile);
+                }
+        }
+    }
+
+    public int getCountries() {
+        return countries;
+    }
+
+    public int getDivisionsPerCountry() {
+        return divisionsPerCountry;
+    }
+
+    public int getDivisions() {
+        return countries * divisionsPerCountry;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getContacts() {
+        return contacts;
+    }
+
+    public int getCustomers() {
+        return customers;
+    }
+
+    public int getAppointments() {
+        return appointments;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(!(o instanceof SizeProfile)) {
+            return false;
+        }
+        SizeProfile other = (SizeProfile) o;
+        return countries == other.countries && divisionsPerCountry == other.divisionsPerCountry && users == other.users
+                && contacts == other.contacts && customers == other.customers && appointments == other.appointments;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * (31 * (31 * countries + divisionsPerCountry) + users) + contacts) + customers) + appointments;
+    }
+
+    @Override
+    public String toString() {
+        return countries + " countries, " + getDivisions() + " divisions, " + users + " users, " + contacts + " contacts, "
+                + customers + " customers, " + appointments + " appointments";
+    }
+}
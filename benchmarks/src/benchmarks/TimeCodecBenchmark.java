@@ -0,0 +1,87 @@
+package benchmarks;
+
+import helper.TimeCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the per-row cost of converting the Start/End timestamps read from the database, comparing TimeCodec with
+ * the conversions it replaced: a formatter built on every call that parsed the timestamp with " UTC" appended, and a
+ * shared formatter. Formatting timestamps back for the database is compared the same way. Run it with BenchmarkMain to
+ * see the bytes allocated per conversion alongside the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1)
+public class TimeCodecBenchmark {
+    private static final int sampleSize = 1024;
+
+    private final String[] timestamps = new String[sampleSize];
+    private final long[] epochSeconds = new long[sampleSize];
+    private final ZonedDateTime[] utcTimes = new ZonedDateTime[sampleSize];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Appointments spread over two years, starting on the half hour
+        Random random = new Random(42);
+        long first = LocalDateTime.of(2021, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        for(int i = 0; i < sampleSize; i++) {
+            epochSeconds[i] = first + random.nextInt(2 * 365 * 48) * 1800L;
+            utcTimes[i] = TimeCodec.toUtc(epochSeconds[i]);
+            timestamps[i] = TimeCodec.formatDatabase(epochSeconds[i]);
+        }
+    }
+
+    @Benchmark
+    public long parsePerCallFormatter() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss z");
+        return ZonedDateTime.parse(timestamps[next++ & (sampleSize - 1)] + " " + ZoneId.of("UTC"), formatter).toEpochSecond();
+    }
+
+    @Benchmark
+    public long parseSharedFormatter() {
+        return LocalDateTime.parse(timestamps[next++ & (sampleSize - 1)], TimeCodec.databaseFormatter).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    @Benchmark
+    public long parseTimeCodec() {
+        return TimeCodec.parseEpochSecond(timestamps[next++ & (sampleSize - 1)]);
+    }
+
+    @Benchmark
+    public String formatPerCallFormatter() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        return formatter.format(utcTimes[next++ & (sampleSize - 1)]);
+    }
+
+    @Benchmark
+    public String formatSharedFormatter() {
+        return TimeCodec.databaseFormatter.format(utcTimes[next++ & (sampleSize - 1)]);
+    }
+
+    @Benchmark
+    public String formatTimeCodec() {
+        return TimeCodec.formatDatabase(epochSeconds[next++ & (sampleSize - 1)]);
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * The change log of the appointments table. Every insert, update and delete of an Appointment appends a row to the
+ * appointment_changes table in the same transaction as the change itself, and each row is numbered by an increasing
+ * Change_ID. A client that remembers the highest Change_ID it has seen (its high-water mark) can ask for only the changes
+ * made since then, by any client, instead of reading the Appointments again (see helper.ChangeFeed).
+ *
+ * The appointment_changes table is created ahead of time (see README), so the application only needs to read it and
+ * append to it. Old changes are removed by a scheduled job in the database rather than by the application.
+ */
+
+package DAO;
+
+import helper.JDBC;
+import helper.QueryMetrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class AppointmentChanges {
+    // Change types, stored in the Change_Type column
+    public static final String inserted = "I";
+    public static final String updated = "U";
+    public static final String deleted = "D";
+
+    /**
+     * Retrieves the Change_ID of the latest change, so that a client starting to follow the changes only receives those
+     * made after this call.
+     *
+     * @return the highest Change_ID, or 0 if no changes have been recorded.
+     * @throws SQLException if the change log could not be read.
+     */
+    public static long getHighWaterMark() throws SQLException {
+        try(Connection connection = JDBC.getConnection();
+            PreparedStatement ps = connection.prepareStatement("SELECT COALESCE(MAX(Change_ID), 0) FROM appointment_changes");
+            ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Retrieves the changes made after a high-water mark, in the order they were made.
+     *
+     * @param highWaterMark is the Change_ID of the last change already seen.
+     * @param limit is the most changes to retrieve; the rest are retrieved by calling again with the new high-water mark.
+     * @return the changes, ordered by their Change_ID.
+     * @throws SQLException if the change log could not be read.
+     */
+    public static List<Change> getChangesSince(long highWaterMark, int limit) throws SQLException {
+        List<Change> changes = new ArrayList<>();
+
+        String query = "SELECT Change_ID, Appointment_ID, Change_Type FROM appointment_changes WHERE Change_ID > ? " +
+                "ORDER BY Change_ID ASC LIMIT ?";
+        try(Connection connection = JDBC.getConnection();
+            PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setLong(1, highWaterMark);
+            ps.setInt(2, limit);
+
+            try(ResultSet rs = ps.executeQuery()) {
+                while(rs.next()) {
+                    changes.add(new Change(rs.getLong(1), rs.getInt(2), rs.getString(3)));
+                }
+            }
+            QueryMetrics.recordRows(ps, changes.size());
+        }
+
+        return changes;
+    }
+
+    /**
+     * Appends a change to the log. Called by AppointmentDAO within the transaction that makes the change, so the change and
+     * its log entry are committed together.
+     *
+     * @param connection is the connection the change is being made on, with auto-commit off.
+     * @param appointmentID is the unique ID of the Appointment that changed.
+     * @param changeType is inserted, updated or deleted.
+     * @throws SQLException if the change could not be logged.
+     */
+    static void record(Connection connection, int appointmentID, String changeType) throws SQLException {
+        try(PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO appointment_changes (Appointment_ID, Change_Type) VALUES (?, ?)")) {
+            ps.setInt(1, appointmentID);
+            ps.setString(2, changeType);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * One entry of the change log.
+     */
+    public static class Change {
+        private final long changeID;
+        private final int appointmentID;
+        private final String changeType;
+
+        private Change(long changeID, int appointmentID, String changeType) {
+            this.changeID = changeID;
+            this.appointmentID = appointmentID;
+            this.changeType = changeType;
+        }
+
+        public long getChangeID() {
+            return changeID;
+        }
+
+        public int getAppointmentID() {
+            return appointmentID;
+        }
+
+        public String getChangeType() {
+            return changeType;
+        }
+
+        public boolean isDelete() {
+            return deleted.equals(changeType);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+/**
+ * Provides the queries used to retrieve and modify Appointments in the database. Time ranges are pushed down to the
+ * database as range predicates on the Start/End columns so that only the Appointments being displayed are transferred,
+ * and the customer and contact names are joined in by the same query so that building each Appointment needs no further
+ * I/O.
+ */
+
+package DAO;
+
+import Model.Appointment;
+import Model.AppointmentStore;
+import Model.TypeMonthCounts;
+import helper.JDBC;
+import helper.QueryMetrics;
+import helper.TimeCodec;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
+
+public abstract class AppointmentDAO {
+
+    // Selects the appointment columns along with the names of the customer and contact attending
+    private static final String selectAppointments = "SELECT a.*, cu.Customer_Name, co.Contact_Name FROM appointments a " +
+            "LEFT JOIN customers cu ON cu.Customer_ID = a.Customer_ID " +
+            "LEFT JOIN contacts co ON co.Contact_ID = a.Contact_ID ";
+
+    // Rows fetched from the database at a time when streaming Appointments
+    private static final int streamFetchSize = 1000;
+
+    /**
+     * Receives the Appointments streamed by the stream methods, one row at a time. No Appointment object is built; the
+     * start and end are passed as epoch seconds.
+     */
+    public interface RowSink {
+        void row(int appointmentID, String title, String description, String location, String type, long utcStartEpochSecond,
+                 long utcEndEpochSecond, int customerID, String customerName, int userID, int contactID, String contactName) throws IOException;
+    }
+
+    /**
+     * Retrieves the Appointments that start on or after the start of the range and end on or before the end of the range,
+     * ordered by their start time.
+     *
+     * @param startRange is the beginning of the range, in any timezone.
+     * @param endRange is the end of the range, in any timezone.
+     * @return the Appointments within the range, in a compact store.
+     * @throws SQLException if the Appointments could not be retrieved.
+     */
+    public static AppointmentStore getAppointmentsInRange(ZonedDateTime startRange, ZonedDateTime endRange) throws SQLException {
+        AppointmentStore appointments = new AppointmentStore();
+
+        String query = selectAppointments + "WHERE a.Start >= ? AND a.End <= ? ORDER BY a.Start ASC";
+        try(Connection connection = JDBC.getConnection();
+            PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setString(1, toUtcTimestamp(startRange));
+            ps.setString(2, toUtcTimestamp(endRange));
+
+            try(ResultSet rs = ps.executeQuery()) {
+                while(rs.next()) {
+                    addToStore(appointments, rs);
+                }
+            }
+            QueryMetrics.recordRows(ps, appointments.size());
+        }
+
+        return appointments;
+    }
+
+    /**
+     * Retrieves the Appointments that start on or after the start of the range and before the end of the range, ordered
+     * by their start time. Unlike getAppointmentsInRange(), Appointments are included no matter when they end.
+     *
+     * @param startRange is the beginning of the range, in any timezone.
+     * @param endRange is the end of the range, in any timezone.
+     * @return the Appointments starting within the range, in a compact store.
+     * @throws SQLException if the Appointments could not be retrieved.
+     */
+    public static AppointmentStore getAppointmentsStartingBetween(ZonedDateTime startRange, ZonedDateTime endRange) throws SQLException {
+        AppointmentStore appointments = new AppointmentStore();
+
+        String query = selectAppointments + "WHERE a.Start >= ? AND a.Start < ? ORDER BY a.Start ASC";
+        try(Connection connection = JDBC.getConnection();
+            PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setString(1, toUtcTimestamp(startRange));
+            ps.setString(2, toUtcTimestamp(endRange));
+
+            try(ResultSet rs = ps.executeQuery()) {
+                while(rs.next()) {
+                    addToStore(appointments, rs);
+                }
+            }
+            QueryMetrics.recordRows(ps, appointments.size());
+        }
+
+        return appointments;
+    }
+
+    /**
+     * Retrieves the Appointments that the Contact is attending.
+     *
+     * @param contactID is the unique ID of the Contact.
+     * @return the Contact's Appointments, ordered by their start time, in a compact store.
+     * @throws SQLException if the Appointments could not be retrieved.
+     */
+    public static AppointmentStore getAppointmentsByContact(int contactID) throws SQLException {
+        AppointmentStore appointments = new AppointmentStore();
+
+        String query = selectAppointments + "WHERE a.Contact_ID = ? ORDER BY a.Start ASC";
+        try(Connection connection = JDBC.getConnection();
+            PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setInt(1, contactID);
+
+            try(ResultSet rs = ps.executeQuery()) {
+                while(rs.next()) {
+                    addToStore(appointments, rs);
+                }
+            }
+            QueryMetrics.recordRows(ps, appointments.size());
+        }
+
+        return appointments;
+    }
+
+    /**
+     * Retrieves the Appointments with the given IDs. IDs that no longer exist, because the Appointment has been deleted,
+     * are left out.
+     *
+     * @param appointmentIDs are the unique IDs of the Appointments.
+     * @return the Appointments that exist, ordered by their start time, in a compact store.
+     * @throws SQLException if the Appointments could not be retrieved.
+     */
+    public static AppointmentStore getAppointmentsByID(List<Integer> appointmentIDs) throws SQLException {
+        AppointmentStore appointments = new AppointmentStore();
+        if(appointmentIDs.isEmpty()) {
+            return appointments;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(appointmentIDs.size(), "?"));
+        String query = selectAppointments + "WHERE a.Appointment_ID IN (" + placeholders + ") ORDER BY a.Start ASC";
+        try(Connection connection = JDBC.getConnection();
+            PreparedStatement ps = connection.prepareStatement(query)) {
+            for(int i = 0; i < appointmentIDs.size(); i++) {
+                ps.setInt(i + 1, appointmentIDs.get(i));
+            }
+
+            try(ResultSet rs = ps.executeQuery()) {
+                while(rs.next()) {
+                    addToStore(appointments, rs);
+                }
+            }
+            QueryMetrics.recordRows(ps, appointments.size());
+        }
+
+        return appointments;
+    }
+
+    /**
+     * Streams the Appointments within a range to a sink, with the same range predicate as getAppointmentsInRange(),
+     * ordered by their start time.
+     *
+     * @param startRange is the beginning of the range, in any timezone.
+     * @param endRange is the end of the range, in any timezone.
+     * @param sink receives each Appointment.
+     * @return the number of Appointments streamed.
+     * @throws SQLException if the Appointments could not be retrieved.
+     * @throws IOException if the sink could not write an Appointment.
+     */
+    public static long streamAppointmentsInRange(ZonedDateTime startRange, ZonedDateTime endRange, RowSink sink) throws SQLException, IOException {
+        return stream("WHERE a.Start >= ? AND a.End <= ? ORDER BY a.Start ASC", sink, toUtcTimestamp(startRange), toUtcTimestamp(endRange));
+    }
+
+    /**
+     * Streams the Appointments that the Contact is attending to a sink, ordered by their start time.
+     *
+     * @param contactID is the unique ID of the Contact.
+     * @param sink receives each Appointment.
+     * @return the number of Appointments streamed.
+     * @throws SQLException if the Appointments could not be retrieved.
+     * @throws IOException if the sink could not write an Appointment.
+     */
+    public static long streamAppointmentsByContact(int contactID, RowSink sink) throws SQLException, IOException {
+        return stream("WHERE a.Contact_ID = ? ORDER BY a.Start ASC", sink, contactID);
+    }
+
+    /**
+     * Streams the Appointments that the Customer is attending to a sink, ordered by their start time.
+     *
+     * @param customerID is the unique ID of the Customer.
+     * @param sink receives each Appointment.
+     * @return the number of Appointments streamed.
+     * @throws SQLException if the Appointments could not be retrieved.
+     * @throws IOException if the sink could not write an Appointment.
+     */
+    public static long streamAppointmentsByCustomer(int customerID, RowSink sink) throws SQLException, IOException {
+        return stream("WHERE a.Customer_ID = ? ORDER BY a.Start ASC", sink, customerID);
+    }
+
+    /**
+     * Runs a query built on selectAppointments and hands each row to a sink as it is read. The ResultSet is forward-only
+     * and read-only, and rows are fetched streamFetchSize at a time (with useCursorFetch on MySQL), so only one batch of
+     * rows is held in memory however many Appointments match. The statement is created with its own result set type, so
+     * it is not kept in the connection's statement cache.
+     */
+    private static long stream(String condition, RowSink sink, Object... parameters) throws SQLException, IOException {
+        long rows = 0;
+
+        try(Connection connection = JDBC.getConnection();
+            PreparedStatement ps = connection.prepareStatement(selectAppointments + condition, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(streamFetchSize);
+            for(int i = 0; i < parameters.length; i++) {
+                ps.setObject(i + 1, parameters[i]);
+            }
+
+            try(ResultSet rs = ps.executeQuery()) {
+                while(rs.next()) {
+                    sink.row(rs.getInt("Appointment_ID"), rs.getString("Title"), rs.getString("Description"), rs.getString("Location"),
+                            rs.getString("Type"), toEpochSecond(rs.getString("Start")), toEpochSecond(rs.getString("End")),
+                            rs.getInt("Customer_ID"), rs.getString("Customer_Name"), rs.getInt("User_ID"), rs.getInt("Contact_ID"),
+                            rs.getString("Contact_Name"));
+                    rows++;
+                }
+            }
+            QueryMetrics.recordRows(ps, rows);
+        }
+
+        return rows;
+    }
+
+    /**
+     * Counts the Appointments grouped by the year and month they start in (UTC), their Type and their user. The database
+     * performs the aggregation, so the report is built from a single query no matter how many Appointments or Types exist.
+     *
+     * @return the number of Appointments in each group.
+     * @throws SQLException if the counts could not be retrieved.
+     */
+    public static TypeMonthCounts getTypeMonthCounts() throws SQLException {
+        TypeMonthCounts counts = new TypeMonthCounts();
+        int rows = 0;
+
+        String query = "SELECT YEAR(Start) AS Year, MONTH(Start) AS Month, Type, User_ID, COUNT(*) AS Quantity " +
+                "FROM appointments GROUP BY YEAR(Start), MONTH(Start), Type, User_ID";
+        try(Connection connection = JDBC.getConnection();
+            PreparedStatement ps = connection.prepareStatement(query);
+            ResultSet rs = ps.executeQuery()) {
+            while(rs.next()) {
+                counts.add(rs.getInt("Year"), rs.getInt("Month"), rs.getString("Type"), rs.getInt("User_ID"), rs.getInt("Quantity"));
+                rows++;
+            }
+            QueryMetrics.recordRows(ps, rows);
+        }
+
+        return counts;
+    }
+
+    /**
+     * Inserts a new Appointment into the database and records the insert in the change log.
+     *
+     * @param appointment is the Appointment to insert, with its ID already allocated.
+     * @throws SQLException if the Appointment could not be inserted.
+     */
+    public static void insertAppointment(Appointment appointment) throws SQLException {
+        String update = "INSERT INTO appointments VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try(Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+
+            try(PreparedStatement ps = connection.prepareStatement(update)) {
+                ps.setInt(1, appointment.getAppointmentID());
+                ps.setString(2, appointment.getTitle());
+                ps.setString(3, appointment.getDescription());
+                ps.setString(4, appointment.getLocation());
+                ps.setString(5, appointment.getType());
+                ps.setString(6, appointment.getUtcStartTimestamp());
+                ps.setString(7, appointment.getUtcEndTimestamp());
+                ps.setString(8, appointment.getCreateDate());
+                ps.setString(9, appointment.getCreatedBy());
+                ps.setString(10, appointment.getLastUpdate());
+                ps.setString(11, appointment.getLastUpdatedBy());
+                ps.setInt(12, appointment.getCustomerID());
+                ps.setInt(13, appointment.getUserID());
+                ps.setInt(14, appointment.getContactID());
+                ps.executeUpdate();
+            }
+
+            AppointmentChanges.record(connection, appointment.getAppointmentID(), AppointmentChanges.inserted);
+            connection.commit();
+        }
+    }
+
+    /**
+     * Updates an existing Appointment in the database with the Appointment's current values, and records the update in
+     * the change log. The creation audit columns are left unchanged.
+     *
+     * @param appointment is the Appointment to update, identified by its ID.
+     * @throws SQLException if the Appointment could not be updated.
+     */
+    public static void updateAppointment(Appointment appointment) throws SQLException {
+        String update = "UPDATE appointments SET Title = ?, Description = ?, Location = ?, Type = ?, Start = ?, End = ?, " +
+                "Last_Update = ?, Last_Updated_By = ?, Customer_ID = ?, User_ID = ?, Contact_ID = ? WHERE Appointment_ID = ?";
+        try(Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+
+            try(PreparedStatement ps = connection.prepareStatement(update)) {
+                ps.setString(1, appointment.getTitle());
+                ps.setString(2, appointment.getDescription());
+                ps.setString(3, appointment.getLocation());
+                ps.setString(4, appointment.getType());
+                ps.setString(5, appointment.getUtcStartTimestamp());
+                ps.setString(6, appointment.getUtcEndTimestamp());
+                ps.setString(7, appointment.getLastUpdate());
+                ps.setString(8, appointment.getLastUpdatedBy());
+                ps.setInt(9, appointment.getCustomerID());
+                ps.setInt(10, appointment.getUserID());
+                ps.setInt(11, appointment.getContactID());
+                ps.setInt(12, appointment.getAppointmentID());
+                if(ps.executeUpdate() == 0) {
+                    return; // The Appointment no longer exists, so nothing changed
+                }
+            }
+
+            AppointmentChanges.record(connection, appointment.getAppointmentID(), AppointmentChanges.updated);
+            connection.commit();
+        }
+    }
+
+    /**
+     * Deletes the Appointment from the database and records the delete in the change log.
+     *
+     * @param appointmentID is the unique ID of the Appointment.
+     * @throws SQLException if the Appointment could not be deleted.
+     */
+    public static void deleteAppointment(int appointmentID) throws SQLException {
+        try(Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+
+            try(PreparedStatement ps = connection.prepareStatement("DELETE FROM appointments WHERE Appointment_ID = ?")) {
+                ps.setInt(1, appointmentID);
+                if(ps.executeUpdate() == 0) {
+                    return; // The Appointment has already been deleted
+                }
+            }
+
+            AppointmentChanges.record(connection, appointmentID, AppointmentChanges.deleted);
+            connection.commit();
+        }
+    }
+
+    /**
+     * Adds the current row of a query built on selectAppointments to an AppointmentStore. No Appointment object is built;
+     * the start and end are stored as epoch seconds.
+     *
+     * @param store is the store to add the row to.
+     * @param rs is a ResultSet positioned on an appointments row joined with the customer and contact names.
+     * @throws SQLException if a column could not be read.
+     */
+    static void addToStore(AppointmentStore store, ResultSet rs) throws SQLException {
+        store.add(rs.getInt("Appointment_ID"), rs.getString("Title"), rs.getString("Description"), rs.getString("Location"),
+                rs.getString("Type"), toEpochSecond(rs.getString("Start")), toEpochSecond(rs.getString("End")),
+                rs.getInt("Customer_ID"), rs.getString("Customer_Name"), rs.getInt("User_ID"), rs.getInt("Contact_ID"),
+                rs.getString("Contact_Name"));
+    }
+
+    /**
+     * Converts a timestamp from the Start/End columns, which are stored in UTC, into seconds since the epoch.
+     */
+    static long toEpochSecond(String utcTimestamp) {
+        return TimeCodec.parseEpochSecond(utcTimestamp);
+    }
+
+    /**
+     * Converts a ZonedDateTime into the UTC timestamp format the Start/End columns are stored in.
+     */
+    static String toUtcTimestamp(ZonedDateTime zonedDateTime) {
+        return TimeCodec.formatDatabase(zonedDateTime);
+    }
+}
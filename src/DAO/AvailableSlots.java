@@ -0,0 +1,187 @@
+/**
+ * Finds times at which a customer and a contact are both free during business hours, so an Appointment can be booked
+ * without trial saves being rejected for conflicts or for falling outside business hours.
+ *
+ * The appointments of both parties in the searched days are retrieved with one query, ordered by their start, and merged
+ * into disjoint busy intervals with a single sweep. A second sweep walks the business window of each day alongside the
+ * busy intervals and emits the free start times, in 30 minute steps, at which an Appointment of the requested length fits.
+ */
+
+package DAO;
+
+import helper.JDBC;
+import helper.QueryMetrics;
+import helper.TimeCodec;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public abstract class AvailableSlots {
+    // Business hours are 8AM - 10PM EST, and start times are offered in 30 minute steps of local time
+    private static final ZoneId businessZone = TimeCodec.businessZone;
+    private static final LocalTime businessOpen = LocalTime.of(8, 0);
+    private static final LocalTime businessClose = LocalTime.of(22, 0);
+    private static final LocalTime lastEndTime = LocalTime.of(23, 30);
+    private static final long stepSeconds = 30 * 60;
+
+    /**
+     * Finds the earliest start times, from now on, at which both the customer and the contact are free for the whole
+     * duration. Each slot starts and ends on the same local day and within that day's business hours, which are the
+     * checks Appointment.isWithinBusinessHours() applies when saving.
+     *
+     * @param customerID is the unique ID of the customer attending.
+     * @param contactID is the unique ID of the contact attending.
+     * @param durationSeconds is the length of the Appointment.
+     * @param firstDay is the first local day to search.
+     * @param lastDay is the last local day to search.
+     * @param maxSlots is the maximum number of slots to return.
+     * @return the start of each free slot in local time, earliest first.
+     * @throws SQLException if the schedules could not be retrieved.
+     */
+    public static List<ZonedDateTime> find(int customerID, int contactID, long durationSeconds, LocalDate firstDay,
+                                           LocalDate lastDay, int maxSlots) throws SQLException {
+        ZoneId localZone = ZoneId.systemDefault();
+        long searchStart = Math.max(firstDay.atStartOfDay(localZone).toEpochSecond(), Instant.now().getEpochSecond());
+        long searchEnd = lastDay.plusDays(1).atStartOfDay(localZone).toEpochSecond();
+
+        long[][] busy = mergeBusyIntervals(getBusyIntervals(customerID, contactID, searchStart, searchEnd));
+        return findFreeSlots(busy, durationSeconds, firstDay, lastDay, searchStart, localZone, maxSlots);
+    }
+
+    /**
+     * Sweeps the business window of each day alongside the busy intervals and collects the free start times.
+     *
+     * @param busy holds the starts and ends of disjoint busy intervals, ordered by start.
+     * @param searchStart is the earliest time a slot may start, in epoch seconds.
+     * @param localZone is the timezone the days and 30 minute steps are in.
+     */
+    static List<ZonedDateTime> findFreeSlots(long[][] busy, long durationSeconds, LocalDate firstDay, LocalDate lastDay,
+                                             long searchStart, ZoneId localZone, int maxSlots) {
+        long[] busyStarts = busy[0];
+        long[] busyEnds = busy[1];
+
+        List<ZonedDateTime> slots = new ArrayList<>();
+        int next = 0; // First busy interval that may still overlap the current or a later window
+
+        for(LocalDate day = firstDay; !day.isAfter(lastDay) && slots.size() < maxSlots; day = day.plusDays(1)) {
+            // The window in which an Appointment on this local day may take place
+            long windowStart = Math.max(day.atStartOfDay(localZone).toEpochSecond(),
+                    ZonedDateTime.of(day, businessOpen, businessZone).toEpochSecond());
+            long windowEnd = Math.min(ZonedDateTime.of(day, lastEndTime, localZone).toEpochSecond(),
+                    ZonedDateTime.of(day, businessClose, businessZone).toEpochSecond());
+            windowStart = Math.max(windowStart, searchStart);
+
+            // Skip the busy intervals that end before the window
+            while(next < busyStarts.length && busyEnds[next] <= windowStart) {
+                next++;
+            }
+
+            // Walk the free gaps between the busy intervals that overlap the window
+            long freeStart = windowStart;
+            int i = next;
+            while(freeStart < windowEnd && slots.size() < maxSlots) {
+                long freeEnd = i < busyStarts.length ? Math.min(busyStarts[i], windowEnd) : windowEnd;
+
+                for(long start = alignToStep(freeStart, localZone); start + durationSeconds <= freeEnd && slots.size() < maxSlots;
+                    start += stepSeconds) {
+                    slots.add(ZonedDateTime.ofInstant(Instant.ofEpochSecond(start), localZone));
+                }
+
+                if(i >= busyStarts.length || busyStarts[i] >= windowEnd) {
+                    break;
+                }
+                freeStart = Math.max(freeStart, busyEnds[i]);
+                i++;
+            }
+        }
+
+        return slots;
+    }
+
+    /**
+     * Retrieves the start and end, in epoch seconds, of every appointment of the customer or the contact that overlaps
+     * the searched period, ordered by start.
+     */
+    private static long[][] getBusyIntervals(int customerID, int contactID, long searchStart, long searchEnd) throws SQLException {
+        long[] starts = new long[16];
+        long[] ends = new long[16];
+        int count = 0;
+
+        String query = "SELECT Start, End FROM appointments WHERE (Customer_ID = ? OR Contact_ID = ?) " +
+                "AND Start < ? AND End > ? ORDER BY Start ASC";
+        try(Connection connection = JDBC.getConnection();
+            PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setInt(1, customerID);
+            ps.setInt(2, contactID);
+            ps.setString(3, toUtcTimestamp(searchEnd));
+            ps.setString(4, toUtcTimestamp(searchStart));
+
+            try(ResultSet rs = ps.executeQuery()) {
+                while(rs.next()) {
+                    if(count == starts.length) {
+                        starts = Arrays.copyOf(starts, count * 2);
+                        ends = Arrays.copyOf(ends, count * 2);
+                    }
+                    starts[count] = toEpochSecond(rs.getString("Start"));
+                    ends[count] = toEpochSecond(rs.getString("End"));
+                    count++;
+                }
+            }
+            QueryMetrics.recordRows(ps, count);
+        }
+
+        return new long[][]{Arrays.copyOf(starts, count), Arrays.copyOf(ends, count)};
+    }
+
+    /**
+     * Merges intervals sorted by start into disjoint intervals. Intervals that touch are kept apart, since an appointment
+     * may start exactly when another ends.
+     */
+    static long[][] mergeBusyIntervals(long[][] intervals) {
+        long[] starts = intervals[0];
+        long[] ends = intervals[1];
+        long[] mergedStarts = new long[starts.length];
+        long[] mergedEnds = new long[ends.length];
+        int count = 0;
+
+        for(int i = 0; i < starts.length; i++) {
+            if(count > 0 && starts[i] < mergedEnds[count - 1]) {
+                mergedEnds[count - 1] = Math.max(mergedEnds[count - 1], ends[i]);
+            }
+            else {
+                mergedStarts[count] = starts[i];
+                mergedEnds[count] = ends[i];
+                count++;
+            }
+        }
+
+        return new long[][]{Arrays.copyOf(mergedStarts, count), Arrays.copyOf(mergedEnds, count)};
+    }
+
+    /**
+     * Rounds a time up to the next whole or half hour of local time.
+     */
+    private static long alignToStep(long epochSecond, ZoneId zone) {
+        long offset = zone.getRules().getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        long local = epochSecond + offset;
+        return Math.floorDiv(local + stepSeconds - 1, stepSeconds) * stepSeconds - offset;
+    }
+
+    private static String toUtcTimestamp(long epochSecond) {
+        return TimeCodec.formatDatabase(epochSecond);
+    }
+
+    private static long toEpochSecond(String utcTimestamp) {
+        return TimeCodec.parseEpochSecond(utcTimestamp);
+    }
+}
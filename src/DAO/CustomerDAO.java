@@ -0,0 +1,125 @@
+/**
+ * Provides the queries used to retrieve and modify Customers in the database.
+ */
+
+package DAO;
+
+import Model.Customer;
+import helper.JDBC;
+import helper.QueryMetrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+public abstract class CustomerDAO {
+    /**
+     * Retrieves every Customer in the database.
+     *
+     * @return all Customers, ordered by their ID.
+     * @throws SQLException if the Customers could not be retrieved.
+     */
+    public static ArrayList<Customer> getAllCustomers() throws SQLException {
+        ArrayList<Customer> customers = new ArrayList<>();
+
+        String query = "SELECT Customer_ID, Customer_Name, Address, Postal_Code, Phone, Division_ID FROM customers ORDER BY Customer_ID ASC";
+        try(Connection connection = JDBC.getConnection();
+            PreparedStatement ps = connection.prepareStatement(query);
+            ResultSet rs = ps.executeQuery()) {
+            while(rs.next()) {
+                int ID = rs.getInt("Customer_ID");
+                String name = rs.getString("Customer_Name");
+                String address = rs.getString("Address");
+                String postalCode = rs.getString("Postal_Code");
+                String phoneNumber = rs.getString("Phone");
+                int divisionID = rs.getInt("Division_ID");
+
+                customers.add(new Customer(ID, name, address, postalCode, phoneNumber, divisionID));
+            }
+            QueryMetrics.recordRows(ps, customers.size());
+        }
+
+        return customers;
+    }
+
+    /**
+     * Checks whether any Appointments are associated with the Customer.
+     *
+     * @param customerID is the unique ID of the Customer.
+     * @return true if the Customer has at least one Appointment.
+     * @throws SQLException if the Appointments could not be checked.
+     */
+    public static boolean hasAppointments(int customerID) throws SQLException {
+        try(Connection connection = JDBC.getConnection();
+            PreparedStatement ps = connection.prepareStatement("SELECT 1 FROM appointments WHERE Customer_ID = ? LIMIT 1")) {
+            ps.setInt(1, customerID);
+
+            try(ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Inserts a new Customer into the database.
+     *
+     * @param customer is the Customer to insert, with its ID already allocated.
+     * @throws SQLException if the Customer could not be inserted.
+     */
+    public static void insertCustomer(Customer customer) throws SQLException {
+        try(Connection connection = JDBC.getConnection();
+            PreparedStatement ps = connection.prepareStatement("INSERT INTO customers VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            ps.setInt(1, customer.getID());
+            ps.setString(2, customer.getName());
+            ps.setString(3, customer.getAddress());
+            ps.setString(4, customer.getPostalCode());
+            ps.setString(5, customer.getPhoneNumber());
+            ps.setString(6, customer.getCreateDate());
+            ps.setString(7, customer.getCreatedBy());
+            ps.setString(8, customer.getLastUpdate());
+            ps.setString(9, customer.getLastUpdatedBy());
+            ps.setInt(10, customer.getDivisionID());
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Updates an existing Customer in the database with the Customer's current values. The creation audit columns are
+     * left unchanged.
+     *
+     * @param customer is the Customer to update, identified by its ID.
+     * @throws SQLException if the Customer could not be updated.
+     */
+    public static void updateCustomer(Customer customer) throws SQLException {
+        String update = "UPDATE customers SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?, " +
+                "Last_Update = ?, Last_Updated_By = ?, Division_ID = ? WHERE Customer_ID = ?";
+        try(Connection connection = JDBC.getConnection();
+            PreparedStatement ps = connection.prepareStatement(update)) {
+            ps.setString(1, customer.getName());
+            ps.setString(2, customer.getAddress());
+            ps.setString(3, customer.getPostalCode());
+            ps.setString(4, customer.getPhoneNumber());
+            ps.setString(5, customer.getLastUpdate());
+            ps.setString(6, customer.getLastUpdatedBy());
+            ps.setInt(7, customer.getDivisionID());
+            ps.setInt(8, customer.getID());
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Deletes the Customer from the database.
+     *
+     * @param customerID is the unique ID of the Customer.
+     * @throws SQLException if the Customer could not be deleted.
+     */
+    public static void deleteCustomer(int customerID) throws SQLException {
+        try(Connection connection = JDBC.getConnection();
+            PreparedStatement ps = connection.prepareStatement("DELETE FROM customers WHERE Customer_ID = ?")) {
+            ps.setInt(1, customerID);
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * A read-through, in-process cache of the customers table. Every Customer is read from the database once, the first time
+ * any of them is asked for, and every lookup after that is served from memory: by Customer_ID, in the order of their IDs
+ * for the Customer table, or in alphabetical order of name for the drop-down menus on the Appointment forms.
+ *
+ * Customers are added, updated and deleted through this class, which writes the change to the database and then applies
+ * it to the cached Customers, rather than reading the whole table again. Each change increments a version number, so a
+ * page can tell whether the Customers it is displaying are still current. invalidate() discards the cache; it is reloaded
+ * by the next lookup.
+ *
+ * Customers added, updated or deleted by other users are not seen by the cache until it is reloaded, so a lookup reloads
+ * the cache once it is older than maxAgeMillis. The Customer list also reloads when it is shown again after that time
+ * (see isExpired()), and the Appointment forms read the Customers each time they are opened.
+ *
+ * The cached Customers are shared with every page that displays them and must not be modified. A form that edits a
+ * Customer edits a copy of it (see UpdateCustomerController).
+ */
+
+package DAO;
+
+import Model.Customer;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+public abstract class CustomerRepository {
+    // Customers are ordered by name the way MySQL's default collation orders them, ignoring case, with ties in ID order
+    private static final Comparator<Customer> byName = Comparator.comparing(Customer::getName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingInt(Customer::getID);
+
+    // How long the cached Customers are used before they are read again, to pick up changes made by other users
+    private static final long maxAgeMillis = 30 * 1000;
+
+    private static final TreeMap<Integer, Customer> customersByID = new TreeMap<>();
+    private static final TreeSet<Customer> customersByName = new TreeSet<>(byName);
+    private static boolean loaded;
+    private static long loadedMillis;
+    private static volatile long version;
+
+    /**
+     * Loads (or reloads) every Customer from the database, replacing the cached Customers.
+     *
+     * @throws SQLException if the Customers could not be read.
+     */
+    public static synchronized void load() throws SQLException {
+        ArrayList<Customer> customers = CustomerDAO.getAllCustomers();
+
+        customersByID.clear();
+        customersByName.clear();
+        for(Customer customer : customers) {
+            customersByID.put(customer.getID(), customer);
+            customersByName.add(customer);
+        }
+        loaded = true;
+        loadedMillis = System.currentTimeMillis();
+        version++;
+    }
+
+    /**
+     * Discards the cached Customers. They are reloaded from the database by the next lookup.
+     */
+    public static synchronized void invalidate() {
+        customersByID.clear();
+        customersByName.clear();
+        loaded = false;
+        version++;
+    }
+
+    /**
+     * @return the version of the cached Customers, which changes whenever a Customer is added, updated or deleted, or the
+     * Customers are reloaded.
+     */
+    public static long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return true if the cached Customers are older than maxAgeMillis, or not loaded, so the next lookup reads them from
+     * the database again.
+     */
+    public static synchronized boolean isExpired() {
+        return !loaded || System.currentTimeMillis() - loadedMillis > maxAgeMillis;
+    }
+
+    /**
+     * @return every Customer, ordered by their ID.
+     */
+    public static synchronized List<Customer> getCustomers() throws SQLException {
+        ensureLoaded();
+        return new ArrayList<>(customersByID.values());
+    }
+
+    /**
+     * @return the Customer with the ID, or null if there is none.
+     */
+    public static synchronized Customer getCustomer(int customerID) throws SQLException {
+        ensureLoaded();
+        return customersByID.get(customerID);
+    }
+
+    /**
+     * @return the name of each Customer keyed by their ID, in alphabetical order of name, for populating drop-down menus.
+     */
+    public static synchronized LinkedHashMap<Integer, String> getCustomerNames() throws SQLException {
+        ensureLoaded();
+        LinkedHashMap<Integer, String> customerNames = new LinkedHashMap<>();
+        for(Customer customer : customersByName) {
+            customerNames.put(customer.getID(), customer.getName());
+        }
+        return customerNames;
+    }
+
+    /**
+     * Inserts a new Customer into the database and adds it to the cache.
+     *
+     * @param customer is the Customer to insert, with its ID already allocated.
+     * @throws SQLException if the Customer could not be inserted.
+     */
+    public static void insert(Customer customer) throws SQLException {
+        CustomerDAO.insertCustomer(customer);
+        put(customer);
+    }
+
+    /**
+     * Updates an existing Customer in the database and replaces it in the cache.
+     *
+     * @param customer is the Customer to update, identified by its ID.
+     * @throws SQLException if the Customer could not be updated.
+     */
+    public static void update(Customer customer) throws SQLException {
+        CustomerDAO.updateCustomer(customer);
+        put(customer);
+    }
+
+    /**
+     * Deletes the Customer from the database and removes it from the cache.
+     *
+     * @param customerID is the unique ID of the Customer.
+     * @throws SQLException if the Customer could not be deleted.
+     */
+    public static void delete(int customerID) throws SQLException {
+        CustomerDAO.deleteCustomer(customerID);
+        remove(customerID);
+    }
+
+    /**
+     * Adds a Customer that was saved to the database to the cache, replacing the cached Customer with the same ID. The
+     * Customer is copied, so the caller may go on modifying its own instance.
+     */
+    static synchronized void put(Customer customer) {
+        if(!loaded) {
+            return; // The Customer is read along with every other Customer when the cache is loaded
+        }
+
+        Customer copy = new Customer(customer.getID(), customer.getName(), customer.getAddress(), customer.getPostalCode(),
+                customer.getPhoneNumber(), customer.getDivisionID());
+        Customer replaced = customersByID.put(copy.getID(), copy);
+        if(replaced != null) {
+            customersByName.remove(replaced);
+        }
+        customersByName.add(copy);
+        version++;
+    }
+
+    /**
+     * Removes a Customer that was deleted from the database from the cache.
+     */
+    static synchronized void remove(int customerID) {
+        Customer removed = customersByID.remove(customerID);
+        if(removed != null) {
+            customersByName.remove(removed);
+            version++;
+        }
+    }
+
+    /**
+     * Loads the cached Customers if they have not been loaded, have been invalidated, or have expired.
+     */
+    private static void ensureLoaded() throws SQLException {
+        if(isExpired()) {
+            load();
+        }
+    }
+}
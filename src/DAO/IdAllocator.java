@@ -0,0 +1,100 @@
+/**
+ * Allocates unique IDs for new records in the HiLo style. Each client reserves a block of consecutive IDs at a time by
+ * atomically advancing a counter in the id_sequences table, and then hands out the IDs within the block from memory. Two
+ * clients never receive the same ID, and a form can be given its ID without querying the database until the reserved
+ * block runs out. IDs that are reserved but never used (for example when a form is cancelled) are simply skipped.
+ *
+ * The id_sequences table and the row of each sequence are created ahead of time (see README), seeded from the highest ID
+ * already used by its table, so the application only needs to update the table.
+ */
+
+package DAO;
+
+import helper.JDBC;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class IdAllocator {
+    // Number of IDs reserved by each round trip to the database
+    private static final int blockSize = 20;
+
+    public static final IdAllocator APPOINTMENTS = new IdAllocator("appointments");
+    public static final IdAllocator CUSTOMERS = new IdAllocator("customers");
+
+    private final String tableName;
+
+    // The reserved block is [nextID, limitID)
+    private int nextID = 0;
+    private int limitID = 0;
+
+    /**
+     * @param tableName is the table that the IDs are used in, which also names the sequence.
+     */
+    private IdAllocator(String tableName) {
+        this.tableName = tableName;
+    }
+
+    /**
+     * Takes the next ID from the reserved block, reserving a new block first if the current one has been used up.
+     *
+     * @return a new ID that no other client will receive.
+     * @throws SQLException if a new block could not be reserved.
+     */
+    public synchronized int nextID() throws SQLException {
+        if(nextID >= limitID) {
+            reserveBlock();
+        }
+        return nextID++;
+    }
+
+    /**
+     * Takes the next ID from the reserved block without accessing the database.
+     *
+     * @return a new ID, or null if the reserved block has been used up and nextID() must be called instead.
+     */
+    public synchronized Integer tryNextID() {
+        if(nextID >= limitID) {
+            return null;
+        }
+        return nextID++;
+    }
+
+    /**
+     * Reserves a block of IDs if none are left, so that later calls to tryNextID() succeed. Called in the background at
+     * startup.
+     *
+     * @throws SQLException if a block could not be reserved.
+     */
+    public synchronized void warmUp() throws SQLException {
+        if(nextID >= limitID) {
+            reserveBlock();
+        }
+    }
+
+    /**
+     * Advances the sequence by a block in a single atomic statement and records the reserved range. LAST_INSERT_ID(expr)
+     * stores the new counter value for this connection, so reading it back cannot observe another client's reservation.
+     */
+    private void reserveBlock() throws SQLException {
+        try(Connection connection = JDBC.getConnection()) {
+            try(PreparedStatement ps = connection.prepareStatement(
+                    "UPDATE id_sequences SET Next_ID = LAST_INSERT_ID(Next_ID + ?) WHERE Sequence_Name = ?")) {
+                ps.setInt(1, blockSize);
+                ps.setString(2, tableName);
+                if(ps.executeUpdate() == 0) {
+                    throw new SQLException("The id_sequences table has no row for the " + tableName + " sequence.");
+                }
+            }
+
+            try(PreparedStatement ps = connection.prepareStatement("SELECT LAST_INSERT_ID()");
+                ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                limitID = rs.getInt(1);
+                nextID = limitID - blockSize;
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * An in-process cache of the reference tables: countries, first_level_divisions, contacts and users. These tables almost
+ * never change, so they are loaded together once (normally at startup via load()) and every lookup after that is served
+ * from memory. invalidate() discards the cached tables; they are reloaded by the next lookup.
+ */
+
+package DAO;
+
+import Model.Contact;
+import Model.Country;
+import Model.Division;
+import Model.User;
+import helper.JDBC;
+import helper.QueryMetrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public abstract class ReferenceData {
+    // The currently cached tables, or null if they have not been loaded or have been invalidated
+    private static volatile Snapshot snapshot;
+
+    /**
+     * Loads (or reloads) every reference table from the database, replacing the cached tables.
+     *
+     * @throws SQLException if a table could not be read.
+     */
+    public static synchronized void load() throws SQLException {
+        Snapshot loaded = new Snapshot();
+
+        try(Connection connection = JDBC.getConnection()) {
+            try(PreparedStatement ps = connection.prepareStatement("SELECT Country_ID, Country FROM countries ORDER BY Country_ID ASC");
+                ResultSet rs = ps.executeQuery()) {
+                while(rs.next()) {
+                    Country country = new Country(rs.getInt(1), rs.getString(2));
+                    loaded.countries.add(country);
+                    loaded.countriesByID.put(country.getID(), country);
+                    loaded.countriesByName.put(country.getName(), country);
+                }
+                QueryMetrics.recordRows(ps, loaded.countries.size());
+            }
+
+            try(PreparedStatement ps = connection.prepareStatement("SELECT Division_ID, Division, Country_ID FROM first_level_divisions ORDER BY Division_ID ASC");
+                ResultSet rs = ps.executeQuery()) {
+                while(rs.next()) {
+                    Division division = new Division(rs.getInt(1), rs.getString(2), rs.getInt(3));
+                    loaded.divisionsByID.put(division.getID(), division);
+                    loaded.divisionsByName.put(division.getName(), division);
+                    loaded.divisionsByCountry.computeIfAbsent(division.getCountryID(), id -> new ArrayList<>()).add(division);
+                }
+                QueryMetrics.recordRows(ps, loaded.divisionsByID.size());
+            }
+
+            try(PreparedStatement ps = connection.prepareStatement("SELECT Contact_ID, Contact_Name, Email FROM contacts ORDER BY Contact_Name ASC");
+                ResultSet rs = ps.executeQuery()) {
+                while(rs.next()) {
+                    Contact contact = new Contact(rs.getInt(1), rs.getString(2), rs.getString(3));
+                    loaded.contacts.add(contact);
+                    loaded.contactsByID.put(contact.getID(), contact);
+                    loaded.contactsByName.put(contact.getName(), contact);
+                }
+                QueryMetrics.recordRows(ps, loaded.contacts.size());
+            }
+
+            // Passwords are deliberately not selected
+            try(PreparedStatement ps = connection.prepareStatement("SELECT User_ID, User_Name FROM users ORDER BY User_Name ASC");
+                ResultSet rs = ps.executeQuery()) {
+                while(rs.next()) {
+                    User user = new User(rs.getInt(1), rs.getString(2));
+                    loaded.usersByID.put(user.getID(), user);
+                    loaded.usersByName.put(user.getName(), user);
+                }
+                QueryMetrics.recordRows(ps, loaded.usersByID.size());
+            }
+        }
+
+        snapshot = loaded;
+    }
+
+    /**
+     * Discards the cached tables. They are reloaded from the database by the next lookup.
+     */
+    public static void invalidate() {
+        snapshot = null;
+    }
+
+    /**
+     * @return every Country, in the order of their IDs.
+     */
+    public static List<Country> getCountries() throws SQLException {
+        return Collections.unmodifiableList(current().countries);
+    }
+
+    /**
+     * @return the Country with the ID, or null if there is none.
+     */
+    public static Country getCountry(int countryID) throws SQLException {
+        return current().countriesByID.get(countryID);
+    }
+
+    /**
+     * @return the Country with the name, or null if there is none.
+     */
+    public static Country getCountry(String countryName) throws SQLException {
+        return current().countriesByName.get(countryName);
+    }
+
+    /**
+     * @return the first-level divisions of the Country, in the order of their IDs.
+     */
+    public static List<Division> getDivisions(int countryID) throws SQLException {
+        return Collections.unmodifiableList(current().divisionsByCountry.getOrDefault(countryID, Collections.emptyList()));
+    }
+
+    /**
+     * @return the first-level division with the ID, or null if there is none.
+     */
+    public static Division getDivision(int divisionID) throws SQLException {
+        return current().divisionsByID.get(divisionID);
+    }
+
+    /**
+     * @return the first-level division with the name, or null if there is none.
+     */
+    public static Division getDivision(String divisionName) throws SQLException {
+        return current().divisionsByName.get(divisionName);
+    }
+
+    /**
+     * @return every Contact, sorted by name.
+     */
+    public static List<Contact> getContacts() throws SQLException {
+        return Collections.unmodifiableList(current().contacts);
+    }
+
+    /**
+     * @return the Contact with the ID, or null if there is none.
+     */
+    public static Contact getContact(int contactID) throws SQLException {
+        return current().contactsByID.get(contactID);
+    }
+
+    /**
+     * @return the Contact with the name, or null if there is none.
+     */
+    public static Contact getContact(String contactName) throws SQLException {
+        return current().contactsByName.get(contactName);
+    }
+
+    /**
+     * @return the User with the ID, or null if there is none.
+     */
+    public static User getUser(int userID) throws SQLException {
+        return current().usersByID.get(userID);
+    }
+
+    /**
+     * @return the User with the name, or null if there is none.
+     */
+    public static User getUser(String userName) throws SQLException {
+        return current().usersByName.get(userName);
+    }
+
+    /**
+     * @return the cached tables, loading them first if they have not been loaded or have been invalidated.
+     */
+    private static Snapshot current() throws SQLException {
+        Snapshot current = snapshot;
+        if(current == null) {
+            synchronized (ReferenceData.class) {
+                if(snapshot == null) {
+                    load();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * One consistent copy of every reference table. A snapshot is never modified after it has been published.
+     */
+    private static class Snapshot {
+        private final List<Country> countries = new ArrayList<>();
+        private final Map<Integer, Country> countriesByID = new HashMap<>();
+        private final Map<String, Country> countriesByName = new HashMap<>();
+
+        private final Map<Integer, Division> divisionsByID = new HashMap<>();
+        private final Map<String, Division> divisionsByName = new HashMap<>();
+        private final Map<Integer, List<Division>> divisionsByCountry = new HashMap<>();
+
+        private final List<Contact> contacts = new ArrayList<>();
+        private final Map<Integer, Contact> contactsByID = new HashMap<>();
+        private final Map<String, Contact> contactsByName = new HashMap<>();
+
+        private final Map<Integer, User> usersByID = new HashMap<>();
+        private final Map<String, User> usersByName = new HashMap<>();
+    }
+}
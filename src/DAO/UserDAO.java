@@ -0,0 +1,35 @@
+/**
+ * Provides the queries used to check User credentials against the database.
+ */
+
+package DAO;
+
+import helper.JDBC;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public abstract class UserDAO {
+    /**
+     * Checks the credentials against the users table. The credentials are passed as parameters, never concatenated into
+     * the query.
+     *
+     * @param userName is the User_Name entered on the login form.
+     * @param password is the Password entered on the login form.
+     * @return the ID of the User the credentials belong to, or null if they do not match a User.
+     * @throws SQLException if the credentials could not be checked.
+     */
+    public static Integer authenticate(String userName, String password) throws SQLException {
+        try(Connection connection = JDBC.getConnection();
+            PreparedStatement ps = connection.prepareStatement("SELECT User_ID FROM users WHERE User_Name = ? AND Password = ?")) {
+            ps.setString(1, userName);
+            ps.setString(2, password);
+
+            try(ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt("User_ID") : null;
+            }
+        }
+    }
+}
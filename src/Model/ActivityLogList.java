@@ -0,0 +1,105 @@
+/**
+ * A read-only ObservableList of the entries in the appointment activity log that reads the log lazily through a LineIndex.
+ * A TableView only asks for the rows it displays, so only the pages of lines around those rows are read and parsed, and
+ * only a bounded number of pages is kept in memory no matter how long the log grows.
+ *
+ * The list only grows: appended() reports lines added to the log since the last refresh of the index. If the log is
+ * replaced (for example when it is rotated) a new list should be created instead.
+ *
+ * @author Henry Trieu
+ */
+
+package Model;
+
+import helper.LineIndex;
+import javafx.collections.ObservableListBase;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ActivityLogList extends ObservableListBase<ActivityRecord> {
+    private static final int pageLines = 256;
+    private static final int cachedPages = 16;
+
+    private final LineIndex index;
+    private int size = 0;
+
+    // Recently used pages of parsed entries, keyed by page number, evicting the least recently used page
+    private final Map<Integer, ActivityRecord[]> pages = new LinkedHashMap<Integer, ActivityRecord[]>(cachedPages, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ActivityRecord[]> eldest) {
+            return size() > cachedPages;
+        }
+    };
+
+    /**
+     * @param index is the line index of the activity log. The list is empty until appended() is called.
+     */
+    public ActivityLogList(LineIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public ActivityRecord get(int i) {
+        if(i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Entry " + i + " of " + size);
+        }
+
+        int page = i / pageLines;
+        int offset = i % pageLines;
+        ActivityRecord[] records = pages.get(page);
+
+        // The last page may have been read before more lines were appended to it
+        if(records == null || offset >= records.length) {
+            records = readPage(page);
+            pages.put(page, records);
+        }
+
+        return offset < records.length ? records[offset] : new ActivityRecord("");
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Grows the list to the number of lines now in the index and notifies the list's listeners of the added entries.
+     *
+     * @param newSize is the number of lines in the index after it was refreshed.
+     */
+    public void appended(int newSize) {
+        if(newSize <= size) {
+            return;
+        }
+
+        int oldSize = size;
+        size = newSize;
+
+        beginChange();
+        nextAdd(oldSize, newSize);
+        endChange();
+    }
+
+    /**
+     * Reads and parses one page of lines from the log.
+     */
+    private ActivityRecord[] readPage(int page) {
+        int fromLine = page * pageLines;
+        int toLine = Math.min(size, fromLine + pageLines);
+
+        try {
+            String[] lines = index.readLines(fromLine, toLine);
+            ActivityRecord[] records = new ActivityRecord[lines.length];
+            for(int i = 0; i < lines.length; i++) {
+                records[i] = new ActivityRecord(lines[i]);
+            }
+            return records;
+        }
+        catch(IOException | IndexOutOfBoundsException e) {
+            System.out.println("Error processing appointment_activity.txt.");
+            return new ActivityRecord[0];
+        }
+    }
+}
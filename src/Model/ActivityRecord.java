@@ -0,0 +1,78 @@
+/**
+ * Represents one entry of the appointment activity log: when an Appointment was created, updated or deleted. Entries are
+ * stored in the log as lines in the format "utcTimestamp,appointmentID,title,ACTION".
+ *
+ * @author Henry Trieu
+ */
+
+package Model;
+
+import helper.TimeCodec;
+
+import java.time.format.DateTimeParseException;
+
+public class ActivityRecord {
+
+    private final String localTimestamp;
+    private final String appointmentID;
+    private final String title;
+    private final String action;
+
+    /**
+     * Parses a line of the appointment activity log. The title may itself contain commas, so it is taken to be everything
+     * between the second comma and the last comma.
+     *
+     * @param line is a line of the log, without its line terminator.
+     */
+    public ActivityRecord(String line) {
+        int firstComma = line.indexOf(',');
+        int secondComma = firstComma < 0 ? -1 : line.indexOf(',', firstComma + 1);
+        int lastComma = line.lastIndexOf(',');
+
+        if(firstComma < 0 || secondComma < 0 || lastComma <= secondComma) {
+            // Malformed lines are displayed as-is rather than hidden
+            this.localTimestamp = line;
+            this.appointmentID = "";
+            this.title = "";
+            this.action = "";
+            return;
+        }
+
+        this.localTimestamp = convertUtcTimestampToLocal(line.substring(0, firstComma));
+        this.appointmentID = line.substring(firstComma + 1, secondComma);
+        this.title = line.substring(secondComma + 1, lastComma);
+        this.action = line.substring(lastComma + 1);
+    }
+
+    // Accessor methods
+    public String getLocalTimestamp() {
+        return localTimestamp;
+    }
+
+    public String getAppointmentID() {
+        return appointmentID;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * This method takes in a String in UTC format and returns the timestamp converted into local timezone in a 12h format.
+     *
+     * @param utcTimestamp is the 24h timestamp in UTC regarding the associated Appointment action (create/update/delete)
+     * @return a timestamp in the end-user's current timezone in a 12h format, or the original text if it could not be parsed
+     */
+    private static String convertUtcTimestampToLocal(String utcTimestamp) {
+        try {
+            return TimeCodec.displayFormatter.format(TimeCodec.toLocal(TimeCodec.parseEpochSecond(utcTimestamp)));
+        }
+        catch(DateTimeParseException e) {
+            return utcTimestamp;
+        }
+    }
+}
@@ -6,15 +6,13 @@
 
 package Model;
 
-import helper.JDBC;
+import DAO.AppointmentConflicts;
+import helper.TimeCodec;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 
 public class Appointment {
     // Time values are stored in UTC
@@ -55,7 +53,8 @@ public class Appointment {
     /**
      * This is the overloaded constructor used to represent Appointments as they exist in the database. This constructor
      * is particularly used in containing retrieved Appointment information from the database and then used to display
-     * them in a table later.
+     * them in a table later. The customer and contact names are resolved by the query that retrieved the Appointment, so
+     * constructing an Appointment does not access the database.
      *
      * @param appointmentID is the unique ID associated with the Appointment.
      * @param title is the name of the Appointment.
@@ -65,31 +64,61 @@ public class Appointment {
      * @param utcStartTimestamp is the timestamp of the start of the event in UTC timezone.
      * @param utcEndTimestamp is the timestamp of the start of the event in UTC timezone.
      * @param customerID is the unique ID associated with the customer that is attending the Appointment.
+     * @param customerName is the name of the customer that is attending the Appointment.
      * @param userID is the unique ID associated with the user that is attending the Appointment.
      * @param contactID is the unique associated with the internal organization contact that is attending the Appointment.
+     * @param contactName is the name of the internal organization contact that is attending the Appointment.
      */
-    public Appointment(int appointmentID, String title, String description, String location,
-                       String type, String utcStartTimestamp, String utcEndTimestamp, int customerID, int userID, int contactID) {
-        // Set object variables
+    public Appointment(int appointmentID, String title, String description, String location, String type, String utcStartTimestamp,
+                       String utcEndTimestamp, int customerID, String customerName, int userID, int contactID, String contactName) {
+        // Parse the timestamp values from the DB into seconds since the epoch
+        this(appointmentID, title, description, location, type, TimeCodec.parseEpochSecond(utcStartTimestamp),
+                TimeCodec.parseEpochSecond(utcEndTimestamp), customerID, customerName, userID, contactID, contactName);
+    }
+
+    /**
+     * This overloaded constructor is used to materialize Appointments held in an AppointmentStore, where the start and end
+     * of each Appointment are stored as seconds since the epoch rather than as timestamps.
+     *
+     * @param appointmentID is the unique ID associated with the Appointment.
+     * @param title is the name of the Appointment.
+     * @param description provides a brief written representation of the event.
+     * @param location is where the Appointment is taking place.
+     * @param type categorizes the Appointment based on characteristics of the event.
+     * @param utcStartEpochSecond is the start of the event in seconds since the epoch.
+     * @param utcEndEpochSecond is the end of the event in seconds since the epoch.
+     * @param customerID is the unique ID associated with the customer that is attending the Appointment.
+     * @param customerName is the name of the customer that is attending the Appointment.
+     * @param userID is the unique ID associated with the user that is attending the Appointment.
+     * @param contactID is the unique associated with the internal organization contact that is attending the Appointment.
+     * @param contactName is the name of the internal organization contact that is attending the Appointment.
+     */
+    public Appointment(int appointmentID, String title, String description, String location, String type, long utcStartEpochSecond,
+                       long utcEndEpochSecond, int customerID, String customerName, int userID, int contactID, String contactName) {
         this.appointmentID = appointmentID;
         this.title = title;
         this.description = description;
         this.location = location;
         this.type = type;
         this.customerID = customerID;
-        setCustomerName(customerID);
+        this.customerName = customerName;
         this.userID = userID;
         this.contactID = contactID;
-        setContactName(contactID);
+        this.contactName = contactName;
+
+        setTimes(TimeCodec.toUtc(utcStartEpochSecond), TimeCodec.toUtc(utcEndEpochSecond));
+    }
 
-        // Parse the timestamp value from the DB into ZonedDateTime objects in UTC and Local Time
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss z");
-        this.utcZonedDateTimeStart = ZonedDateTime.parse(utcStartTimestamp + " " + ZoneId.of("UTC"), formatter);
-        this.localZonedDateTimeStart = utcZonedDateTimeStart.withZoneSameInstant(ZoneId.systemDefault());
+    /**
+     * Sets the start and end of the Appointment in UTC and Local Time, along with their timestamps.
+     */
+    private void setTimes(ZonedDateTime utcStart, ZonedDateTime utcEnd) {
+        this.utcZonedDateTimeStart = utcStart;
+        this.localZonedDateTimeStart = utcZonedDateTimeStart.withZoneSameInstant(TimeCodec.localZone());
         setStartTimestamps();
 
-        this.utcZonedDateTimeEnd = ZonedDateTime.parse(utcEndTimestamp + " " + ZoneId.of("UTC"), formatter);
-        this.localZonedDateTimeEnd = utcZonedDateTimeEnd.withZoneSameInstant(ZoneId.systemDefault());
+        this.utcZonedDateTimeEnd = utcEnd;
+        this.localZonedDateTimeEnd = utcZonedDateTimeEnd.withZoneSameInstant(TimeCodec.localZone());
         setEndTimestamps();
     }
 
@@ -218,8 +247,8 @@ public class Appointment {
      */
     public void setStartZDTs(int year, int month, int dayOfMonth, int hour, int minute, int second) {
         LocalDateTime localDateTime = LocalDateTime.of(year, month, dayOfMonth, hour, minute, second);
-        this.localZonedDateTimeStart = localDateTime.atZone(ZoneId.systemDefault());
-        this.utcZonedDateTimeStart = this.localZonedDateTimeStart.withZoneSameInstant(ZoneId.of("UTC"));
+        this.localZonedDateTimeStart = localDateTime.atZone(TimeCodec.localZone());
+        this.utcZonedDateTimeStart = this.localZonedDateTimeStart.withZoneSameInstant(TimeCodec.utcZone);
         setStartTimestamps();
     }
 
@@ -227,10 +256,8 @@ public class Appointment {
      * Sets the local and UTC timestamp of the start of the Appointment in the format accepted by the database.
      */
     public void setStartTimestamps() {
-        DateTimeFormatter utcDateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        DateTimeFormatter localDateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd h:mm a");
-        this.utcStartTimestamp = utcDateTimeFormatter.format(utcZonedDateTimeStart);
-        this.localStartTimestamp = localDateTimeFormatter.format(localZonedDateTimeStart);
+        this.utcStartTimestamp = TimeCodec.formatDatabase(utcZonedDateTimeStart);
+        this.localStartTimestamp = TimeCodec.displayFormatter.format(localZonedDateTimeStart);
     }
 
     /**
@@ -247,8 +274,8 @@ public class Appointment {
      */
     public void setEndZDTs(int year, int month, int dayOfMonth, int hour, int minute, int second) {
         LocalDateTime localDateTime = LocalDateTime.of(year, month, dayOfMonth, hour, minute, second);
-        this.localZonedDateTimeEnd = localDateTime.atZone(ZoneId.systemDefault());
-        this.utcZonedDateTimeEnd = localZonedDateTimeEnd.withZoneSameInstant(ZoneId.of("UTC"));
+        this.localZonedDateTimeEnd = localDateTime.atZone(TimeCodec.localZone());
+        this.utcZonedDateTimeEnd = localZonedDateTimeEnd.withZoneSameInstant(TimeCodec.utcZone);
         setEndTimestamps();
     }
 
@@ -256,10 +283,8 @@ public class Appointment {
      * Sets the local and UTC timestamp of the end of the Appointment in the format accepted by the database.
      */
     public void setEndTimestamps() {
-        DateTimeFormatter utcDateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        DateTimeFormatter localDateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd h:mm a");
-        this.utcEndTimestamp = utcDateTimeFormatter.format(utcZonedDateTimeEnd);
-        this.localEndTimestamp = localDateTimeFormatter.format(localZonedDateTimeEnd);
+        this.utcEndTimestamp = TimeCodec.formatDatabase(utcZonedDateTimeEnd);
+        this.localEndTimestamp = TimeCodec.displayFormatter.format(localZonedDateTimeEnd);
     }
 
     public void setCreateDate(String createDate) {
@@ -282,24 +307,8 @@ public class Appointment {
         this.customerID = customerID;
     }
 
-    /**
-     * Sets the name of the Customer that is attending the Appointment, identified by the customerID.
-     *
-     * @param customerID is the unique ID associated with the Customer that is attending the Appointment.
-     */
-    public void setCustomerName(int customerID) {
-        try {
-            String query = "SELECT Customer_Name FROM customers WHERE Customer_ID = " + customerID;
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
-                this.customerName = rs.getString(1);
-            }
-        }
-        catch(SQLException e) {
-            System.out.println("Error retrieving Customer information from the database.");
-        }
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
     }
 
     public void setUserID(int userID) {
@@ -310,24 +319,8 @@ public class Appointment {
         this.contactID = contactID;
     }
 
-    /**
-     * Sets the name of the Contact that is attending the Appointment, identified by the contactID.
-     *
-     * @param contactID is the unique ID associated with the Contact that is attending the Appointment.
-     */
-    public void setContactName(int contactID) {
-        try {
-            String query = "SELECT Contact_Name FROM contacts WHERE Contact_ID = " + contactID;
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
-                this.contactName = rs.getString(1);
-            }
-        }
-        catch(SQLException e) {
-            System.out.println("Error retrieving Contact information from the database.");
-        }
+    public void setContactName(String contactName) {
+        this.contactName = contactName;
     }
 
     /**
@@ -339,11 +332,7 @@ public class Appointment {
     public boolean startTimeInFuture() {
         boolean startsInFuture = false;
 
-        LocalDateTime now = LocalDateTime.now();
-        ZonedDateTime nowZonedDateTime = now.atZone(ZoneId.systemDefault());
-        ZonedDateTime nowUtcDateTime = nowZonedDateTime.withZoneSameInstant(ZoneId.of("UTC"));
-
-        if(utcZonedDateTimeStart.isAfter(nowUtcDateTime)) {
+        if(utcZonedDateTimeStart.toInstant().isAfter(Instant.now())) {
             startsInFuture = true;
         }
         return startsInFuture;
@@ -378,13 +367,13 @@ public class Appointment {
 
         // Business Start Time variables
         LocalDateTime businessStart = LocalDateTime.of(localZonedDateTimeStart.getYear(), localZonedDateTimeStart.getMonth(), localZonedDateTimeStart.getDayOfMonth(), 8, 0 , 0);
-        ZonedDateTime zonedBusinessStart = businessStart.atZone(ZoneId.of("America/New_York"));
-        ZonedDateTime utcBusinessStart = zonedBusinessStart.withZoneSameInstant(ZoneId.of("UTC"));
+        ZonedDateTime zonedBusinessStart = businessStart.atZone(TimeCodec.businessZone);
+        ZonedDateTime utcBusinessStart = zonedBusinessStart.withZoneSameInstant(TimeCodec.utcZone);
 
         // Business End Time variables
         LocalDateTime businessEnd = LocalDateTime.of(localZonedDateTimeStart.getYear(), localZonedDateTimeStart.getMonth(), localZonedDateTimeStart.getDayOfMonth(), 22, 0, 0);
-        ZonedDateTime zonedBusinessEnd = businessEnd.atZone(ZoneId.of("America/New_York"));
-        ZonedDateTime utcBusinessEnd = zonedBusinessEnd.withZoneSameInstant(ZoneId.of("UTC"));
+        ZonedDateTime zonedBusinessEnd = businessEnd.atZone(TimeCodec.businessZone);
+        ZonedDateTime utcBusinessEnd = zonedBusinessEnd.withZoneSameInstant(TimeCodec.utcZone);
 
         // Check if the start time is on or after the business start time but not at the end of the business time
         if( (utcZonedDateTimeStart.isEqual(utcBusinessStart) || (utcZonedDateTimeStart.isAfter(utcBusinessStart) && utcZonedDateTimeStart.isBefore(utcBusinessEnd)))) {
@@ -398,7 +387,9 @@ public class Appointment {
     }
 
     /**
-     * Checks to see if the requested appointment start and end times overlap with an appointment associated with the customer selected.
+     * Checks to see if the requested appointment start and end times overlap with an appointment associated with the customer
+     * selected. Appointments on different days are compared as well, and an appointment may start exactly when another ends.
+     * The check is run against the database, so an appointment another user has just booked for the customer is seen.
      *
      * @return true if the requested appointment start and end times cause a conflict in schedule for the selected customer OR
      * false if the requested times are valid.
@@ -407,30 +398,8 @@ public class Appointment {
         boolean overlap = false;
 
         try {
-            // Query all of the Appointments associated with the Customer selected
-            String query = "SELECT Start, End FROM appointments WHERE Customer_ID = " + this.customerID + " AND Appointment_ID != " + this.appointmentID;
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            // Check to see if the selected appointment time is conflicting with existing appointments with the Customer
-            while(rs.next()) {
-                // Retrieve the timestamps from the DB
-                String utcCustApptStartTimestamp = rs.getString("Start");
-                String utcCustApptEndTimestamp = rs.getString("End");
-
-                // Parse the timestamp value from the DB into ZonedDateTime objects in UTC and Local Time
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss z");
-                ZonedDateTime utcCustApptStart = ZonedDateTime.parse(utcCustApptStartTimestamp + " " + ZoneId.of("UTC"), formatter);
-                ZonedDateTime utcCustApptEnd = ZonedDateTime.parse(utcCustApptEndTimestamp + " " + ZoneId.of("UTC"), formatter);
-
-                // Only perform the comparison if the Appointment date is the same
-                if(utcZonedDateTimeStart.getDayOfYear() == utcCustApptStart.getDayOfYear()) {
-                    // Compare the selected Appointment times to see if they overlap {
-                    if(utcZonedDateTimeStart.isBefore(utcCustApptEnd)) {
-                        overlap = true;
-                    }
-                }
-            }
+            overlap = AppointmentConflicts.overlaps(AppointmentConflicts.Party.CUSTOMER, this.customerID,
+                    utcZonedDateTimeStart.toEpochSecond(), utcZonedDateTimeEnd.toEpochSecond(), this.appointmentID);
         }
         catch(SQLException e) {
             System.out.println("Error retrieving Appointment information from the database.");
@@ -0,0 +1,277 @@
+/**
+ * A compact, column-oriented collection of Appointments used to hold the Appointments displayed by the calendar views.
+ *
+ * Rather than one Appointment object per row, with its ZonedDateTimes and pre-formatted timestamps, each attribute is
+ * kept in its own primitive array: IDs as ints and start/end times as UTC epoch seconds. Types, locations and customer and
+ * contact names repeat across many Appointments, so each distinct value is stored once and rows hold an int code for it.
+ * Appointment objects are only materialized, by materialize(), for the rows that are actually displayed.
+ *
+ * @author Henry Trieu
+ */
+
+package Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AppointmentStore {
+    private int size = 0;
+
+    // Columns; row i of the store is made up of element i of each array
+    private int[] appointmentIDs = new int[16];
+    private String[] titles = new String[16];
+    private String[] descriptions = new String[16];
+    private int[] locationCodes = new int[16];
+    private int[] typeCodes = new int[16];
+    private long[] starts = new long[16];
+    private long[] ends = new long[16];
+    private int[] customerIDs = new int[16];
+    private int[] customerNameCodes = new int[16];
+    private int[] userIDs = new int[16];
+    private int[] contactIDs = new int[16];
+    private int[] contactNameCodes = new int[16];
+
+    // Dictionaries of the repeated string values
+    private final Dictionary locations = new Dictionary();
+    private final Dictionary types = new Dictionary();
+    private final Dictionary names = new Dictionary();
+
+    /**
+     * Adds an Appointment to the end of the store.
+     *
+     * @param appointmentID is the unique ID associated with the Appointment.
+     * @param title is the name of the Appointment.
+     * @param description provides a brief written representation of the event.
+     * @param location is where the Appointment is taking place.
+     * @param type categorizes the Appointment based on characteristics of the event.
+     * @param utcStartEpochSecond is the start of the Appointment in seconds since the epoch.
+     * @param utcEndEpochSecond is the end of the Appointment in seconds since the epoch.
+     * @param customerID is the unique ID associated with the customer that is attending the Appointment.
+     * @param customerName is the name of the customer that is attending the Appointment.
+     * @param userID is the unique ID associated with the user that is attending the Appointment.
+     * @param contactID is the unique associated with the internal organization contact that is attending the Appointment.
+     * @param contactName is the name of the internal organization contact that is attending the Appointment.
+     */
+    public void add(int appointmentID, String title, String description, String location, String type, long utcStartEpochSecond,
+                    long utcEndEpochSecond, int customerID, String customerName, int userID, int contactID, String contactName) {
+        if(size == appointmentIDs.length) {
+            grow();
+        }
+
+        appointmentIDs[size] = appointmentID;
+        titles[size] = title;
+        descriptions[size] = description;
+        locationCodes[size] = locations.encode(location);
+        typeCodes[size] = types.encode(type);
+        starts[size] = utcStartEpochSecond;
+        ends[size] = utcEndEpochSecond;
+        customerIDs[size] = customerID;
+        customerNameCodes[size] = names.encode(customerName);
+        userIDs[size] = userID;
+        contactIDs[size] = contactID;
+        contactNameCodes[size] = names.encode(contactName);
+        size++;
+    }
+
+    /**
+     * Inserts a copy of a row of another store, moving the rows at and after the position down by one.
+     *
+     * @param row is the position to insert at, from 0 to size().
+     * @param source is the store holding the Appointment.
+     * @param sourceRow is the row of the Appointment in the source store.
+     */
+    public void insert(int row, AppointmentStore source, int sourceRow) {
+        if(row < 0 || row > size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        source.checkRow(sourceRow);
+        if(size == appointmentIDs.length) {
+            grow();
+        }
+        moveRows(row, row + 1, size - row);
+        size++;
+
+        appointmentIDs[row] = source.appointmentIDs[sourceRow];
+        titles[row] = source.titles[sourceRow];
+        descriptions[row] = source.descriptions[sourceRow];
+        locationCodes[row] = locations.encode(source.locations.decode(source.locationCodes[sourceRow]));
+        typeCodes[row] = types.encode(source.types.decode(source.typeCodes[sourceRow]));
+        starts[row] = source.starts[sourceRow];
+        ends[row] = source.ends[sourceRow];
+        customerIDs[row] = source.customerIDs[sourceRow];
+        customerNameCodes[row] = names.encode(source.names.decode(source.customerNameCodes[sourceRow]));
+        userIDs[row] = source.userIDs[sourceRow];
+        contactIDs[row] = source.contactIDs[sourceRow];
+        contactNameCodes[row] = names.encode(source.names.decode(source.contactNameCodes[sourceRow]));
+    }
+
+    /**
+     * Removes a row, moving the rows after it up by one.
+     *
+     * @param row is the index of the row, starting at 0.
+     */
+    public void remove(int row) {
+        checkRow(row);
+        moveRows(row + 1, row, size - row - 1);
+        size--;
+        titles[size] = null;
+        descriptions[size] = null;
+    }
+
+    /**
+     * Finds the row holding an Appointment.
+     *
+     * @param appointmentID is the unique ID associated with the Appointment.
+     * @return the row of the Appointment, or -1 if it is not in the store.
+     */
+    public int indexOf(int appointmentID) {
+        for(int row = 0; row < size; row++) {
+            if(appointmentIDs[row] == appointmentID) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds where an Appointment would be inserted to keep a store ordered by start time, after any Appointments that start
+     * at the same time.
+     *
+     * @param utcStartEpochSecond is the start of the Appointment in seconds since the epoch.
+     * @return the row to insert the Appointment at.
+     */
+    public int insertionPoint(long utcStartEpochSecond) {
+        int low = 0;
+        int high = size;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(starts[middle] <= utcStartEpochSecond) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the number of Appointments in the store.
+     */
+    public int size() {
+        return size;
+    }
+
+    // Accessor methods for individual cells, which do not materialize the row
+    public int getAppointmentID(int row) {
+        return appointmentIDs[checkRow(row)];
+    }
+
+    public String getType(int row) {
+        return types.decode(typeCodes[checkRow(row)]);
+    }
+
+    public String getLocation(int row) {
+        return locations.decode(locationCodes[checkRow(row)]);
+    }
+
+    public long getUtcStartEpochSecond(int row) {
+        return starts[checkRow(row)];
+    }
+
+    public long getUtcEndEpochSecond(int row) {
+        return ends[checkRow(row)];
+    }
+
+    public int getCustomerID(int row) {
+        return customerIDs[checkRow(row)];
+    }
+
+    public int getUserID(int row) {
+        return userIDs[checkRow(row)];
+    }
+
+    public int getContactID(int row) {
+        return contactIDs[checkRow(row)];
+    }
+
+    /**
+     * Builds an Appointment object for one row of the store, including its ZonedDateTimes and display timestamps.
+     *
+     * @param row is the index of the row, starting at 0.
+     * @return a new Appointment holding the values of the row.
+     */
+    public Appointment materialize(int row) {
+        checkRow(row);
+        return new Appointment(appointmentIDs[row], titles[row], descriptions[row], locations.decode(locationCodes[row]),
+                types.decode(typeCodes[row]), starts[row], ends[row], customerIDs[row], names.decode(customerNameCodes[row]),
+                userIDs[row], contactIDs[row], names.decode(contactNameCodes[row]));
+    }
+
+    private int checkRow(int row) {
+        if(row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return row;
+    }
+
+    private void moveRows(int from, int to, int count) {
+        System.arraycopy(appointmentIDs, from, appointmentIDs, to, count);
+        System.arraycopy(titles, from, titles, to, count);
+        System.arraycopy(descriptions, from, descriptions, to, count);
+        System.arraycopy(locationCodes, from, locationCodes, to, count);
+        System.arraycopy(typeCodes, from, typeCodes, to, count);
+        System.arraycopy(starts, from, starts, to, count);
+        System.arraycopy(ends, from, ends, to, count);
+        System.arraycopy(customerIDs, from, customerIDs, to, count);
+        System.arraycopy(customerNameCodes, from, customerNameCodes, to, count);
+        System.arraycopy(userIDs, from, userIDs, to, count);
+        System.arraycopy(contactIDs, from, contactIDs, to, count);
+        System.arraycopy(contactNameCodes, from, contactNameCodes, to, count);
+    }
+
+    private void grow() {
+        int capacity = appointmentIDs.length * 2;
+        appointmentIDs = Arrays.copyOf(appointmentIDs, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        locationCodes = Arrays.copyOf(locationCodes, capacity);
+        typeCodes = Arrays.copyOf(typeCodes, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        customerIDs = Arrays.copyOf(customerIDs, capacity);
+        customerNameCodes = Arrays.copyOf(customerNameCodes, capacity);
+        userIDs = Arrays.copyOf(userIDs, capacity);
+        contactIDs = Arrays.copyOf(contactIDs, capacity);
+        contactNameCodes = Arrays.copyOf(contactNameCodes, capacity);
+    }
+
+    /**
+     * Maps each distinct string to a small int code and back. Null is encoded as -1.
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        private int encode(String value) {
+            if(value == null) {
+                return -1;
+            }
+
+            Integer code = codes.get(value);
+            if(code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        private String decode(int code) {
+            return code < 0 ? null : values.get(code);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * A read-only ObservableList view of an AppointmentStore for displaying in a TableView. Appointment objects are only
+ * materialized when a row is requested, which a TableView only does for the rows it displays, and the most recently
+ * materialized Appointments are kept so that scrolling back and forth and selecting rows reuses the same objects.
+ *
+ * Appointments added, updated or deleted after the store was loaded are applied to it row by row with applyChanges(),
+ * which notifies the TableView of only the rows that changed.
+ *
+ * The list is read-only, so a TableView cannot sort it in place; AppointmentTable displays it through a SortedList while
+ * the user has sorted the table by a column.
+ *
+ * @author Henry Trieu
+ */
+
+package Model;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class AppointmentStoreList extends ObservableListBase<Appointment> {
+    private static final int cachedRows = 256;
+
+    private final AppointmentStore store;
+
+    // Recently materialized Appointments, keyed by row, evicting the least recently used row
+    private final Map<Integer, Appointment> materialized = new LinkedHashMap<Integer, Appointment>(cachedRows, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Appointment> eldest) {
+            return size() > cachedRows;
+        }
+    };
+
+    /**
+     * @param store holds the Appointments to display, ordered by their start time. It must only be modified through the
+     *              list while the list is in use.
+     */
+    public AppointmentStoreList(AppointmentStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Appointment get(int row) {
+        Appointment appointment = materialized.get(row);
+        if(appointment == null) {
+            appointment = store.materialize(row);
+            materialized.put(row, appointment);
+        }
+        return appointment;
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * Applies changes made to Appointments since the store was loaded. Deleted Appointments are removed, and added or
+     * updated Appointments are placed at the row their start time belongs at if they fall within the range being
+     * displayed, or removed if they no longer do. Each change leaves the store as a reload would have, so a change that is
+     * applied more than once has no further effect.
+     *
+     * @param changed holds the current values of the Appointments that were added or updated.
+     * @param deletedIDs are the unique IDs of the Appointments that were deleted.
+     * @param startEpochSecond is the beginning of the range being displayed, in seconds since the epoch.
+     * @param endEpochSecond is the end of the range being displayed, in seconds since the epoch. As with
+     *                       AppointmentDAO.getAppointmentsInRange(), an Appointment is displayed if it starts on or after
+     *                       the beginning of the range and ends on or before the end.
+     * @return the number of rows that were added, replaced or removed.
+     */
+    public int applyChanges(AppointmentStore changed, Collection<Integer> deletedIDs, long startEpochSecond, long endEpochSecond) {
+        int changedRows = 0;
+        beginChange();
+
+        for(int appointmentID : deletedIDs) {
+            int row = store.indexOf(appointmentID);
+            if(row >= 0) {
+                nextRemove(row, removeRow(row));
+                changedRows++;
+            }
+        }
+
+        for(int i = 0; i < changed.size(); i++) {
+            int row = store.indexOf(changed.getAppointmentID(i));
+            boolean inRange = changed.getUtcStartEpochSecond(i) >= startEpochSecond && changed.getUtcEndEpochSecond(i) <= endEpochSecond;
+            if(row < 0 && !inRange) {
+                continue;
+            }
+
+            Appointment removed = row >= 0 ? removeRow(row) : null;
+            if(!inRange) {
+                // Moved out of the range being displayed
+                nextRemove(row, removed);
+            }
+            else {
+                int insertedRow = store.insertionPoint(changed.getUtcStartEpochSecond(i));
+                store.insert(insertedRow, changed, i);
+                materialized.clear();
+                if(removed != null && insertedRow == row) {
+                    nextSet(row, removed);
+                }
+                else {
+                    if(removed != null) {
+                        nextRemove(row, removed);
+                    }
+                    nextAdd(insertedRow, insertedRow + 1);
+                }
+            }
+            changedRows++;
+        }
+
+        endChange();
+        return changedRows;
+    }
+
+    /**
+     * Removes a row from the store. The materialized Appointments are discarded, since the rows they are kept under have
+     * moved.
+     *
+     * @return the Appointment that was displayed in the row.
+     */
+    private Appointment removeRow(int row) {
+        Appointment removed = get(row);
+        store.remove(row);
+        materialized.clear();
+        return removed;
+    }
+
+    /**
+     * @return the store that the list is a view of.
+     */
+    public AppointmentStore getStore() {
+        return store;
+    }
+}
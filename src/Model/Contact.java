@@ -0,0 +1,31 @@
+/**
+ * Represents a Contact within the organization that attends Appointments. Contacts are reference data and are read from
+ * the cache in DAO.ReferenceData rather than queried each time they are needed.
+ */
+
+package Model;
+
+public class Contact {
+    private final int ID;
+    private final String name;
+    private final String email;
+
+    public Contact(int ID, String name, String email) {
+        this.ID = ID;
+        this.name = name;
+        this.email = email;
+    }
+
+    // Accessor methods
+    public int getID() {
+        return ID;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * Represents a Country that Customers can reside in. Countries are reference data and are read from the cache in
+ * DAO.ReferenceData rather than queried each time they are needed.
+ */
+
+package Model;
+
+public class Country {
+    private final int ID;
+    private final String name;
+
+    public Country(int ID, String name) {
+        this.ID = ID;
+        this.name = name;
+    }
+
+    // Accessor methods
+    public int getID() {
+        return ID;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
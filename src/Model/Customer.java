@@ -6,10 +6,9 @@
 
 package Model;
 
-import helper.JDBC;
-import java.sql.ResultSet;
+import DAO.CustomerDAO;
+import DAO.ReferenceData;
 import java.sql.SQLException;
-import java.sql.Statement;
 
 public class Customer {
     private int ID;
@@ -36,7 +35,7 @@ public class Customer {
 
     /**
      * Constructor used for displaying Customers in the ViewCustomerController Class. Within this constructor, the division
-     * name is also defined by identifying the name associated with the selected division ID.
+     * name, country ID and country name are also defined by looking up the selected division ID in the cached reference data.
      *
      * @param ID is the unique ID of the Customer, used for identification.
      * @param name is the name of the Customer.
@@ -53,38 +52,22 @@ public class Customer {
         this.phoneNumber = phoneNumber;
         this.divisionID = divisionID;
 
-        // Use the divisionID to set the divisionName and CountryID
+        // Use the divisionID to set the divisionName, countryID and countryName from the cached reference data
         try {
-            // DB Query
-            String query = "SELECT Division, Country_ID FROM first_level_divisions WHERE Division_ID = '" + this.divisionID + "'";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
-                // Pull the divisionName and countryID from DB
-                this.divisionName = rs.getString(1);
-                this.countryID = rs.getInt(2);
+            Division division = ReferenceData.getDivision(divisionID);
+            if(division != null) {
+                this.divisionName = division.getName();
+                this.countryID = division.getCountryID();
+
+                Country country = ReferenceData.getCountry(countryID);
+                if(country != null) {
+                    this.countryName = country.getName();
+                }
             }
         }
         catch(SQLException e) {
             System.out.println("Error fetching divisions from the database.");
         }
-
-        // Use the CountryID to set the CountryName
-        try {
-            // DB Query
-            String query = "SELECT Country FROM countries WHERE Country_ID = '" + this.countryID + "'";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
-                // Pull the divisionName and countryID from DB
-                this.countryName = rs.getString(1);
-            }
-        }
-        catch(SQLException e) {
-            System.out.println("Error retrieving country names from the database.");
-        }
     }
 
     // Accessor methods
@@ -149,14 +132,7 @@ public class Customer {
     public boolean hasAppointments() {
         boolean hasAppointments = false;
         try {
-            // DB Query
-            String query = "SELECT * FROM appointments WHERE Customer_ID = " + this.ID;
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
-                hasAppointments = true;
-            }
+            hasAppointments = CustomerDAO.hasAppointments(this.ID);
         }
         catch(SQLException e) {
             System.out.println("Error retrieving appointments for selected user.");
@@ -0,0 +1,31 @@
+/**
+ * Represents a first-level division (state, province, etc.) of a Country. Divisions are reference data and are read from
+ * the cache in DAO.ReferenceData rather than queried each time they are needed.
+ */
+
+package Model;
+
+public class Division {
+    private final int ID;
+    private final String name;
+    private final int countryID;
+
+    public Division(int ID, String name, int countryID) {
+        this.ID = ID;
+        this.name = name;
+        this.countryID = countryID;
+    }
+
+    // Accessor methods
+    public int getID() {
+        return ID;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCountryID() {
+        return countryID;
+    }
+}
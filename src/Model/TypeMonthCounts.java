@@ -0,0 +1,121 @@
+/**
+ * Represents the number of Appointments grouped by year, month, Type and user, as aggregated by the database. The type and
+ * month histograms shown on the Type/Month report are both computed from these groups, optionally filtered to a single
+ * year and/or user, so the report never has to look at individual Appointments.
+ *
+ * @author Henry Trieu
+ */
+
+package Model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+public class TypeMonthCounts {
+    // One entry per group; the group at index i is (years[i], months[i], types[i], userIDs[i])
+    private int[] years = new int[16];
+    private int[] months = new int[16];
+    private String[] types = new String[16];
+    private int[] userIDs = new int[16];
+    private int[] quantities = new int[16];
+    private int size = 0;
+
+    /**
+     * Adds the number of Appointments in one group.
+     *
+     * @param year is the year the Appointments start in (UTC).
+     * @param month is the month the Appointments start in, from 1 (January) to 12 (December).
+     * @param type is the Type of the Appointments.
+     * @param userID is the unique ID of the user the Appointments belong to.
+     * @param quantity is the number of Appointments in the group.
+     */
+    public void add(int year, int month, String type, int userID, int quantity) {
+        if(size == years.length) {
+            years = Arrays.copyOf(years, size * 2);
+            months = Arrays.copyOf(months, size * 2);
+            types = Arrays.copyOf(types, size * 2);
+            userIDs = Arrays.copyOf(userIDs, size * 2);
+            quantities = Arrays.copyOf(quantities, size * 2);
+        }
+
+        years[size] = year;
+        months[size] = month;
+        types[size] = type;
+        userIDs[size] = userID;
+        quantities[size] = quantity;
+        size++;
+    }
+
+    /**
+     * @return the number of groups, which is the number of rows the database returned.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return every year that has at least one Appointment, in ascending order.
+     */
+    public SortedSet<Integer> getYears() {
+        SortedSet<Integer> distinctYears = new TreeSet<>();
+        for(int i = 0; i < size; i++) {
+            distinctYears.add(years[i]);
+        }
+        return distinctYears;
+    }
+
+    /**
+     * @return the ID of every user that has at least one Appointment, in ascending order.
+     */
+    public SortedSet<Integer> getUserIDs() {
+        SortedSet<Integer> distinctUserIDs = new TreeSet<>();
+        for(int i = 0; i < size; i++) {
+            distinctUserIDs.add(userIDs[i]);
+        }
+        return distinctUserIDs;
+    }
+
+    /**
+     * Counts the Appointments of each Type.
+     *
+     * @param year is the only year to count, or null to count every year.
+     * @param userID is the only user to count, or null to count every user.
+     * @return the number of Appointments keyed by Type, in alphabetical order of Type.
+     */
+    public Map<String, Integer> countByType(Integer year, Integer userID) {
+        Map<String, Integer> countByType = new TreeMap<>();
+        for(int i = 0; i < size; i++) {
+            if(matches(i, year, userID)) {
+                countByType.merge(types[i], quantities[i], Integer::sum);
+            }
+        }
+        return countByType;
+    }
+
+    /**
+     * Counts the Appointments starting in each month.
+     *
+     * @param year is the only year to count, or null to count every year.
+     * @param userID is the only user to count, or null to count every user.
+     * @return the number of Appointments in each month, where index 0 is January and index 11 is December.
+     */
+    public int[] countByMonth(Integer year, Integer userID) {
+        int[] countByMonth = new int[12];
+        for(int i = 0; i < size; i++) {
+            if(matches(i, year, userID)) {
+                countByMonth[months[i] - 1] += quantities[i];
+            }
+        }
+        return countByMonth;
+    }
+
+    /**
+     * @return true if the group at the index passes the year and user filters.
+     */
+    private boolean matches(int i, Integer year, Integer userID) {
+        return (year == null || years[i] == year) && (userID == null || userIDs[i] == userID);
+    }
+}
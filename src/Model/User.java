@@ -0,0 +1,25 @@
+/**
+ * Represents a User of the Scheduler application. Only the ID and name are kept; credentials are never cached and are
+ * only checked against the database when logging in.
+ */
+
+package Model;
+
+public class User {
+    private final int ID;
+    private final String name;
+
+    public User(int ID, String name) {
+        this.ID = ID;
+        this.name = name;
+    }
+
+    // Accessor methods
+    public int getID() {
+        return ID;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
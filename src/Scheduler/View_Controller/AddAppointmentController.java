@@ -7,37 +7,38 @@
 
 package Scheduler.View_Controller;
 
+import DAO.AppointmentDAO;
+import DAO.AvailableSlots;
+import DAO.CustomerRepository;
+import DAO.IdAllocator;
+import DAO.ReferenceData;
 import Model.Appointment;
-import helper.JDBC;
+import Model.Contact;
+import Model.User;
+import helper.AuditLog;
+import helper.BackgroundLoader;
+import helper.ReminderScheduler;
+import helper.TimeCodec;
+import helper.UiEvents;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Date;
+import java.util.Map;
 import java.util.ResourceBundle;
-import java.util.TimeZone;
+import java.util.function.BooleanSupplier;
 
 public class AddAppointmentController implements Initializable {
 
@@ -58,6 +59,13 @@ public class AddAppointmentController implements Initializable {
     @FXML MenuButton endTimeMenuButton;
     @FXML DatePicker datePicker;
 
+    // Available time search
+    @FXML MenuButton durationMenuButton;
+    @FXML MenuButton availableTimesMenuButton;
+
+    // Save button, disabled until the new Appointment ID has been reserved
+    @FXML Button saveButton;
+
 
     // Appointment object that is going to be added
     private Appointment newAppointment;
@@ -70,6 +78,13 @@ public class AddAppointmentController implements Initializable {
     private int endHour = -1;
     private int endMin = -1;
 
+    // Available time search fields
+    private static final int searchDays = 14;
+    private static final int maxAvailableTimes = 10;
+    private static final DateTimeFormatter timeOptionFormatter = DateTimeFormatter.ofPattern("h:mm a");
+    private static final DateTimeFormatter availableTimeFormatter = DateTimeFormatter.ofPattern("EEE yyyy-MM-dd h:mm a");
+    private int durationMinutes = -1;
+
     // Variables for checking if a value has been provided
     private boolean customerSelected;
     private boolean contactSelected;
@@ -94,6 +109,7 @@ public class AddAppointmentController implements Initializable {
         loadCustomers();
         loadContacts();
         loadTimeOptions();
+        loadDurationOptions();
     }
 
     /**
@@ -114,45 +130,40 @@ public class AddAppointmentController implements Initializable {
     }
 
     /**
-     * Pre-populates the new appointment ID for the new appointment being added by finding the highest Appointment ID value
-     * of existing Appointments and adding 1 to the highest value.
+     * Pre-populates the new appointment ID for the new appointment being added with an ID taken from the block of Appointment
+     * IDs reserved by this application. The database is only accessed, in the background, when the reserved block has been
+     * used up, and the Save button is disabled until the ID arrives so the Appointment is never saved without one.
      */
     private void generateAppointmentID() {
-        try {
-            int maxAppointmentID = 1;
-
-            // Queries the Appointment with the highest Appointment ID number used determine the new Appointment ID
-            String query = "SELECT MAX(Appointment_ID) FROM appointments";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
-                maxAppointmentID= rs.getInt(1);
-            }
-
-            // Record the new Appointment ID number and set the text into the TextField
-            newAppointment.setAppointmentID(++maxAppointmentID);
-            appointmentIDTextField.setText("" + maxAppointmentID);
+        Integer appointmentID = IdAllocator.APPOINTMENTS.tryNextID();
+        if(appointmentID != null) {
+            setAppointmentID(appointmentID);
         }
-        catch (SQLException e) {
-            System.out.println("Error retrieving Appointment_IDs from the database");
+        else {
+            saveButton.setDisable(true);
+            BackgroundLoader.run(IdAllocator.APPOINTMENTS::nextID, this::setAppointmentID, "Error retrieving Appointment_IDs from the database");
         }
     }
 
+    /**
+     * Records the new Appointment ID number and sets the text into the TextField.
+     */
+    private void setAppointmentID(int appointmentID) {
+        newAppointment.setAppointmentID(appointmentID);
+        appointmentIDTextField.setText("" + appointmentID);
+        saveButton.setDisable(false);
+    }
+
     /**
      * Pre-populates the options within the drop-down menu for customers
      */
     private void loadCustomers() {
-        try {
-            // Queries the customers in alphabetical order
-            String query = "SELECT * FROM customers ORDER BY Customer_Name ASC";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
+        // Queries the customers in alphabetical order in the background and populates the options once they have been retrieved
+        BackgroundLoader.run(CustomerRepository::getCustomerNames, customerNames -> {
+            for(Map.Entry<Integer, String> customer : customerNames.entrySet()) {
                 // Create menu items for each customer
-                int customerID = Integer.parseInt(rs.getString(1));
-                MenuItem customerMenuItem = new MenuItem(rs.getString(2));
+                int customerID = customer.getKey();
+                MenuItem customerMenuItem = new MenuItem(customer.getValue());
 
                 // Set the onAction event for each Customer on the menu
                 customerMenuItem.setOnAction(new EventHandler<ActionEvent>() {
@@ -170,10 +181,7 @@ public class AddAppointmentController implements Initializable {
                 });
                 customerMenuButton.getItems().add(customerMenuItem);
             }
-        }
-        catch(SQLException e) {
-            System.out.println("Error fetching customers from the Database.");
-        }
+        }, "Error fetching customers from the Database.");
     }
 
     /**
@@ -181,15 +189,10 @@ public class AddAppointmentController implements Initializable {
      */
     private void loadContacts() {
         try {
-            // Queries all Contacts in alphabetical order
-            String query = "SELECT * FROM contacts ORDER BY Contact_Name ASC";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
-                // Create Menu Items for each Contact found in the DB
-                int contactID = Integer.parseInt(rs.getString(1));
-                MenuItem contactMenuItem = new MenuItem(rs.getString(2));
+            // Create Menu Items for each cached Contact, in alphabetical order
+            for(Contact contact : ReferenceData.getContacts()) {
+                int contactID = contact.getID();
+                MenuItem contactMenuItem = new MenuItem(contact.getName());
 
                 // Set the onAction event for each of Contact on the menu
                 contactMenuItem.setOnAction(new EventHandler<ActionEvent>() {
@@ -293,6 +296,87 @@ public class AddAppointmentController implements Initializable {
         }
     }
 
+    /**
+     * Populates the appointment length options used when searching for available times.
+     */
+    private void loadDurationOptions() {
+        String[] durationLabels = {"30 minutes", "1 hour", "1.5 hours", "2 hours", "2.5 hours", "3 hours"};
+        for(int i = 0; i < durationLabels.length; i++) {
+            int finalMinutes = (i + 1) * 30;
+            MenuItem durationMenuItem = new MenuItem(durationLabels[i]);
+            durationMenuItem.setOnAction(new EventHandler<ActionEvent>() {
+                @Override
+                public void handle(ActionEvent actionEvent) {
+                    durationMenuButton.setText(durationMenuItem.getText());
+                    durationMinutes = finalMinutes;
+                }
+            });
+            durationMenuButton.getItems().add(durationMenuItem);
+        }
+    }
+
+    /**
+     * Searches, starting from the selected date, for the earliest times at which both the selected customer and contact are
+     * free for the selected length within business hours. Each time found is offered on the available times menu, and
+     * selecting one fills in the date and start/end times on the form.
+     */
+    @FXML
+    private void findAvailableTimes() {
+        if(!customerSelected || !contactSelected || durationMinutes < 0) {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("Error");
+            alert.setContentText("A customer, contact and appointment length must be selected to find available times.");
+            Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
+            stage.setAlwaysOnTop(true);
+            alert.show();
+            return;
+        }
+
+        int customerID = newAppointment.getCustomerID();
+        int contactID = newAppointment.getContactID();
+        long durationSeconds = durationMinutes * 60L;
+        LocalDate firstDay = datePicker.getValue() != null && datePicker.getValue().isAfter(LocalDate.now()) ? datePicker.getValue() : LocalDate.now();
+        LocalDate lastDay = firstDay.plusDays(searchDays - 1);
+
+        BackgroundLoader.run(() -> AvailableSlots.find(customerID, contactID, durationSeconds, firstDay, lastDay, maxAvailableTimes),
+                availableTimes -> {
+                    availableTimesMenuButton.getItems().clear();
+
+                    for(ZonedDateTime start : availableTimes) {
+                        MenuItem availableTimeMenuItem = new MenuItem(availableTimeFormatter.format(start));
+                        availableTimeMenuItem.setOnAction(new EventHandler<ActionEvent>() {
+                            @Override
+                            public void handle(ActionEvent actionEvent) {
+                                availableTimesMenuButton.setText(availableTimeMenuItem.getText());
+                                selectTime(start, start.plusSeconds(durationSeconds));
+                            }
+                        });
+                        availableTimesMenuButton.getItems().add(availableTimeMenuItem);
+                    }
+
+                    availableTimesMenuButton.setText(availableTimes.isEmpty() ? "No available times" : availableTimes.size() + " available times");
+                    availableTimesMenuButton.setDisable(availableTimes.isEmpty());
+                }, "Error retrieving Appointment information from the database.");
+    }
+
+    /**
+     * Fills in the date and start/end times on the form as if they had been selected from the menus.
+     *
+     * @param start is the local start of the Appointment.
+     * @param end is the local end of the Appointment, on the same day as the start.
+     */
+    private void selectTime(ZonedDateTime start, ZonedDateTime end) {
+        datePicker.setValue(start.toLocalDate());
+
+        startTimeMenuButton.setText(timeOptionFormatter.format(start));
+        startHour = start.getHour();
+        startMin = start.getMinute();
+
+        endTimeMenuButton.setText(timeOptionFormatter.format(end));
+        endHour = end.getHour();
+        endMin = end.getMinute();
+    }
+
     /**
      * Performs various checks to ensure that the values on the form are valid and adds the Appointment to the database.
      * This will also check to ensure that values have been provided to all fields on the form and the start/end times are valid
@@ -305,49 +389,41 @@ public class AddAppointmentController implements Initializable {
             setAuditTimestamps();
 
             // Checks to make sure that the startTime is not in the past
-            if(newAppointment.startTimeInFuture()) {
+            if(validate("startTimeInFuture", newAppointment::startTimeInFuture)) {
                 // Checks to make sure that the endTime is after the startTime
-                if(newAppointment.endTimeAfterStartTime()) {
+                if(validate("endTimeAfterStartTime", newAppointment::endTimeAfterStartTime)) {
                     // Checks to make sure that the startTime and endTime are within business hours
-                    if (newAppointment.isWithinBusinessHours()) {
-                        if(!newAppointment.customerOverlappingAppt()) {
-                            try {
-                                // Add Appointment to DB and return to the main controller
-                                String update = "INSERT INTO appointments VALUES (" + newAppointment.getAppointmentID() + ", '"
-                                        + newAppointment.getTitle() + "', '"
-                                        + newAppointment.getDescription() + "', '"
-                                        + newAppointment.getLocation() + "', '"
-                                        + newAppointment.getType() + "', '"
-                                        + newAppointment.getUtcStartTimestamp() + "', '"
-                                        + newAppointment.getUtcEndTimestamp() + "', '"
-                                        + newAppointment.getCreateDate() + "', '"
-                                        + newAppointment.getCreatedBy() + "', '"
-                                        + newAppointment.getLastUpdate() + "', '"
-                                        + newAppointment.getLastUpdatedBy() + "', '"
-                                        + newAppointment.getCustomerID() + "', '"
-                                        + newAppointment.getUserID() + "', "
-                                        + newAppointment.getContactID() + ")";
-                                Statement st = JDBC.connection.createStatement();
-                                st.executeUpdate(update);
-
+                    if(validate("isWithinBusinessHours", newAppointment::isWithinBusinessHours)) {
+                        // Add Appointment to DB and return to the main controller. The customer's schedule is checked for
+                        // conflicts and the Appointment is saved in the background. The form is disabled until
+                        // the save finishes, so the Appointment cannot be changed or saved twice meanwhile.
+                        addApptAnchorPane.setDisable(true);
+                        BackgroundLoader.run(() -> {
+                            if(!validate("customerOverlappingAppt", () -> !newAppointment.customerOverlappingAppt())) {
+                                return false;
+                            }
+                            AppointmentDAO.insertAppointment(newAppointment);
+                            ReminderScheduler.refresh();
+                            return true;
+                        }, saved -> {
+                            if(saved) {
                                 // Record this creation activity within the appointment_activity.txt log
                                 recordAppointmentActivity();
 
                                 returnToMainController();
                             }
-                            catch(SQLException e) {
-                                System.out.println("Error adding Appointment to database.");
+                            else {
+                                addApptAnchorPane.setDisable(false);
+
+                                // Generate a dialogue error indicating that the requested appointment time is conflicting with a customer's schedule.
+                                Alert alert = new Alert(Alert.AlertType.WARNING);
+                                alert.setTitle("Error");
+                                alert.setContentText("The requested appointment time are conflicting with the customer's appointment schedule.\n\nPlease provide a new time.");
+                                Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
+                                stage.setAlwaysOnTop(true);
+                                alert.show();
                             }
-                        }
-                        else {
-                            // Generate a dialogue error indicating that the requested appointment time is conflicting with a customer's schedule.
-                            Alert alert = new Alert(Alert.AlertType.WARNING);
-                            alert.setTitle("Error");
-                            alert.setContentText("The requested appointment time are conflicting with the customer's appointment schedule.\n\nPlease provide a new time.");
-                            Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
-                            stage.setAlwaysOnTop(true);
-                            alert.show();
-                        }
+                        }, () -> addApptAnchorPane.setDisable(false), "Error adding Appointment to database.");
                     }
                     else {
                         // Generate a dialogue error indicating that the appointment times must occur within business hours
@@ -392,6 +468,17 @@ public class AddAppointmentController implements Initializable {
 
     //
 
+    /**
+     * Runs one of the checks the Appointment must pass before it is added, recording it as a Flight Recorder event.
+     *
+     * @param check is the name of the check.
+     * @param validation performs the check.
+     * @return true if the check passed.
+     */
+    private boolean validate(String check, BooleanSupplier validation) {
+        return UiEvents.validate(check, newAppointment.getAppointmentID(), newAppointment.getCustomerID(), validation);
+    }
+
     /**
      * Checks to see if all the fields on the form has been filled. The forms checked only apply to form fields that the
      * end-user can provide a value to.
@@ -430,12 +517,11 @@ public class AddAppointmentController implements Initializable {
      * Sets the 'created' and 'updated' fields in the Appointment object
      */
     private void setAuditTimestamps() {
-        SimpleDateFormat utcFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        utcFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String now = TimeCodec.formatDatabase(Instant.now().getEpochSecond());
 
-        newAppointment.setCreateDate(utcFormat.format(new Date()));
+        newAppointment.setCreateDate(now);
         newAppointment.setCreatedBy(loggedUsername);
-        newAppointment.setLastUpdate(utcFormat.format(new Date()));
+        newAppointment.setLastUpdate(now);
         newAppointment.setLastUpdatedBy(loggedUsername);
     }
 
@@ -448,12 +534,9 @@ public class AddAppointmentController implements Initializable {
         String username = "";
 
         try {
-            String query = "SELECT User_Name, USER_ID FROM users WHERE User_ID = " + loggedUserID;
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
-                username = rs.getString(1);
+            User user = ReferenceData.getUser(loggedUserID);
+            if(user != null) {
+                username = user.getName();
             }
         }
         catch(SQLException e) {
@@ -468,76 +551,33 @@ public class AddAppointmentController implements Initializable {
      * report from within the main controller.
      */
     private void recordAppointmentActivity() {
-        FileOutputStream fileOutputStream = null;
+        // Pieces to the activity log
+        String timestamp;
+        int appointmentId = newAppointment.getAppointmentID();
+        String appointmentTitle = newAppointment.getTitle();
 
-        try {
-            fileOutputStream = new FileOutputStream(new File("appointment_activity.txt"), true);
+        // Retrieve the current timestamp in UTC
+        timestamp = TimeCodec.databaseFormatter.format(LocalDateTime.now());
 
-            // Pieces to the activity log
-            String timestamp;
-            int appointmentId = newAppointment.getAppointmentID();
-            String appointmentTitle = newAppointment.getTitle();
+        // Concatenate the pieces of the appointment activity that will be recorded in the text file
+        String record = timestamp + "," + appointmentId + "," + appointmentTitle + ",CREATED\n";
 
-            // Retrieve the current timestamp in UTC
-            LocalDateTime now = LocalDateTime.now();
-            ZonedDateTime utcTime = now.atZone(ZoneId.of("UTC"));
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            timestamp = formatter.format(utcTime);
-
-            // Concatenate the pieces of the appointment activity that will be recorded in the text file
-            String record = timestamp + "," + appointmentId + "," + appointmentTitle + ",CREATED\n";
-
-            // Write to the text file
-            fileOutputStream.write(record.getBytes(StandardCharsets.UTF_8));
-        }
-        catch(FileNotFoundException e) {
-            System.out.println("appointment_activity.txt not found" + e);
-        }
-        catch(IOException e) {
-            System.out.println("Exception writing to appointment_activity.txt" + e);
-        }
-        finally {
-            // Close the file stream
-            try {
-                if(fileOutputStream != null) {
-                    fileOutputStream.close();
-                }
-            }
-            catch(IOException e) {
-                System.out.println("Error closing filestream: " + e);
-            }
-        }
+        // Queue the record to be written to the text file by the audit log's background writer
+        AuditLog.APPOINTMENT_ACTIVITY.append(record);
     }
 
     /**
-     * Closes current scene and switches back to the main controller
+     * Switches back to the main controller
      */
     @FXML
     private void returnToMainController() {
         try {
-            // Load the FXML file.
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/Scheduler/View_Controller/MainController.fxml"));
-            MainController controller = new MainController(loggedUserID, false);
-            loader.setController(controller);
-            Parent root = loader.load();
-
-            // Close the current window and build the main controller scene to display the appointment calendar
-            closeCurrentWindow();
-            Scene scene = new Scene(root);
-            Stage stage = new Stage();
-            stage.setScene(scene);
-            stage.show();
+            // Display the page in the application window, showing it again as it was left if it has been visited before
+            Navigator.showKept("MainController.fxml", () -> new MainController(loggedUserID, false));
         }
         catch (IOException e) {
             System.out.println("Error switching back to Main Controller.");
         }
     }
 
-    /**
-     * Closes the current window. This method is called within returnToMainController() as a helper function.
-     */
-    private void closeCurrentWindow() {
-        Stage currentStage = (Stage)addApptAnchorPane.getScene().getWindow();
-        currentStage.close();
-    }
 }
@@ -7,16 +7,21 @@
 
 package Scheduler.View_Controller;
 
+import DAO.CustomerRepository;
+import DAO.IdAllocator;
+import DAO.ReferenceData;
+import Model.Country;
 import Model.Customer;
-import helper.JDBC;
+import Model.Division;
+import Model.User;
+import helper.BackgroundLoader;
+import helper.TimeCodec;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.MenuButton;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.TextField;
@@ -24,13 +29,9 @@ import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 import java.io.IOException;
 import java.net.URL;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
 import java.util.ResourceBundle;
-import java.util.TimeZone;
 
 public class AddCustomerController implements Initializable {
     @FXML AnchorPane addCustAnchorPane;
@@ -46,6 +47,9 @@ public class AddCustomerController implements Initializable {
     @FXML MenuButton countryMenu;
     @FXML MenuButton divisionMenu;
 
+    // Save button, disabled until the new Customer ID has been reserved
+    @FXML Button saveButton;
+
     // New customer that is added to the DB
     private Customer newCustomer;
 
@@ -79,50 +83,46 @@ public class AddCustomerController implements Initializable {
     }
 
     /**
-     * Pre-populates an un-taken customer ID by finding the current highest value associated with the Customer ID in the database
-     * and incrementing it by 1.
+     * Pre-populates an un-taken customer ID taken from the block of Customer IDs reserved by this application. The database
+     * is only accessed, in the background, when the reserved block has been used up, and the Save button is disabled until
+     * the ID arrives so the Customer is never saved without one.
      */
     private void prepopulateCustomerID() {
-        try {
-            int maxCustomerID = 1;
-
-            // DB Query
-            String query = "SELECT MAX(Customer_ID) FROM customers";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
-                maxCustomerID= rs.getInt(1);
-            }
-
-            newCustomer.setID(++maxCustomerID);
-            custIDTextField.setText("" + newCustomer.getID());
+        Integer customerID = IdAllocator.CUSTOMERS.tryNextID();
+        if(customerID != null) {
+            setCustomerID(customerID);
         }
-        catch (SQLException e) {
-            System.out.println("Error retrieving Customer_IDs from the database");
+        else {
+            saveButton.setDisable(true);
+            BackgroundLoader.run(IdAllocator.CUSTOMERS::nextID, this::setCustomerID, "Error retrieving Customer_IDs from the database");
         }
     }
 
+    /**
+     * Records the new Customer ID and sets the text into the TextField.
+     */
+    private void setCustomerID(int customerID) {
+        newCustomer.setID(customerID);
+        custIDTextField.setText("" + newCustomer.getID());
+        saveButton.setDisable(false);
+    }
+
     /**
      * Pre-populates the country options into the menu box
      */
     private void prepopulateCountryOptions() {
         try {
-            // DB Query
-            String query = "SELECT Country FROM countries";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            // Add each Country option found in the DB and add it to the MenuButton
-            while(rs.next()) {
-                // Create Menu Items for each Country found in the DB
-                MenuItem menuItem = new MenuItem(rs.getString(1));
+            // Add each cached Country option to the MenuButton
+            for(Country country : ReferenceData.getCountries()) {
+                // Create Menu Items for each Country
+                MenuItem menuItem = new MenuItem(country.getName());
 
                 // Create the different onAction events based off country selection
                 menuItem.setOnAction(new EventHandler<ActionEvent>() {
                     @Override
                     public void handle(ActionEvent actionEvent) {
-                        newCustomer.setCountryName(menuItem.getText());
+                        newCustomer.setCountryName(country.getName());
+                        newCustomer.setCountryID(country.getID());
                         countryMenu.setText(menuItem.getText());
 
                         // Reset the division selection when a country is selected
@@ -131,20 +131,6 @@ public class AddCustomerController implements Initializable {
                         divisionMenu.getItems().clear();
                         newCustomer.setDivisionID(-1);
 
-                        // Get the country ID that will be used for pre-populating the division selection
-                        try {
-                            // DB Query
-                            String query = "SELECT Country_ID FROM countries WHERE Country = '" + newCustomer.getCountryName() + "'";
-                            Statement st = JDBC.connection.createStatement();
-                            ResultSet rs = st.executeQuery(query);
-
-                            while(rs.next()) {
-                                newCustomer.setCountryID(rs.getInt(1));
-                            }
-                        }
-                        catch(SQLException e) {
-                            System.out.println("Error fetching countries from the database.");
-                        }
                         // Populate the division options within the drop-down menu depending on the country selection
                         prepopulateDivisionOptions();
                     }
@@ -162,38 +148,19 @@ public class AddCustomerController implements Initializable {
      * Pre-populates State and Division options based off the country selection
      */
     private void prepopulateDivisionOptions() {
-        // Query all the first level divisions from the DB
         try {
-            // DB Query
-            String query = "SELECT Division FROM first_level_divisions WHERE Country_ID = '" + newCustomer.getCountryID() + "'";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            // Add the division options to the menu
-            while(rs.next()) {
-                MenuItem menuItem = new MenuItem(rs.getString(1));
+            // Add the cached division options of the selected country to the menu
+            for(Division division : ReferenceData.getDivisions(newCustomer.getCountryID())) {
+                MenuItem menuItem = new MenuItem(division.getName());
 
                 // Set the onAction event
                 menuItem.setOnAction(new EventHandler<ActionEvent>() {
                     @Override
                     public void handle(ActionEvent actionEvent) {
-                        try {
-                            // Update GUI and set values
-                            newCustomer.setDivisionName(menuItem.getText());
-                            divisionMenu.setText(menuItem.getText());
-
-                            // DB Query
-                            String query = "SELECT Division_ID FROM first_level_divisions WHERE Division = '" + menuItem.getText() + "'";
-                            Statement st = JDBC.connection.createStatement();
-                            ResultSet rs = st.executeQuery(query);
-
-                            while(rs.next()) {
-                                newCustomer.setDivisionID(rs.getInt(1));
-                            }
-                        }
-                        catch(SQLException e) {
-                            System.out.println("Error retrieving the Division_ID value from the database.");
-                        }
+                        // Update GUI and set values
+                        newCustomer.setDivisionName(division.getName());
+                        newCustomer.setDivisionID(division.getID());
+                        divisionMenu.setText(menuItem.getText());
                     }
                 });
 
@@ -218,27 +185,16 @@ public class AddCustomerController implements Initializable {
             setAuditTimestamps();
 
             // Add customer to DB
-            try {
-                // DB Query for adding Customer
-                String update = "INSERT INTO customers VALUES (" + newCustomer.getID()
-                                                                + ", '" + newCustomer.getName() + "', '"
-                                                                + newCustomer.getAddress() + "', '"
-                                                                + newCustomer.getPostalCode() + "', '"
-                                                                + newCustomer.getPhoneNumber() + "', '"
-                                                                + newCustomer.getCreateDate() + "', '"
-                                                                + newCustomer.getCreatedBy() + "', '"
-                                                                + newCustomer.getLastUpdate() + "', '"
-                                                                + newCustomer.getLastUpdatedBy() + "', "
-                                                                + newCustomer.getDivisionID() + ")";
-                Statement st = JDBC.connection.createStatement();
-                st.executeUpdate(update);
-
+            // DB Query for adding Customer
+            // The form is disabled until the save finishes, so the Customer cannot be changed or saved twice meanwhile
+            addCustAnchorPane.setDisable(true);
+            BackgroundLoader.run(() -> {
+                CustomerRepository.insert(newCustomer);
+                return newCustomer;
+            }, customer -> {
                 // Return to the Main Controller after saving the new customer to the database
                 returnToMainController();
-            }
-            catch(SQLException e) {
-                System.out.println("Error adding customer to database.");
-            }
+            }, () -> addCustAnchorPane.setDisable(false), "Error adding customer to database.");
         }
         else {
             Alert alert = new Alert(Alert.AlertType.WARNING);
@@ -260,12 +216,9 @@ public class AddCustomerController implements Initializable {
 
         // Retrieves current logged in, used for auditing the user that added the customer
         try {
-            String query = "SELECT User_Name FROM users WHERE User_ID = " + loggedUserID;
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
-                username = rs.getString("User_Name");
+            User user = ReferenceData.getUser(loggedUserID);
+            if(user != null) {
+                username = user.getName();
             }
         }
         catch (SQLException e) {
@@ -308,44 +261,26 @@ public class AddCustomerController implements Initializable {
      * Sets the 'created' and 'updated' fields in the Customer object
      */
     private void setAuditTimestamps() {
-        SimpleDateFormat utcFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        utcFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String now = TimeCodec.formatDatabase(Instant.now().getEpochSecond());
 
-        newCustomer.setCreateDate(utcFormat.format(new Date()));
+        newCustomer.setCreateDate(now);
         newCustomer.setCreatedBy(loggedUsername);
-        newCustomer.setLastUpdate(utcFormat.format(new Date()));
+        newCustomer.setLastUpdate(now);
         newCustomer.setLastUpdatedBy(loggedUsername);
     }
 
     /**
-     * Closes current scene and switches back to the main controller
+     * Switches back to the main controller
      */
     @FXML
     private void returnToMainController() {
         try {
-            // Load the FXML file.
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/Scheduler/View_Controller/MainController.fxml"));
-            MainController controller = new MainController(loggedUserID, false);
-            loader.setController(controller);
-            Parent root = loader.load();
-
-            // Close the current window and build the MainController scene to display the appointment calendar
-            closeCurrentWindow();
-            Scene scene = new Scene(root);
-            Stage stage = new Stage();
-            stage.setScene(scene);
-            stage.show();
+            // Display the page in the application window, showing it again as it was left if it has been visited before
+            Navigator.showKept("MainController.fxml", () -> new MainController(loggedUserID, false));
         }
         catch (IOException e) {
             System.out.println("Error switching back to Main Controller.");
         }
     }
 
-    /**
-     * Closes the current window. This method is called within returnToMainController() as a helper function.
-     */
-    private void closeCurrentWindow() {
-        Stage currentStage = (Stage)addCustAnchorPane.getScene().getWindow();
-        currentStage.close();
-    }
 }
@@ -1,96 +1,119 @@
 /**
  * This class represents a report that displays an audited trace of when Appointments were created, updated, or deleted.
- * The timestamps on the report are generated on the local time based on the end-user's machine.
+ * The timestamps on the report are generated on the local time based on the end-user's machine. The log is indexed by
+ * line and only the rows being displayed are read from the file, so the report opens quickly no matter how long the log
+ * is. The report can also follow new entries as they are appended to the log.
  *
  * @author Henry Trieu
  */
 
 package Scheduler.View_Controller;
 
+import Model.ActivityLogList;
+import Model.ActivityRecord;
+import helper.BackgroundLoader;
+import helper.LineIndex;
+import helper.UiEvents;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
-import javafx.geometry.Insets;
-import javafx.scene.control.Label;
-import javafx.scene.layout.GridPane;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.Window;
+import javafx.util.Duration;
 
-import java.io.*;
 import java.net.URL;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Paths;
 import java.util.ResourceBundle;
 
 public class AppointmentActivityController implements Initializable {
-    @FXML GridPane logGridPane;
+    // TableView and TableColumns
+    @FXML TableView<ActivityRecord> logTableView;
+    @FXML TableColumn timestampColumn;
+    @FXML TableColumn appointmentIdColumn;
+    @FXML TableColumn titleColumn;
+    @FXML TableColumn actionColumn;
 
+    // Controls for following new entries
+    @FXML CheckBox followCheckBox;
+    @FXML ProgressIndicator loadingIndicator;
+
+    // Variables used for reading the log
+    private final LineIndex logIndex = new LineIndex(Paths.get("appointment_activity.txt"));
+    private ActivityLogList logEntries;
+    private BackgroundLoader logLoader;
+
+    // Checks the log for new entries while following is enabled
+    private final Timeline followTimeline = new Timeline(new KeyFrame(Duration.seconds(1), event -> followLog()));
+
+    /**
+     * Initializes the table columns and indexes the log in the background.
+     */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        timestampColumn.setCellValueFactory(new PropertyValueFactory<>("localTimestamp"));
+        appointmentIdColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentID"));
+        titleColumn.setCellValueFactory(new PropertyValueFactory<>("title"));
+        actionColumn.setCellValueFactory(new PropertyValueFactory<>("action"));
+
+        logEntries = new ActivityLogList(logIndex);
+        logTableView.setItems(logEntries);
+        logLoader = new BackgroundLoader(loadingIndicator);
+        followTimeline.setCycleCount(Animation.INDEFINITE);
+
         loadAppointmentLog();
     }
+
     /**
-     * Reads the audit log associated with the Appointments within the file "appointment_activity.txt" and parses the file
-     *  into Labels that are displayed on the report table.
+     * Indexes the lines appended to the log file "appointment_activity.txt" since it was last indexed and adds them to the
+     * table. Indexing is done in the background; the entries themselves are only read when their rows are displayed.
      */
     private void loadAppointmentLog() {
-        File file = new File("appointment_activity.txt");
-
-        // Creating an object of BuffferedReader class
-        try {
-            BufferedReader br= new BufferedReader(new FileReader(file));
-
-            String line;
-            int counter = 0;
-
-            while((line = br.readLine()) != null) {
-                String[] delimited = line.split(",");
-
-                // Labels containing the information regarding the Appointment Activity log being displayed
-                Label timestampLabel = new Label(convertUtcTimestampToLocal(delimited[0]));
-                timestampLabel.setPadding(new Insets(5,5,5,5));
-
-                Label appointmentIdLabel = new Label(delimited[1]);
-                appointmentIdLabel.setPadding(new Insets(5,5,5,5));
-
-                Label titleLabel = new Label(delimited[2]);
-                titleLabel.setPadding(new Insets(5,5,5,5));
-
-                Label actionLabel = new Label(delimited[3]);
-                actionLabel.setPadding(new Insets(5,5,5,5));
-
-                // Add the labels to the GridPane
-                logGridPane.add(timestampLabel, 0, counter);
-                logGridPane.add(appointmentIdLabel, 1, counter);
-                logGridPane.add(titleLabel, 2, counter);
-                logGridPane.add(actionLabel, 3, counter);
+        UiEvents.DataLoad dataLoad = UiEvents.dataLoad("Appointment activity log");
+        logLoader.load(logIndex::refresh, validLines -> {
+            // The log was rotated or replaced, so the entries already displayed no longer exist
+            if(validLines < logEntries.size()) {
+                logEntries = new ActivityLogList(logIndex);
+                logTableView.setItems(logEntries);
+            }
+            logEntries.appended(logIndex.size());
 
-                // Increment the counter
-                counter++;
+            if(followCheckBox.isSelected() && !logEntries.isEmpty()) {
+                logTableView.scrollTo(logEntries.size() - 1);
             }
+            dataLoad.finish(logEntries.size());
+        }, "Error processing appointment_activity.txt.");
+    }
+
+    /**
+     * Starts or stops following new entries when the follow CheckBox is toggled.
+     */
+    @FXML
+    private void toggleFollow() {
+        if(followCheckBox.isSelected()) {
+            loadAppointmentLog();
+            followTimeline.play();
         }
-        catch(FileNotFoundException e) {
-            System.out.println("Error, couldn't find file \"appointment_activity.txt\"");
-        }
-        catch(IOException e) {
-            System.out.println("Error processing appointment_activity.txt.");
+        else {
+            followTimeline.stop();
         }
     }
 
-
     /**
-     * This method takes in a String in UTC format and returns the timestamp converted into local timezone in a 12h format.
-     *
-     * @param utcTimestamp is the 24h timestamp in UTC regarding the associated Appointment action (create/update/delete)
-     * @return a timestamp in the end-user's current timezone in a 12h format
+     * Checks the log for new entries, stopping once the report has been closed.
      */
-    private String convertUtcTimestampToLocal(String utcTimestamp) {
-        DateTimeFormatter utcFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss z");
-        DateTimeFormatter localFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd h:mm a");
-
-        ZonedDateTime utcZonedDateTime = ZonedDateTime.parse(utcTimestamp + " " + ZoneId.of("UTC"), utcFormatter);
-        ZonedDateTime localZonedDateTime = utcZonedDateTime.withZoneSameInstant(ZoneId.systemDefault());
-
-        String localTimestamp = localFormatter.format(localZonedDateTime);
+    private void followLog() {
+        Window window = logTableView.getScene() == null ? null : logTableView.getScene().getWindow();
+        if(window != null && !window.isShowing()) {
+            followTimeline.stop();
+            return;
+        }
 
-        return localTimestamp;
+        loadAppointmentLog();
     }
 }
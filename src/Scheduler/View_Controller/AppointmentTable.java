@@ -0,0 +1,73 @@
+/**
+ * This class displays an AppointmentStoreList in a TableView whose columns can be sorted by clicking their headers.
+ *
+ * An AppointmentStoreList is read-only, so the TableView cannot sort it in place. While no column is sorted the list is
+ * displayed as it is, in order of start time, so only the rows on screen are materialized. Once the user sorts by a column
+ * the list is wrapped in a SortedList bound to the table's comparator, which reads every row once to sort them and keeps
+ * them sorted as Appointments are added, updated and deleted. Removing the sort displays the list itself again.
+ *
+ * @author Henry Trieu
+ */
+
+package Scheduler.View_Controller;
+
+import Model.Appointment;
+import Model.AppointmentStoreList;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
+import javafx.scene.control.TableView;
+
+public abstract class AppointmentTable {
+
+    /**
+     * Switches the table between its AppointmentStoreList and a sorted view of it as columns are sorted and unsorted. This
+     * must be called once, when the page is initialized.
+     *
+     * @param table is the table displaying the Appointments.
+     */
+    public static void enableSorting(TableView<Appointment> table) {
+        table.comparatorProperty().addListener((observable, oldComparator, newComparator) -> {
+            AppointmentStoreList appointments = getAppointments(table);
+            if(appointments != null && (oldComparator == null) != (newComparator == null)) {
+                Appointment selected = table.getSelectionModel().getSelectedItem();
+                setAppointments(table, appointments);
+                if(selected != null) {
+                    table.getSelectionModel().select(selected);
+                }
+            }
+        });
+    }
+
+    /**
+     * Displays Appointments in the table, sorted by the table's sorted columns if there are any.
+     *
+     * @param table is the table displaying the Appointments.
+     * @param appointments are the Appointments to display.
+     */
+    public static void setAppointments(TableView<Appointment> table, AppointmentStoreList appointments) {
+        if(table.getItems() instanceof SortedList) {
+            ((SortedList<Appointment>) table.getItems()).comparatorProperty().unbind();
+        }
+
+        if(table.getComparator() == null) {
+            table.setItems(appointments);
+        }
+        else {
+            SortedList<Appointment> sorted = new SortedList<>(appointments);
+            sorted.comparatorProperty().bind(table.comparatorProperty());
+            table.setItems(sorted);
+        }
+    }
+
+    /**
+     * @return the AppointmentStoreList displayed in the table, directly or through a SortedList, or null if the table is
+     * displaying another list.
+     */
+    private static AppointmentStoreList getAppointments(TableView<Appointment> table) {
+        ObservableList<? extends Appointment> items = table.getItems();
+        if(items instanceof SortedList) {
+            items = ((SortedList<Appointment>) items).getSource();
+        }
+        return items instanceof AppointmentStoreList ? (AppointmentStoreList) items : null;
+    }
+}
@@ -5,22 +5,28 @@
  */
 package Scheduler.View_Controller;
 
-import Model.Appointment;
-import helper.JDBC;
+import DAO.AppointmentDAO;
+import DAO.ReferenceData;
+import Model.AppointmentStoreList;
+import Model.Contact;
+import helper.AppointmentExporter;
+import helper.BackgroundLoader;
+import helper.UiEvents;
+import javafx.collections.FXCollections;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.control.Button;
 import javafx.scene.control.MenuButton;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.AnchorPane;
 import java.net.URL;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ResourceBundle;
 
 public class ContactScheduleReport implements Initializable {
@@ -37,12 +43,17 @@ public class ContactScheduleReport implements Initializable {
 
     // Button variables
     @FXML MenuButton contactMenuButton;
+    @FXML Button exportButton;
+
+    // Loading indicator displayed while a schedule is being retrieved
+    @FXML ProgressIndicator loadingIndicator;
 
     // TableView variables
     @FXML TableView appointmentTableView;
 
     // Variable for tracking contact selected
     private int selectedContactID;
+    private BackgroundLoader scheduleLoader;
 
     /**
      * Initializes the accepted table column attributes and populates the selectable Contact options on the drop-down menu
@@ -50,7 +61,9 @@ public class ContactScheduleReport implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle rb) {
+        scheduleLoader = new BackgroundLoader(loadingIndicator);
         intializeTableColumns();
+        AppointmentTable.enableSorting(appointmentTableView);
         loadContacts();
     }
 
@@ -73,27 +86,22 @@ public class ContactScheduleReport implements Initializable {
      */
     private void loadContacts() {
         try {
-            // DB Query
-            String query = "SELECT * FROM contacts ORDER BY Contact_Name ASC";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            // Add the country options to the ArrayList
-            while(rs.next()) {
-                // Create Menu Items for each Contact found in the DB
-                int contactID = Integer.parseInt(rs.getString(1));
-                MenuItem contactMenuItem = new MenuItem(rs.getString(2));
+            // Create Menu Items for each cached Contact, in alphabetical order
+            for(Contact contact : ReferenceData.getContacts()) {
+                int contactID = contact.getID();
+                MenuItem contactMenuItem = new MenuItem(contact.getName());
 
                 // Set the onAction event for each of Contact on the menu
                 contactMenuItem.setOnAction(new EventHandler<ActionEvent>() {
                     @Override
                     public void handle(ActionEvent actionEvent) {
                         // Clear out the current Appointments in the TableView
-                        appointmentTableView.getItems().clear();
+                        appointmentTableView.setItems(FXCollections.observableArrayList());
 
                         // Set the text of the menuButton to the selected item
                         contactMenuButton.setText(contactMenuItem.getText());
                         selectedContactID = contactID;
+                        exportButton.setDisable(false);
 
                         // Load the appointment list associated with the contact
                         loadAppointmentSchedule();
@@ -112,34 +120,22 @@ public class ContactScheduleReport implements Initializable {
      * Loads the Appointment schedule on the table associated with the contact selected
      */
     private void loadAppointmentSchedule() {
-        try {
-            // DB Query
-            String query = "SELECT * FROM appointments WHERE Contact_ID = " + selectedContactID + " ORDER BY Start ASC";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
-                // Parse the timestamps from the DB and add it to the table
-                // Appointment details
-                int appointmentID = rs.getInt("Appointment_ID");
-                String title = rs.getString("Title");
-                String description = rs.getString("Description");
-                String location = rs.getString("Location");
-                String type = rs.getString("Type");
-                String utcStartTimestamp = rs.getString("Start");
-                String utcEndTimestamp = rs.getString("End");
-                int customerID = rs.getInt("Customer_ID");
-                int userID = rs.getInt("User_ID");
-                int contactID = rs.getInt("Contact_ID");
-
-                Appointment tempAppointment = new Appointment(appointmentID, title, description, location,
-                        type, utcStartTimestamp, utcEndTimestamp, customerID, userID, contactID);
+        // Retrieve the schedule in the background; a schedule still loading for a previously selected contact is cancelled
+        int contactID = selectedContactID;
+        UiEvents.DataLoad dataLoad = UiEvents.dataLoad("Contact schedule");
+        scheduleLoader.load(() -> AppointmentDAO.getAppointmentsByContact(contactID), appointments -> {
+            AppointmentTable.setAppointments(appointmentTableView, new AppointmentStoreList(appointments));
+            dataLoad.finish(appointments.size());
+        }, "There was an error retrieving Contact information from the database.");
+    }
 
-                appointmentTableView.getItems().add(tempAppointment);
-            }
-        }
-        catch(SQLException e) {
-            System.out.println("There was an error retrieving Contact information from the database.");
-        }
+    /**
+     * Exports the schedule of the selected Contact to a CSV or iCalendar file chosen by the user.
+     */
+    @FXML
+    private void exportSchedule() {
+        int contactID = selectedContactID;
+        ExportDialog.show(appointmentTableView, "contact_" + contactID + "_schedule",
+                (format, file) -> AppointmentExporter.exportContact(contactID, format, file));
     }
 }
@@ -0,0 +1,75 @@
+/**
+ * This class asks the user where to export Appointments to, as a CSV file or an iCalendar file, then writes the file in
+ * the background and tells the user how many Appointments were exported. It is shared by the pages that export
+ * Appointments: the calendar, the Contact Schedule Report and the Customer list.
+ *
+ * @author Henry Trieu
+ */
+
+package Scheduler.View_Controller;
+
+import helper.AppointmentExporter;
+import helper.BackgroundLoader;
+import javafx.scene.Node;
+import javafx.scene.control.Alert;
+import javafx.stage.FileChooser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+public abstract class ExportDialog {
+
+    /**
+     * Writes Appointments to a file in one of the export formats.
+     */
+    public interface Export {
+        /**
+         * @param format is the format chosen by the user.
+         * @param file is the file chosen by the user.
+         * @return the number of Appointments exported.
+         */
+        long write(AppointmentExporter.Format format, Path file) throws SQLException, IOException;
+    }
+
+    /**
+     * Asks the user for the file to export to, then exports the Appointments to it in the background. The format is the
+     * one of the extension filter the user selected.
+     *
+     * @param owner is a node on the page the dialog is opened from.
+     * @param fileName is the suggested file name, without an extension.
+     * @param export writes the Appointments to the chosen file.
+     */
+    public static void show(Node owner, String fileName, Export export) {
+        FileChooser.ExtensionFilter csvFilter = new FileChooser.ExtensionFilter("CSV (*.csv)", "*.csv");
+        FileChooser.ExtensionFilter icsFilter = new FileChooser.ExtensionFilter("iCalendar (*.ics)", "*.ics");
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Appointments");
+        fileChooser.getExtensionFilters().addAll(csvFilter, icsFilter);
+        fileChooser.setInitialFileName(fileName + ".csv");
+        File file = fileChooser.showSaveDialog(owner.getScene().getWindow());
+        if(file == null) {
+            return;
+        }
+
+        // The selected filter decides the format, unless the file name was typed with the other format's extension
+        AppointmentExporter.Format format = fileChooser.getSelectedExtensionFilter() == icsFilter
+                ? AppointmentExporter.Format.ICS : AppointmentExporter.Format.CSV;
+        String name = file.getName().toLowerCase();
+        for(AppointmentExporter.Format candidate : AppointmentExporter.Format.values()) {
+            if(name.endsWith("." + candidate.getExtension())) {
+                format = candidate;
+            }
+        }
+
+        AppointmentExporter.Format chosenFormat = format;
+        BackgroundLoader.run(() -> export.write(chosenFormat, file.toPath()), rows -> {
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Appointments Exported");
+            alert.setContentText(rows + (rows == 1 ? " appointment was" : " appointments were") + " exported to " + file.getName() + ".");
+            alert.show();
+        }, "There was an error exporting the appointments.");
+    }
+}
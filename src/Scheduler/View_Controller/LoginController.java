@@ -6,31 +6,27 @@
 
 package Scheduler.View_Controller;
 
+import DAO.CustomerRepository;
+import DAO.IdAllocator;
+import DAO.ReferenceData;
+import DAO.UserDAO;
+import helper.AuditLog;
+import helper.BackgroundLoader;
 import helper.JDBC;
+import helper.StartupMetrics;
+import helper.TimeCodec;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
-import javafx.stage.Stage;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 import java.util.ResourceBundle;
 
@@ -54,12 +50,40 @@ public class LoginController implements Initializable {
     private int loggedUserID;
 
     /**
-     * This method opens a connection to the database and sets the location/language based on the end-user's machine.
+     * This method sets the location/language based on the end-user's machine and, in the background, opens the connections
+     * to the database and warms the reference data cache while the login page is displayed.
      */
     @Override
     public void initialize(URL url, ResourceBundle rb) {
-        JDBC.openConnection();
         setZoneAndLanguage();
+
+        // Loading the driver, opening the pooled connections and loading the reference data are kept off the startup path.
+        // Logging in before they have finished simply waits for the connection pool to be created.
+        long warmUpStart = System.nanoTime();
+        BackgroundLoader.run(() -> {
+            JDBC.openConnection();
+
+            // Load the countries, divisions, contacts and users once so forms can be opened without querying them again
+            try {
+                ReferenceData.load();
+            }
+            catch(SQLException e) {
+                System.out.println("Error loading reference data from the database.");
+            }
+
+            // Read the customers into the customer cache, which the Customer table and the Appointment forms read from
+            try {
+                CustomerRepository.load();
+            }
+            catch(SQLException e) {
+                System.out.println("Error loading customers from the database.");
+            }
+
+            // Reserve blocks of new Appointment and Customer IDs so the add forms can display their IDs instantly
+            IdAllocator.APPOINTMENTS.warmUp();
+            IdAllocator.CUSTOMERS.warmUp();
+            return null;
+        }, warmedUp -> StartupMetrics.warmUpFinished(warmUpStart), "Error warming up the database connections.");
     }
 
     /**
@@ -99,16 +123,15 @@ public class LoginController implements Initializable {
         }
         // Attempt authorization
         else {
-            try{
-                // Check if the inputted credentials belong to a user within the database
-                String query = "SELECT * FROM users WHERE User_Name = '" + usernameTextField.getText() +
-                                                    "' AND Password = '" + passwordTextField.getText() + "'";
-                Statement st = JDBC.connection.createStatement();
-                ResultSet rs = st.executeQuery(query);
+            StartupMetrics.loginSubmitted();
+
+            // Check if the inputted credentials belong to a user within the database
+            try {
+                Integer userID = UserDAO.authenticate(usernameTextField.getText(), passwordTextField.getText());
 
                 // If creds are correct, record the user that is logging in and move to main controller
-                if(rs.next()) {
-                    loggedUserID = rs.getInt(1);
+                if(userID != null) {
+                    loggedUserID = userID;
                     recordLoginActivity(true);
                     switchToMainController();
                 }
@@ -130,81 +153,38 @@ public class LoginController implements Initializable {
      * @param successfulLogin determines whether the method will append 'LOGIN_SUCCESS' or 'LOGIN_FAIL'
      */
     private void recordLoginActivity(boolean successfulLogin) {
-        FileOutputStream fileOutputStream = null;
-
-        try {
-            fileOutputStream = new FileOutputStream(new File("login_activity.txt"), true);
-
-            // Pieces to the activity log
-            String timestamp;
-            String username;
-            String loginResult;
-
-            // Retrieve the current timestamp in UTC
-            LocalDateTime now = LocalDateTime.now();
-            ZonedDateTime utcTime = now.atZone(ZoneId.of("UTC"));
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("'['yyyy-MM-dd HH:mm:ss']'");
-            timestamp = formatter.format(utcTime);
+        // Pieces to the activity log
+        String timestamp;
+        String username;
+        String loginResult;
 
-            // Record the username of the user logged in
-            username = usernameTextField.getText();
+        // Retrieve the current timestamp in UTC
+        timestamp = "[" + TimeCodec.databaseFormatter.format(LocalDateTime.now()) + "]";
 
-            // Set the loginResult
-            if(successfulLogin) {
-                loginResult = "SUCCESSFUL LOGIN";
-            }
-            else {
-                loginResult = "FAILED LOGIN";
-            }
+        // Record the username of the user logged in
+        username = usernameTextField.getText();
 
-            // Concatenate the pieces of the login activity that will be recorded in the text file
-            String record = timestamp + " UserName:'" + username + "' - " +loginResult + "\n";
-
-            // Write to the text file
-            fileOutputStream.write(record.getBytes(StandardCharsets.UTF_8));
-        }
-        catch(FileNotFoundException e) {
-            System.out.println("login_activity.txt not found" + e);
+        // Set the loginResult
+        if(successfulLogin) {
+            loginResult = "SUCCESSFUL LOGIN";
         }
-        catch(IOException e) {
-            System.out.println("Exception writing to login_activity.txt " + e);
-        }
-        finally {
-            // Close the file stream
-            try {
-                if(fileOutputStream != null) {
-                    fileOutputStream.close();
-                }
-            }
-            catch(IOException e) {
-                System.out.println("Error closing filestream: " + e);
-            }
+        else {
+            loginResult = "FAILED LOGIN";
         }
+
+        // Concatenate the pieces of the login activity that will be recorded in the text file
+        String record = timestamp + " UserName:'" + username + "' - " +loginResult + "\n";
+
+        // Queue the record to be written to the text file by the audit log's background writer
+        AuditLog.LOGIN_ACTIVITY.append(record);
     }
 
     /**
-     * Closes current scene and switches to the main controller
+     * Switches to the main controller
      */
     private void switchToMainController() throws IOException {
-        // Load the FXML file.
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/Scheduler/View_Controller/MainController.fxml"));
-        MainController controller = new MainController(loggedUserID, true);
-        loader.setController(controller);
-        Parent root = loader.load();
-
-        // Close the current window and build the MainController scene to display the appointment calendar
-        closeCurrentWindow();
-        Scene scene = new Scene(root);
-        Stage stage = new Stage();
-        stage.setScene(scene);
-        stage.show();
+        // Display the page in the application window, showing it again as it was left if it has been visited before
+        Navigator.showKept("MainController.fxml", () -> new MainController(loggedUserID, true));
     }
 
-    /**
-     * Closes the current window. This method is called within returnToMainController() as a helper function.
-     */
-    private void closeCurrentWindow() {
-        Stage currentStage = (Stage)loginPrimaryAnchorPane.getScene().getWindow();
-        currentStage.close();
-    }
 }
@@ -1,9 +1,12 @@
 package Scheduler.View_Controller;
 
+import helper.AuditLog;
+import helper.BackgroundLoader;
+import helper.ChangeFeed;
+import helper.JDBC;
+import helper.ReminderScheduler;
+import helper.StartupMetrics;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 public class Main extends Application {
@@ -11,16 +14,24 @@ public class Main extends Application {
     // The start of the page is the Login page
     @Override
     public void start(Stage primaryStage) throws Exception{
-        //Load the FXML file
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/Scheduler/View_Controller/LoginController.fxml"));
-        LoginController controller = new LoginController();
-        loader.setController(controller);
-        Parent root = loader.load();
-
-        // Build the scene and display the window
+        // Every page is displayed in this window
         primaryStage.setTitle("Scheduler");
-        primaryStage.setScene(new Scene(root));
-        primaryStage.show();
+        Navigator.start(primaryStage);
+
+        // Load the Login page and display the window
+        Navigator.show("LoginController.fxml", new LoginController());
+        StartupMetrics.loginScreenShown();
+    }
+
+    // Stop the reminders and the change feed, finish background work, flush the activity logs and return the pooled
+    // database connections when the application exits
+    @Override
+    public void stop() {
+        ReminderScheduler.stop();
+        ChangeFeed.stop();
+        BackgroundLoader.shutdown();
+        AuditLog.closeAll();
+        JDBC.closeConnection();
     }
 
     public static void main (String[] args) {
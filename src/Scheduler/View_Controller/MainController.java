@@ -8,32 +8,34 @@
 
 package Scheduler.View_Controller;
 
+import DAO.AppointmentDAO;
 import Model.Appointment;
-import helper.JDBC;
+import helper.AppointmentExporter;
+import helper.AuditLog;
+import helper.BackgroundLoader;
+import helper.CalendarWindowCache;
+import helper.ChangeFeed;
+import helper.ReminderScheduler;
+import helper.StartupMetrics;
+import helper.TimeCodec;
+import helper.UiEvents;
+import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.GridPane;
 import javafx.stage.Stage;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.ResourceBundle;
 
-public class MainController implements Initializable {
+public class MainController implements Initializable, Navigator.KeptPage {
+    private static final DateTimeFormatter weekFormatter = DateTimeFormatter.ofPattern("MM-dd-yy");
 
     // Primary AnchorPane on the Main Controller
     @FXML private AnchorPane mainAnchorPane;
@@ -49,6 +51,7 @@ public class MainController implements Initializable {
 
     // Labels
     @FXML private Label monthWeekLabel;
+    @FXML private ProgressIndicator loadingIndicator;
 
     // TableView
     @FXML private GridPane monthViewGridPane;
@@ -74,6 +77,8 @@ public class MainController implements Initializable {
     // Variables related to Appointment TableView
     ZonedDateTime startRange;
     ZonedDateTime endRange;
+    private final CalendarWindowCache appointmentWindows = new CalendarWindowCache();
+    private UiEvents.Navigation pendingNavigation; // Started by the week/month buttons and finished by the load they cause
 
     /**
      * Initializes the table properties used to display the Appointments and also performs a check to alert the logged-user
@@ -82,11 +87,32 @@ public class MainController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle rb) {
+        loadingIndicator.setVisible(false);
         initializeTableColumns();
         initializeTableView();
         initializeRadioButtons();
         welcomeAlertDialog();
         monthlyWeeklyToggleGroup.selectToggle(monthlyRadioButton);
+
+        // Follow the Appointments added, updated and deleted by every user from now on
+        ChangeFeed.subscribe(this::applyChanges);
+        ChangeFeed.start();
+    }
+
+    /**
+     * Brings the Appointments in the range being viewed up to date when the user returns to this page, since they may have
+     * been added, updated or deleted on the page the user returns from. Only the changed Appointments are applied, unless
+     * the changes are not being followed, in which case the kept weeks/months may be out of date and are reloaded.
+     */
+    @Override
+    public void reshown() {
+        if(ChangeFeed.isRunning()) {
+            ChangeFeed.pollNow();
+        }
+        else {
+            appointmentWindows.clear();
+            loadAppointments();
+        }
     }
 
     /**
@@ -139,57 +165,91 @@ public class MainController implements Initializable {
      * Sets the text of the Appointment viewing range to be within a week.
      */
     private void loadWeekRangeLabel() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM-dd-yy");
-
-        String startWeek = formatter.format(startRange);
-        String endWeek = formatter.format(endRange);
+        String startWeek = weekFormatter.format(startRange);
+        String endWeek = weekFormatter.format(endRange);
 
         monthWeekLabel.setText("Week " + startWeek + " to " + endWeek);
     }
 
     /**
      * Loads the Appointments into the table based on the start range and end range values which define the period of time
-     * to display the Appointments.
+     * to display the Appointments. The weeks/months next to the one being viewed are kept, so moving to one of them
+     * displays its Appointments straight away.
      */
     private void loadAppointments() {
-        // Clear the table and selection before loading/reloading Appointments into the table
-        appointmentTableView.getItems().clear();
+        // Clear the selection before loading/reloading Appointments into the table
         appointmentTableView.getSelectionModel().clearSelection();
         updateAppointmentButton.setVisible(false);
         deleteAppointmentButton.setVisible(false);
 
-        // Load the appointments
-        try{
-            String query = "SELECT * FROM appointments ORDER BY Start ASC";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            // Parse the information from the query and load them into the TableView
-            while(rs.next()) {
-                int appointmentID = rs.getInt("Appointment_ID");
-                String title = rs.getString("Title");
-                String description = rs.getString("Description");
-                String location = rs.getString("Location");
-                String type = rs.getString("Type");
-                String utcStartTimestamp = rs.getString("Start");
-                String utcEndTimestamp = rs.getString("End");
-                int customerID = rs.getInt("Customer_ID");
-                int userID = rs.getInt("User_ID");
-                int contactID = rs.getInt("Contact_ID");
-
-                Appointment tempAppointment = new Appointment(appointmentID, title, description, location,
-                        type, utcStartTimestamp, utcEndTimestamp, customerID, userID, contactID);
-
-
-                // Only add the Appointment to the display if it is within the range set
-                if( (tempAppointment.getUtcStartZDT().isEqual(startRange) || tempAppointment.getUtcStartZDT().isAfter(startRange)) &&
-                        (tempAppointment.getUtcEndZDT().isEqual(endRange) || tempAppointment.getUtcEndZDT().isBefore(endRange))) {
-                    appointmentTableView.getItems().add(tempAppointment);
-                }
+        // Load only the appointments within the range; the range is filtered by the database rather than in the table.
+        // Unless the range is kept, the query runs in the background. A range the user has already moved on from by the
+        // time it is loaded is kept but not displayed.
+        ZonedDateTime start = startRange;
+        ZonedDateTime end = endRange;
+        // The load is recorded as a Flight Recorder event, along with the navigation that caused it if there was one
+        UiEvents.Navigation navigation = pendingNavigation;
+        pendingNavigation = null;
+        UiEvents.DataLoad dataLoad = UiEvents.dataLoad("Appointments in range");
+        boolean kept = appointmentWindows.load(start, end, appointments -> {
+            if(!start.equals(startRange) || !end.equals(endRange)) {
+                return;
             }
+            loadingIndicator.setVisible(false);
+            if(appointments == null) {
+                return;
+            }
+
+            AppointmentTable.setAppointments(appointmentTableView, appointments);
+            dataLoad.finish(appointments.size());
+            StartupMetrics.calendarShown();
+            if(navigation != null) {
+                navigation.finish(start.toLocalDate().toString(), appointments.size());
+            }
+            prefetchAdjacentRanges();
+        });
+
+        // Clear the table while the range is being loaded
+        if(!kept) {
+            appointmentTableView.setItems(FXCollections.observableArrayList());
+            loadingIndicator.setVisible(true);
+        }
+    }
+
+    /**
+     * Loads the Appointments of the previous and next week/month in the background, computing their ranges the same way
+     * as decrementViewRange() and incrementViewRange() do.
+     */
+    private void prefetchAdjacentRanges() {
+        if(monthlyWeeklyToggleGroup.getSelectedToggle() == monthlyRadioButton) {
+            appointmentWindows.prefetch(startRange.plusMonths(1), endRange.plusMonths(1));
+            appointmentWindows.prefetch(startRange.minusMonths(1), endRange.minusMonths(1));
+        }
+        else if(monthlyWeeklyToggleGroup.getSelectedToggle() == weeklyRadioButton) {
+            appointmentWindows.prefetch(startRange.plusWeeks(1), endRange.plusWeeks(1));
+            appointmentWindows.prefetch(startRange.minusWeeks(1), endRange.minusWeeks(1));
+        }
+    }
+
+    /**
+     * Applies Appointments that were added, updated or deleted by any user to the Appointments in the table, and to the
+     * weeks/months kept next to it, row by row rather than reloading them. If changes may have been missed, the kept
+     * weeks/months are discarded and the one being viewed is reloaded.
+     *
+     * @param changes are the Appointments that changed, from the ChangeFeed.
+     */
+    private void applyChanges(ChangeFeed.Changes changes) {
+        if(changes.isReloadRequired()) {
+            appointmentWindows.clear();
+            loadAppointments();
+            return;
         }
-        catch(SQLException e) {
-            System.out.println("Error retrieving Appointment information from the database.");
+        appointmentWindows.applyChanges(changes);
+
+        // Hide the update/delete buttons if the selected Appointment is no longer displayed
+        if(appointmentTableView.getSelectionModel().getSelectedItem() == null) {
+            updateAppointmentButton.setVisible(false);
+            deleteAppointmentButton.setVisible(false);
         }
     }
 
@@ -198,6 +258,9 @@ public class MainController implements Initializable {
      * based on whether an Appointment has been selected from the table.
      */
     private void initializeTableView() {
+        // Clicking a column header sorts the Appointments by that column
+        AppointmentTable.enableSorting(appointmentTableView);
+
         // Lambda expression to handle the behavior of displaying the update/delete buttons only when an Appointment is selected.
         appointmentTableView.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if(newSelection != null) {
@@ -291,6 +354,7 @@ public class MainController implements Initializable {
 
             // Update the month label on the view and reload the appointments
             loadMonthYearLabel();
+            pendingNavigation = UiEvents.navigation("Next", "Month");
             loadAppointments();
         }
         else if(monthlyWeeklyToggleGroup.getSelectedToggle() == weeklyRadioButton) {
@@ -300,6 +364,7 @@ public class MainController implements Initializable {
 
             // Update the week label on the view and reload the appointments
             loadWeekRangeLabel();
+            pendingNavigation = UiEvents.navigation("Next", "Week");
             loadAppointments();
         }
     }
@@ -317,6 +382,7 @@ public class MainController implements Initializable {
 
             // Update the month label on the view and reload the appointments
             loadMonthYearLabel();
+            pendingNavigation = UiEvents.navigation("Previous", "Month");
             loadAppointments();
         }
         else if(monthlyWeeklyToggleGroup.getSelectedToggle() == weeklyRadioButton) {
@@ -326,79 +392,52 @@ public class MainController implements Initializable {
 
             // Update the week label on the view and reload the appointments
             loadWeekRangeLabel();
+            pendingNavigation = UiEvents.navigation("Previous", "Week");
             loadAppointments();
         }
     }
 
     /**
-     * Provides an alert when there is an appointment within 15 minutes of the user's log-in.
+     * Starts the appointment reminders when the user logs in. An alert is provided for each appointment within 15 minutes of
+     * the user's log-in, and for each appointment that comes within 15 minutes of starting while the user stays logged in.
      * If there are no appointments within 15 minutes of logging in, a message will indicate there are no upcoming appointments.
      */
     private void welcomeAlertDialog() {
         if(accessedViaLogin) {
-            LocalDateTime now = LocalDateTime.now();
-            ZonedDateTime nowZonedDateTime = now.atZone(ZoneId.systemDefault());
-            ZonedDateTime fifteenMinsLaterFromNow = nowZonedDateTime.plusMinutes(15);
-            boolean upcomingAppointment = false;
-
-            // Go through all appointments and generate an alert if there is an upcoming Appointment within 15 minutes of the user logging in.
-            try{
-                String query = "SELECT * FROM appointments";
-                Statement st = JDBC.connection.createStatement();
-                ResultSet rs = st.executeQuery(query);
-
-                while(rs.next()) {
-                    // Appointment details
-                    int appointmentID = rs.getInt("Appointment_ID");
-                    String title = rs.getString("Title");
-                    String description = rs.getString("Description");
-                    String location = rs.getString("Location");
-                    String type = rs.getString("Type");
-                    String utcStartTimestamp = rs.getString("Start");
-                    String utcEndTimestamp = rs.getString("End");
-                    int customerID = rs.getInt("Customer_ID");
-                    int userID = rs.getInt("User_ID");
-                    int contactID = rs.getInt("Contact_ID");
-
-                    Appointment tempAppointment = new Appointment(appointmentID, title, description, location,
-                            type, utcStartTimestamp, utcEndTimestamp, customerID, userID, contactID);
-
-                    ZonedDateTime utcApptStart = tempAppointment.getUtcStartZDT();
-
-                    // Generate an alert if there is an upcoming appointment within 15 minutes from logging in
-                    if( (utcApptStart.equals(nowZonedDateTime)) ||
-                            (utcApptStart.isAfter(nowZonedDateTime) && (utcApptStart.isBefore(fifteenMinsLaterFromNow))) ||
-                            (utcApptStart.isEqual(fifteenMinsLaterFromNow))) {
-                        // Convert the appointment time from UTC to local time and parse the information
-                        ZonedDateTime localApptStart = utcApptStart.withZoneSameInstant(ZoneId.systemDefault());
-                        String date = DateTimeFormatter.ofPattern("yyyy-MM-dd").format(localApptStart);
-                        String time = DateTimeFormatter.ofPattern("h:mm a").format(localApptStart);
-
-                        // Display the alert
-                        Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                        alert.setTitle("Upcoming Appointment");
-                        alert.setContentText("(Appointment ID: " + tempAppointment.getAppointmentID() + ") There is an upcoming appointment on " + date + " at " + time + ".");
-                        Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
-                        stage.setAlwaysOnTop(true);
-                        alert.show();
-
-                        // Flag that the alert was generated
-                        upcomingAppointment = true;
-                    }
-                }
-            }
-            catch(SQLException e) {
-                System.out.println("Error retrieving Appointment information from the database.");
-            }
-            //
-            if(!upcomingAppointment) {
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("No Upcoming Appointments");
-                alert.setContentText("There are no upcoming appointments within 15 minutes from now.");
-                Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
-                stage.setAlwaysOnTop(true);
-                alert.show();
-            }
+            ReminderScheduler.start(MainController::alertUpcomingAppointments);
+        }
+    }
+
+    /**
+     * Generates an alert for each of the Appointments starting within 15 minutes from now, or an alert indicating that there
+     * are no upcoming appointments.
+     *
+     * @param reminders are the reminders that have come due.
+     */
+    private static void alertUpcomingAppointments(List<ReminderScheduler.Reminder> reminders) {
+        // Generate an alert for each upcoming appointment within 15 minutes from now
+        for(ReminderScheduler.Reminder reminder : reminders) {
+            // Parse the appointment time, in local time
+            ZonedDateTime localApptStart = reminder.getLocalStartZDT();
+            String date = TimeCodec.dateFormatter.format(localApptStart);
+            String time = TimeCodec.timeFormatter.format(localApptStart);
+
+            // Display the alert
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Upcoming Appointment");
+            alert.setContentText("(Appointment ID: " + reminder.getAppointmentID() + ") There is an upcoming appointment on " + date + " at " + time + ".");
+            Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
+            stage.setAlwaysOnTop(true);
+            alert.show();
+        }
+
+        if(reminders.isEmpty()) {
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("No Upcoming Appointments");
+            alert.setContentText("There are no upcoming appointments within 15 minutes from now.");
+            Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
+            stage.setAlwaysOnTop(true);
+            alert.show();
         }
     }
 
@@ -408,18 +447,8 @@ public class MainController implements Initializable {
      */
     @FXML
     private void updateAppointment() throws IOException{
-        // Load the FXML file.
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/Scheduler/View_Controller/UpdateAppointmentController.fxml"));
-        UpdateAppointmentController controller = new UpdateAppointmentController(loggedUserID, selectedAppointment);
-        loader.setController(controller);
-        Parent root = loader.load();
-
-        // Close the current window and build the MainController scene to display the appointment calendar
-        closeCurrentWindow();
-        Scene scene = new Scene(root);
-        Stage stage = new Stage();
-        stage.setScene(scene);
-        stage.show();
+        // Load the page and display it in the application window
+        Navigator.show("UpdateAppointmentController.fxml", new UpdateAppointmentController(loggedUserID, selectedAppointment));
     }
 
     /**
@@ -427,147 +456,86 @@ public class MainController implements Initializable {
      */
     @FXML
     private void deleteAppointment() {
-        try {
-            // DB Query
-            String update = "DELETE FROM appointments WHERE Appointment_ID = " + selectedAppointment.getAppointmentID();
-            Statement st = JDBC.connection.createStatement();
-            st.executeUpdate(update);
-
-            // Reload the table after deleting the Appointment from the DB and hide the edit/delete buttons since there are no customers selected
-            loadAppointments();
+        Appointment deletedAppointment = selectedAppointment;
+
+        // DB Query, executed in the background
+        BackgroundLoader.run(() -> {
+            AppointmentDAO.deleteAppointment(deletedAppointment.getAppointmentID());
+            ReminderScheduler.refresh();
+            return deletedAppointment;
+        }, appointment -> {
+            // Remove the Appointment from the table by applying the change, rather than reloading the table, and hide the
+            // edit/delete buttons since there are no customers selected
+            ChangeFeed.pollNow();
             updateAppointmentButton.setVisible(false);
             deleteAppointmentButton.setVisible(false);
 
             // Generate a custom alert indicating that the Appointment was canceled
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle("Appointment Canceled");
-            alert.setContentText("(Appointment ID: " + selectedAppointment.getAppointmentID() + ") The " + selectedAppointment.getType() + " appointment has been canceled successfully.");
+            alert.setContentText("(Appointment ID: " + appointment.getAppointmentID() + ") The " + appointment.getType() + " appointment has been canceled successfully.");
             Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
             stage.setAlwaysOnTop(true);
             alert.show();
 
             // Record this deletion activity within the appointment_activity.txt file
-            recordAppointmentActivity();
-        }
-        catch(SQLException e) {
-            System.out.println("There was an error deleting the appointment from the database.");
-        }
+            recordAppointmentActivity(appointment);
+        }, "There was an error deleting the appointment from the database.");
     }
 
     /**
      * Records the delete action of the Appointment within the appointment_activity.txt file which is used for displaying a
      * report from within the main controller.
+     *
+     * @param appointment is the Appointment that was deleted.
      */
-    private void recordAppointmentActivity() {
-        FileOutputStream fileOutputStream = null;
-
-        try {
-            fileOutputStream = new FileOutputStream(new File("appointment_activity.txt"), true);
-
-            // Pieces to the activity log
-            String timestamp;
-            int appointmentId = selectedAppointment.getAppointmentID();
-            String appointmentTitle = selectedAppointment.getTitle();
+    private void recordAppointmentActivity(Appointment appointment) {
+        // Pieces to the activity log
+        String timestamp;
+        int appointmentId = appointment.getAppointmentID();
+        String appointmentTitle = appointment.getTitle();
 
-            // Retrieve the current timestamp in UTC
-            LocalDateTime now = LocalDateTime.now();
-            ZonedDateTime utcTime = now.atZone(ZoneId.of("UTC"));
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            timestamp = formatter.format(utcTime);
+        // Retrieve the current timestamp in UTC
+        timestamp = TimeCodec.databaseFormatter.format(LocalDateTime.now());
 
-            // Concatenate the pieces of the appointment activity that will be recorded in the text file
-            String record = timestamp + "," + appointmentId + "," + appointmentTitle + ",DELETED\n";
+        // Concatenate the pieces of the appointment activity that will be recorded in the text file
+        String record = timestamp + "," + appointmentId + "," + appointmentTitle + ",DELETED\n";
 
-            // Write to the text file
-            fileOutputStream.write(record.getBytes(StandardCharsets.UTF_8));
-        }
-        catch(FileNotFoundException e) {
-            System.out.println("appointment_activity.txt not found" + e);
-        }
-        catch(IOException e) {
-            System.out.println("Exception writing to appointment_activity.txt" + e);
-        }
-        finally {
-            // Close the file stream
-            try {
-                if(fileOutputStream != null) {
-                    fileOutputStream.close();
-                }
-            }
-            catch(IOException e) {
-                System.out.println("Error closing filestream: " + e);
-            }
-        }
+        // Queue the record to be written to the text file by the audit log's background writer
+        AuditLog.APPOINTMENT_ACTIVITY.append(record);
     }
 
-    /**
-     * Closes the current window. This method is called within returnToMainController() as a helper function.
-     */
-    private void closeCurrentWindow() {
-        Stage currentStage = (Stage)mainAnchorPane.getScene().getWindow();
-        currentStage.close();
-    }
 
     /**
-     * Closes the main page and switches to the controller where the user is prompted to fill out information to
+     * Switches to the controller where the user is prompted to fill out information to
      * add a new user.
      */
     @FXML
     private void switchToAddCustomerController() throws IOException {
-        // Load the FXML file.
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/Scheduler/View_Controller/AddCustomerController.fxml"));
-        AddCustomerController controller = new AddCustomerController(loggedUserID);
-        loader.setController(controller);
-        Parent root = loader.load();
-
-        // Close the current window and build the MainController scene to display the appointment calendar
-        closeCurrentWindow();
-        Scene scene = new Scene(root);
-        Stage stage = new Stage();
-        stage.setScene(scene);
-        stage.show();
+        // Load the page and display it in the application window
+        Navigator.show("AddCustomerController.fxml", new AddCustomerController(loggedUserID));
     }
 
 
 
     /**
-     * Closes the main page and switches to the controller where the user can view all the customers
+     * Switches to the controller where the user can view all the customers
      */
     @FXML
     private void switchToViewCustomerController() throws IOException {
-        // Load the FXML file.
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/Scheduler/View_Controller/ViewCustomerController.fxml"));
-        ViewCustomerController controller = new ViewCustomerController(loggedUserID);
-        loader.setController(controller);
-        Parent root = loader.load();
-
-        // Close the current window and display the View Customer
-        closeCurrentWindow();
-        Scene scene = new Scene(root);
-        Stage stage = new Stage();
-        stage.setScene(scene);
-        stage.show();
+        // Display the page in the application window, showing it again as it was left if it has been visited before
+        Navigator.showKept("ViewCustomerController.fxml", () -> new ViewCustomerController(loggedUserID));
     }
 
 
 
     /**
-     * Closes the main page and switches to the controller where the user can add a new appointment
+     * Switches to the controller where the user can add a new appointment
      */
     @FXML
     private void switchToAddAppointmentController() throws IOException {
-        // Load the FXML file.
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/Scheduler/View_Controller/AddAppointmentController.fxml"));
-        AddAppointmentController controller = new AddAppointmentController(loggedUserID);
-        loader.setController(controller);
-        Parent root = loader.load();
-
-        // Close the current window and display the scene to add a new Appointment
-        closeCurrentWindow();
-        Scene scene = new Scene(root);
-        Stage stage = new Stage();
-        stage.setScene(scene);
-        stage.show();
+        // Load the page and display it in the application window
+        Navigator.show("AddAppointmentController.fxml", new AddAppointmentController(loggedUserID));
     }
 
     /**
@@ -576,18 +544,8 @@ public class MainController implements Initializable {
      */
     @FXML
     private void switchToContactReportController() throws IOException {
-        // Load the FXML file.
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/Scheduler/View_Controller/ContactScheduleReport.fxml"));
-        ContactScheduleReport controller = new ContactScheduleReport();
-        loader.setController(controller);
-        Parent root = loader.load();
-
-        // Build the report scene and display it
-        Scene scene = new Scene(root);
-        Stage stage = new Stage();
-        stage.setScene(scene);
-        stage.setAlwaysOnTop(true);
-        stage.show();
+        // Open the page in a window of its own on top of the current page
+        Navigator.open("ContactScheduleReport.fxml", new ContactScheduleReport());
     }
 
     /**
@@ -596,18 +554,8 @@ public class MainController implements Initializable {
      */
     @FXML
     private void switchToTypeMonthReportController() throws IOException {
-        // Load the FXML file.
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/Scheduler/View_Controller/TypeMonthReport.fxml"));
-        TypeMonthReport controller = new TypeMonthReport();
-        loader.setController(controller);
-        Parent root = loader.load();
-
-        // Build the report scene and display it
-        Scene scene = new Scene(root);
-        Stage stage = new Stage();
-        stage.setScene(scene);
-        stage.setAlwaysOnTop(true);
-        stage.show();
+        // Open the page in a window of its own on top of the current page
+        Navigator.open("TypeMonthReport.fxml", new TypeMonthReport());
     }
 
     /**
@@ -616,17 +564,28 @@ public class MainController implements Initializable {
      */
     @FXML
     private void switchToAppointmentActivityController() throws IOException {
-        // Load the FXML file.
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/Scheduler/View_Controller/AppointmentActivityController.fxml"));
-        AppointmentActivityController controller = new AppointmentActivityController();
-        loader.setController(controller);
-        Parent root = loader.load();
-
-        // Build the report scene and display it
-        Scene scene = new Scene(root);
-        Stage stage = new Stage();
-        stage.setScene(scene);
-        stage.setAlwaysOnTop(true);
-        stage.show();
+        // Open the page in a window of its own on top of the current page
+        Navigator.open("AppointmentActivityController.fxml", new AppointmentActivityController());
+    }
+
+    /**
+     * Opens a diagnostics page on top of the current page that displays how long each database statement run by the
+     * application takes.
+     */
+    @FXML
+    private void switchToQueryDiagnosticsController() throws IOException {
+        // Open the page in a window of its own on top of the current page
+        Navigator.open("QueryDiagnosticsController.fxml", new QueryDiagnosticsController());
+    }
+
+    /**
+     * Exports the Appointments of the week/month being viewed to a CSV or iCalendar file chosen by the user.
+     */
+    @FXML
+    private void exportAppointments() {
+        ZonedDateTime start = startRange;
+        ZonedDateTime end = endRange;
+        ExportDialog.show(appointmentTableView, "appointments_" + start.toLocalDate(),
+                (format, file) -> AppointmentExporter.exportRange(start, end, format, file));
     }
 }
@@ -0,0 +1,131 @@
+/**
+ * This class switches the application between its pages. Every page is displayed in the one window created at start-up by
+ * replacing the root of its scene, rather than by closing the window and opening a new one.
+ *
+ * The pages a user keeps returning to (the Appointment calendar and the Customer list) are loaded from their FXML once and
+ * kept, along with their controllers, for the rest of the session. Returning to one of them shows the kept page again with
+ * the state the user left it in, such as the week/month being viewed, and only asks its controller to reload its rows.
+ * The forms are bound to the Customer/Appointment being added or updated, so a new one is loaded on every visit.
+ *
+ * @author Henry Trieu
+ */
+
+package Scheduler.View_Controller;
+
+import helper.UiEvents;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public abstract class Navigator {
+    private static final String viewDirectory = "/Scheduler/View_Controller/";
+
+    private static Stage stage; // The application window every page is displayed in
+    private static final Map<String, Parent> keptPages = new HashMap<>(); // Kept pages by their FXML file name
+    private static final Map<String, Object> keptControllers = new HashMap<>();
+
+    /**
+     * Implemented by the controllers of kept pages that need to refresh what they display when they are shown again.
+     */
+    public interface KeptPage {
+        /**
+         * Called on the JavaFX application thread each time the kept page is shown again.
+         */
+        void reshown();
+    }
+
+    /**
+     * Sets the window that the pages are displayed in. This must be called before any page is shown.
+     *
+     * @param primaryStage is the application window.
+     */
+    public static void start(Stage primaryStage) {
+        stage = primaryStage;
+    }
+
+    /**
+     * Loads a page from its FXML file and displays it in the application window.
+     *
+     * @param fxml is the name of the FXML file of the page, e.g. "AddCustomerController.fxml".
+     * @param controller is the controller of the page.
+     * @throws IOException if the FXML file could not be loaded.
+     */
+    public static void show(String fxml, Object controller) throws IOException {
+        UiEvents.SceneSwitch sceneSwitch = UiEvents.sceneSwitch(fxml);
+        display(load(fxml, controller));
+        sceneSwitch.finish(false);
+    }
+
+    /**
+     * Displays a page in the application window, loading it from its FXML file the first time and showing the same page
+     * again on later visits.
+     *
+     * @param fxml is the name of the FXML file of the page, e.g. "MainController.fxml".
+     * @param newController creates the controller of the page when the page is loaded for the first time.
+     * @throws IOException if the FXML file could not be loaded.
+     */
+    public static void showKept(String fxml, Supplier<?> newController) throws IOException {
+        UiEvents.SceneSwitch sceneSwitch = UiEvents.sceneSwitch(fxml);
+        Parent root = keptPages.get(fxml);
+        boolean kept = root != null;
+        if(!kept) {
+            Object controller = newController.get();
+            root = load(fxml, controller);
+            keptPages.put(fxml, root);
+            keptControllers.put(fxml, controller);
+        }
+
+        display(root);
+        if(kept && keptControllers.get(fxml) instanceof KeptPage) {
+            ((KeptPage) keptControllers.get(fxml)).reshown();
+        }
+        sceneSwitch.finish(kept);
+    }
+
+    /**
+     * Loads a page from its FXML file and opens it in a window of its own on top of the application window. This is used
+     * for the reports, which are viewed alongside the calendar.
+     *
+     * @param fxml is the name of the FXML file of the page, e.g. "TypeMonthReport.fxml".
+     * @param controller is the controller of the page.
+     * @throws IOException if the FXML file could not be loaded.
+     */
+    public static void open(String fxml, Object controller) throws IOException {
+        UiEvents.SceneSwitch sceneSwitch = UiEvents.sceneSwitch(fxml);
+        Stage window = new Stage();
+        window.setScene(new Scene(load(fxml, controller)));
+        window.setAlwaysOnTop(true);
+        window.show();
+        sceneSwitch.finish(false);
+    }
+
+    /**
+     * Loads the page described by an FXML file.
+     */
+    private static Parent load(String fxml, Object controller) throws IOException {
+        FXMLLoader loader = new FXMLLoader(Navigator.class.getResource(viewDirectory + fxml));
+        loader.setController(controller);
+        return loader.load();
+    }
+
+    /**
+     * Displays a page in the application window. The window's scene is created for the first page and then reused, with
+     * the window resized to fit each page.
+     */
+    private static void display(Parent root) {
+        if(stage.getScene() == null) {
+            stage.setScene(new Scene(root));
+        }
+        else {
+            stage.getScene().setRoot(root);
+        }
+        stage.sizeToScene();
+        stage.show();
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * This class displays how long the database statements run by the application take, grouped by statement, so the
+ * statements responsible for a slow screen can be found. Statements executed many times in a row (possible N+1 queries)
+ * are counted in their own column, and the metrics, along with the connection pool metrics, can be exported in the
+ * Prometheus text format.
+ *
+ * @author Henry Trieu
+ */
+
+package Scheduler.View_Controller;
+
+import helper.BackgroundLoader;
+import helper.ConnectionPool;
+import helper.JDBC;
+import helper.QueryMetrics;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.ResourceBundle;
+
+public class QueryDiagnosticsController implements Initializable {
+    private static final DateTimeFormatter sinceFormatter = DateTimeFormatter.ofPattern("h:mm:ss a");
+
+    // TableView and TableColumns
+    @FXML TableView<QueryMetrics.QueryStats> queryTableView;
+    @FXML TableColumn statementColumn;
+    @FXML TableColumn callsColumn;
+    @FXML TableColumn rowsPerCallColumn;
+    @FXML TableColumn totalColumn;
+    @FXML TableColumn meanColumn;
+    @FXML TableColumn p50Column;
+    @FXML TableColumn p95Column;
+    @FXML TableColumn p99Column;
+    @FXML TableColumn maxColumn;
+    @FXML TableColumn slowColumn;
+    @FXML TableColumn repeatedColumn;
+    @FXML TableColumn errorsColumn;
+
+    // Summary labels
+    @FXML Label poolLabel;
+    @FXML Label summaryLabel;
+
+    /**
+     * Initializes the table columns and displays the current metrics.
+     */
+    @Override
+    public void initialize(URL url, ResourceBundle resourceBundle) {
+        statementColumn.setCellValueFactory(new PropertyValueFactory<>("statement"));
+        callsColumn.setCellValueFactory(new PropertyValueFactory<>("calls"));
+        rowsPerCallColumn.setCellValueFactory(new PropertyValueFactory<>("rowsPerCall"));
+        totalColumn.setCellValueFactory(new PropertyValueFactory<>("totalMillis"));
+        meanColumn.setCellValueFactory(new PropertyValueFactory<>("meanMillis"));
+        p50Column.setCellValueFactory(new PropertyValueFactory<>("p50Millis"));
+        p95Column.setCellValueFactory(new PropertyValueFactory<>("p95Millis"));
+        p99Column.setCellValueFactory(new PropertyValueFactory<>("p99Millis"));
+        maxColumn.setCellValueFactory(new PropertyValueFactory<>("maxMillis"));
+        slowColumn.setCellValueFactory(new PropertyValueFactory<>("slowCalls"));
+        repeatedColumn.setCellValueFactory(new PropertyValueFactory<>("repeatBursts"));
+        errorsColumn.setCellValueFactory(new PropertyValueFactory<>("errors"));
+
+        refresh();
+    }
+
+    /**
+     * Displays the metrics recorded up to now.
+     */
+    @FXML
+    private void refresh() {
+        ConnectionPool pool = JDBC.getPool();
+        if(pool == null || pool.getQueryMetrics() == null) {
+            summaryLabel.setText("No statements have been timed.");
+            return;
+        }
+
+        QueryMetrics metrics = pool.getQueryMetrics();
+        List<QueryMetrics.QueryStats> statements = metrics.snapshot();
+        long calls = 0;
+        long slowCalls = 0;
+        long repeatBursts = 0;
+        for(QueryMetrics.QueryStats stats : statements) {
+            calls += stats.getCalls();
+            slowCalls += stats.getSlowCalls();
+            repeatBursts += stats.getRepeatBursts();
+        }
+
+        queryTableView.setItems(FXCollections.observableArrayList(statements));
+        summaryLabel.setText(calls + " executions of " + statements.size() + " statements since " +
+                sinceFormatter.format(metrics.getSince()) + ", " + slowCalls + " slow, " +
+                repeatBursts + " possible N+1");
+        poolLabel.setText("Connection pool: " + pool);
+    }
+
+    /**
+     * Discards the metrics recorded so far, so the statements run by the next action can be examined on their own.
+     */
+    @FXML
+    private void reset() {
+        ConnectionPool pool = JDBC.getPool();
+        if(pool != null && pool.getQueryMetrics() != null) {
+            pool.getQueryMetrics().reset();
+        }
+        refresh();
+    }
+
+    /**
+     * Writes the connection pool and statement metrics to a file chosen by the user, in the Prometheus text format.
+     */
+    @FXML
+    private void export() {
+        ConnectionPool pool = JDBC.getPool();
+        if(pool == null) {
+            return;
+        }
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setInitialFileName("query_metrics.prom");
+        File file = fileChooser.showSaveDialog(queryTableView.getScene().getWindow());
+        if(file == null) {
+            return;
+        }
+
+        // The metrics are captured now and written to the file in the background
+        String metrics = pool.exportMetrics();
+        BackgroundLoader.run(() -> Files.write(file.toPath(), metrics.getBytes(StandardCharsets.UTF_8)),
+                path -> summaryLabel.setText("Exported the metrics to " + path),
+                "Error exporting the query metrics.");
+    }
+}
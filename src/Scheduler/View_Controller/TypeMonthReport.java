@@ -1,133 +1,151 @@
 /**
  * This class generates a report displayed on a grid-like table based on the number of Appointments associated with each
- * particular discovered Type and also a report based on the number of Appointments occurring in each month.
+ * particular discovered Type and also a report based on the number of Appointments occurring in each month. Both reports
+ * are built from a single aggregated query and can be filtered to one year and/or one user.
  *
  * @author Henry Trieu
  */
 
 package Scheduler.View_Controller;
-import helper.JDBC;
+import DAO.AppointmentDAO;
+import DAO.ReferenceData;
+import Model.TypeMonthCounts;
+import Model.User;
+import helper.BackgroundLoader;
+import helper.UiEvents;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Insets;
 import javafx.scene.control.Label;
+import javafx.scene.control.MenuButton;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.layout.GridPane;
 
 import java.net.URL;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.ArrayList;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 public class TypeMonthReport implements Initializable {
     // FXML variables
     @FXML GridPane typeReportGridPane;
     @FXML GridPane monthReportGridPane;
+    @FXML MenuButton yearMenuButton;
+    @FXML MenuButton userMenuButton;
+    @FXML ProgressIndicator loadingIndicator;
+
+    // Appointment counts grouped by year, month, Type and user
+    private TypeMonthCounts counts = new TypeMonthCounts();
+
+    // Variables for tracking the selected filters, where null means that every year/user is included
+    private Integer selectedYear;
+    private Integer selectedUserID;
 
     /**
-     * Calls the methods to load the report by Type and load another report based on month.
+     * Retrieves the Appointment counts, populates the filter drop-down menus and calls the methods to load the report by
+     * Type and load another report based on month.
      */
     @Override
     public void initialize(URL url, ResourceBundle rb) {
-        loadTypeReport();
-        loadMonthReport();
+        // Retrieve the counts in the background and display the reports once they have been retrieved
+        UiEvents.DataLoad dataLoad = UiEvents.dataLoad("Type/Month counts");
+        new BackgroundLoader(loadingIndicator).load(AppointmentDAO::getTypeMonthCounts, loadedCounts -> {
+            counts = loadedCounts;
+            loadFilters();
+            loadTypeReport();
+            loadMonthReport();
+            dataLoad.finish(counts.size());
+        }, "Error retrieving Appointment information from the database.");
     }
 
-    // Loads the report filtered by type
-
     /**
-     * Discovers and counts the number of occurrences for each unique 'Type' of Appointment and displays it on the grid-like table
+     * Populates the year and user drop-down menus with the years and users that have Appointments. Selecting a filter
+     * reloads both reports from the counts that have already been retrieved.
      */
-    private void loadTypeReport() {
-        ArrayList<String> uniqueAppointmentTypes = new ArrayList<String>();
-        ArrayList<Integer> appointmentTypeQuantity = new ArrayList<Integer>();
-
-        // Query all appointments and add each unique "Type" to an ArrayList
-        try{
-            String query = "SELECT * FROM appointments ORDER BY Type ASC";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
-                if(!uniqueAppointmentTypes.isEmpty()) {
-                    if(!uniqueAppointmentTypes.contains(rs.getString("Type"))) {
-                        uniqueAppointmentTypes.add(rs.getString("Type"));
-                    }
-                }
-                else{
-                    uniqueAppointmentTypes.add(rs.getString("Type"));
+    private void loadFilters() {
+        yearMenuButton.getItems().add(createFilterMenuItem(yearMenuButton, "All Years", null, true));
+        for(int year : counts.getYears()) {
+            yearMenuButton.getItems().add(createFilterMenuItem(yearMenuButton, "" + year, year, true));
+        }
+
+        userMenuButton.getItems().add(createFilterMenuItem(userMenuButton, "All Users", null, false));
+        for(int userID : counts.getUserIDs()) {
+            String userName = "User " + userID;
+            try {
+                User user = ReferenceData.getUser(userID);
+                if(user != null) {
+                    userName = user.getName();
                 }
             }
+            catch(SQLException e) {
+                System.out.println("Error retrieving User information from the database.");
+            }
+            userMenuButton.getItems().add(createFilterMenuItem(userMenuButton, userName, userID, false));
         }
-        catch(SQLException e) {
-            System.out.println("Error retrieving Appointment information from the database.");
-        }
+    }
 
-        if(!uniqueAppointmentTypes.isEmpty()) {
-            // Iterate through the ArrayList and count the number of occurrences by Type
-            for(int i = 0; i < uniqueAppointmentTypes.size(); i++) {
-                try{
-                    String query = "SELECT COUNT(Type) AS quantity FROM appointments WHERE Type = '" + uniqueAppointmentTypes.get(i) + "';";
-                    Statement st = JDBC.connection.createStatement();
-                    ResultSet rs = st.executeQuery(query);
-
-                    while(rs.next()) {
-                        int quantity = rs.getInt("Quantity");
-                        appointmentTypeQuantity.add(quantity);
-                    }
+    /**
+     * Creates a drop-down menu item that applies a year or user filter to the reports when selected.
+     *
+     * @param menuButton is the drop-down menu that the item belongs to.
+     * @param text is the text displayed on the item.
+     * @param value is the year or user ID to filter by, or null to remove the filter.
+     * @param yearFilter is true if the item filters by year and false if it filters by user.
+     * @return the menu item.
+     */
+    private MenuItem createFilterMenuItem(MenuButton menuButton, String text, Integer value, boolean yearFilter) {
+        MenuItem menuItem = new MenuItem(text);
+        menuItem.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent actionEvent) {
+                menuButton.setText(text);
+                if(yearFilter) {
+                    selectedYear = value;
                 }
-                catch(SQLException e) {
-                    System.out.println("Error retrieving Appointment information from the database.");
+                else {
+                    selectedUserID = value;
                 }
-            }
-
-            // Iterate through both ArrayLists and add the Type and Quantity to the TableView
-            for(int i = 0; i < uniqueAppointmentTypes.size(); i++) {
-                Label type = new Label(uniqueAppointmentTypes.get(i));
-                type.setPadding(new Insets(5,5,5,5));
-                Label quantity = new Label("" + appointmentTypeQuantity.get(i));
-                quantity.setPadding(new Insets(5,5,5,5));
 
-                typeReportGridPane.add(type,0,i);
-                typeReportGridPane.add(quantity, 1, i);
+                // Remove the previous report values, keeping the grid lines, and display the filtered values
+                typeReportGridPane.getChildren().removeIf(node -> node instanceof Label);
+                monthReportGridPane.getChildren().removeIf(node -> node instanceof Label);
+                loadTypeReport();
+                loadMonthReport();
             }
-        }
+        });
+        return menuItem;
     }
 
     /**
-     * Discovers the number of Appointments occurring each month and displays it on the grid-like table.
+     * Displays the number of Appointments for each unique 'Type' of Appointment on the grid-like table.
      */
-    private void loadMonthReport() {
-        ArrayList<Integer> quantityByMonth = new ArrayList<Integer>();
-
-        // Initialize the ArrayList
-        for(int i = 0; i < 12; i++) {
-            quantityByMonth.add(0);
+    private void loadTypeReport() {
+        int row = 0;
+
+        // Add the Type and Quantity of each Type, in alphabetical order, to the table
+        for(Map.Entry<String, Integer> typeCount : counts.countByType(selectedYear, selectedUserID).entrySet()) {
+            Label type = new Label(typeCount.getKey());
+            type.setPadding(new Insets(5,5,5,5));
+            Label quantity = new Label("" + typeCount.getValue());
+            quantity.setPadding(new Insets(5,5,5,5));
+
+            typeReportGridPane.add(type,0,row);
+            typeReportGridPane.add(quantity, 1, row);
+            row++;
         }
+    }
 
-        // Iterate through all the appointments and record the number of appointments occurring in the month
-        try {
-            String query = "SELECT * FROM appointments ORDER BY Start ASC";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
-                String utcTimestamp = rs.getString("Start");
-
-                // Get month value of the appointment
-                int month = Integer.parseInt(utcTimestamp.substring(5,7));
-
-                // Increment the count by 1 on the month an appointment was found
-                quantityByMonth.set(month-1, (quantityByMonth.get(month-1) + 1));
-            }
-        }
-        catch(SQLException e) {
-            System.out.println("Error retrieving Appointment information from the database.");
-        }
+    /**
+     * Displays the number of Appointments occurring each month on the grid-like table.
+     */
+    private void loadMonthReport() {
+        int[] quantityByMonth = counts.countByMonth(selectedYear, selectedUserID);
 
-        // Iterate through the ArrayList and display the quantity by month
-        for(int i = 0; i < quantityByMonth.size(); i++) {
+        // Iterate through the months and display the quantity by month
+        for(int i = 0; i < quantityByMonth.length; i++) {
             String month = "";
 
             switch (i) {
@@ -157,7 +175,7 @@ public class TypeMonthReport implements Initializable {
                     break;
             }
             // Create the labels that will be added to the GridPane used to display the statistics on the report
-            int quantity = quantityByMonth.get(i);
+            int quantity = quantityByMonth[i];
             Label monthLabel = new Label(month);
             monthLabel.setPadding(new Insets(5,5,5,5));
             Label quantityLabel = new Label("" + quantity);
@@ -8,37 +8,36 @@
 
 package Scheduler.View_Controller;
 
+import DAO.AppointmentDAO;
+import DAO.CustomerRepository;
+import DAO.ReferenceData;
 import Model.Appointment;
-import helper.JDBC;
+import Model.Contact;
+import Model.User;
+import helper.AuditLog;
+import helper.BackgroundLoader;
+import helper.ReminderScheduler;
+import helper.TimeCodec;
+import helper.UiEvents;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Date;
+import java.util.Map;
 import java.util.ResourceBundle;
-import java.util.TimeZone;
+import java.util.function.BooleanSupplier;
 
 public class UpdateAppointmentController implements Initializable {
 
@@ -73,6 +72,9 @@ public class UpdateAppointmentController implements Initializable {
     private int endHour = -1;
     private int endMin = -1;
 
+    // Format of the times displayed on the start/end time menus
+    private static final DateTimeFormatter menuTimeFormatter = DateTimeFormatter.ofPattern("hh:mm a");
+
     // Variables for checking if a value has been provided
     private boolean customerSelected;
     private boolean contactSelected;
@@ -134,11 +136,11 @@ public class UpdateAppointmentController implements Initializable {
         // Preselect the original appointment time start and end values
         startHour = selectedAppointment.getLocalStartZDT().getHour();
         startMin = selectedAppointment.getLocalStartZDT().getMinute();
-        startTimeMenuButton.setText(DateTimeFormatter.ofPattern("hh:mm a").format(selectedAppointment.getLocalStartZDT()));
+        startTimeMenuButton.setText(menuTimeFormatter.format(selectedAppointment.getLocalStartZDT()));
 
         endHour = selectedAppointment.getLocalEndZDT().getHour();
         endMin = selectedAppointment.getLocalEndZDT().getMinute();
-        endTimeMenuButton.setText(DateTimeFormatter.ofPattern("hh:mm a").format(selectedAppointment.getLocalEndZDT()));
+        endTimeMenuButton.setText(menuTimeFormatter.format(selectedAppointment.getLocalEndZDT()));
     }
 
     /**
@@ -157,17 +159,12 @@ public class UpdateAppointmentController implements Initializable {
         customerMenuButton.setText(selectedAppointment.getCustomerName());
         customerSelected = true;
 
-        // Populate the options
-        try {
-            // DB Query
-            String query = "SELECT * FROM customers ORDER BY Customer_Name ASC";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
+        // Queries the customers in alphabetical order in the background and populates the options once they have been retrieved
+        BackgroundLoader.run(CustomerRepository::getCustomerNames, customerNames -> {
+            for(Map.Entry<Integer, String> customer : customerNames.entrySet()) {
                 // Create menu items for each customer
-                int customerID = Integer.parseInt(rs.getString(1));
-                MenuItem customerMenuItem = new MenuItem(rs.getString(2));
+                int customerID = customer.getKey();
+                MenuItem customerMenuItem = new MenuItem(customer.getValue());
 
                 // Set the onAction event for each Customer on the menu
                 customerMenuItem.setOnAction(new EventHandler<ActionEvent>() {
@@ -185,10 +182,7 @@ public class UpdateAppointmentController implements Initializable {
                 });
                 customerMenuButton.getItems().add(customerMenuItem);
             }
-        }
-        catch(SQLException e) {
-            System.out.println("Error fetching customers from the Database.");
-        }
+        }, "Error fetching customers from the Database.");
     }
 
     /**
@@ -201,16 +195,10 @@ public class UpdateAppointmentController implements Initializable {
 
         // Populate the options
         try {
-            // DB Query
-            String query = "SELECT * FROM contacts ORDER BY Contact_Name ASC";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            // Add the country options to the ArrayList
-            while(rs.next()) {
-                // Create Menu Items for each Contact found in the DB
-                int contactID = Integer.parseInt(rs.getString(1));
-                MenuItem contactMenuItem = new MenuItem(rs.getString(2));
+            // Create Menu Items for each cached Contact, in alphabetical order
+            for(Contact contact : ReferenceData.getContacts()) {
+                int contactID = contact.getID();
+                MenuItem contactMenuItem = new MenuItem(contact.getName());
 
                 // Set the onAction event for each of Contact on the menu
                 contactMenuItem.setOnAction(new EventHandler<ActionEvent>() {
@@ -326,48 +314,40 @@ public class UpdateAppointmentController implements Initializable {
             setAuditTimestamps();
 
             // Checks to make sure that the startTime is not in the past
-            if(selectedAppointment.startTimeInFuture()) {
+            if(validate("startTimeInFuture", selectedAppointment::startTimeInFuture)) {
                 // Checks to make sure that the endTime is after the startTime
-                if(selectedAppointment.endTimeAfterStartTime()) {
+                if(validate("endTimeAfterStartTime", selectedAppointment::endTimeAfterStartTime)) {
                     // Checks to make sure that the startTime and endTime are within business hours
-                    if (selectedAppointment.isWithinBusinessHours()) {
-                        if(!selectedAppointment.customerOverlappingAppt()) {
-                            // Add Appointment to DB
-                            try {
-                                // DB Query for adding Appointment
-                                String update = "UPDATE appointments SET " +
-                                        "Title = '" + selectedAppointment.getTitle() + "', " +
-                                        "Description = '" + selectedAppointment.getDescription() + "', " +
-                                        "Location = '" + selectedAppointment.getLocation() + "', " +
-                                        "Type = '" + selectedAppointment.getType() + "', " +
-                                        "Start = '" + selectedAppointment.getUtcStartTimestamp() + "', " +
-                                        "End = '" + selectedAppointment.getUtcEndTimestamp() + "', " +
-                                        "Last_Update = '" + selectedAppointment.getLastUpdate() + "', " +
-                                        "Last_Updated_By = '" + selectedAppointment.getLastUpdatedBy() + "', " +
-                                        "Customer_ID = '" + selectedAppointment.getCustomerID() + "', " +
-                                        "User_ID = '" + loggedUserID + "', " +
-                                        "Contact_ID = '" + selectedAppointment.getContactID() + "'"
-                                        + "WHERE APPOINTMENT_ID = " + selectedAppointment.getAppointmentID();
-                                Statement st = JDBC.connection.createStatement();
-                                st.executeUpdate(update);
-
+                    if(validate("isWithinBusinessHours", selectedAppointment::isWithinBusinessHours)) {
+                        // Update the Appointment in the DB. The customer's schedule is checked for conflicts and the
+                        // Appointment is saved in the background. The form is disabled until
+                        // the save finishes, so the Appointment cannot be changed or saved twice meanwhile.
+                        addApptAnchorPane.setDisable(true);
+                        BackgroundLoader.run(() -> {
+                            if(!validate("customerOverlappingAppt", () -> !selectedAppointment.customerOverlappingAppt())) {
+                                return false;
+                            }
+                            AppointmentDAO.updateAppointment(selectedAppointment);
+                            ReminderScheduler.refresh();
+                            return true;
+                        }, saved -> {
+                            if(saved) {
                                 // Record this update action within the appointment_activity.txt log
                                 recordAppointmentActivity();
 
                                 returnToMainController();
                             }
-                            catch(SQLException e) {
-                                System.out.println("Error updating Appointment in database.");
+                            else {
+                                addApptAnchorPane.setDisable(false);
+
+                                Alert alert = new Alert(Alert.AlertType.WARNING);
+                                alert.setTitle("Error");
+                                alert.setContentText("The requested appointment time are conflicting with the customer's appointment schedule.\n\nPlease provide a new time.");
+                                Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
+                                stage.setAlwaysOnTop(true);
+                                alert.show();
                             }
-                        }
-                        else {
-                            Alert alert = new Alert(Alert.AlertType.WARNING);
-                            alert.setTitle("Error");
-                            alert.setContentText("The requested appointment time are conflicting with the customer's appointment schedule.\n\nPlease provide a new time.");
-                            Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
-                            stage.setAlwaysOnTop(true);
-                            alert.show();
-                        }
+                        }, () -> addApptAnchorPane.setDisable(false), "Error updating Appointment in database.");
                     }
                     else {
                         Alert alert = new Alert(Alert.AlertType.WARNING);
@@ -407,6 +387,17 @@ public class UpdateAppointmentController implements Initializable {
         }
     }
 
+    /**
+     * Runs one of the checks the Appointment must pass before it is updated, recording it as a Flight Recorder event.
+     *
+     * @param check is the name of the check.
+     * @param validation performs the check.
+     * @return true if the check passed.
+     */
+    private boolean validate(String check, BooleanSupplier validation) {
+        return UiEvents.validate(check, selectedAppointment.getAppointmentID(), selectedAppointment.getCustomerID(), validation);
+    }
+
     /**
      * Checks to see if all the fields on the form has been filled. The forms checked only apply to form fields that the
      * end-user can provide a value to.
@@ -439,16 +430,16 @@ public class UpdateAppointmentController implements Initializable {
         selectedAppointment.setType(typeTextField.getText());
         selectedAppointment.setStartZDTs(year, month, day, startHour, startMin, 0);
         selectedAppointment.setEndZDTs(year, month, day, endHour, endMin, 0);
+        selectedAppointment.setUserID(loggedUserID);
     }
 
     /**
      * Sets the 'created' and 'updated' fields in the Appointment object
      */
     private void setAuditTimestamps() {
-        SimpleDateFormat utcFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        utcFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String now = TimeCodec.formatDatabase(Instant.now().getEpochSecond());
 
-        selectedAppointment.setLastUpdate(utcFormat.format(new Date()));
+        selectedAppointment.setLastUpdate(now);
         selectedAppointment.setLastUpdatedBy(loggedUsername);
     }
 
@@ -461,12 +452,9 @@ public class UpdateAppointmentController implements Initializable {
         String username = "";
 
         try {
-            String query = "SELECT User_Name, USER_ID FROM users WHERE User_ID = " + loggedUserID;
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
-                username = rs.getString(1);
+            User user = ReferenceData.getUser(loggedUserID);
+            if(user != null) {
+                username = user.getName();
             }
         }
         catch(SQLException e) {
@@ -481,76 +469,33 @@ public class UpdateAppointmentController implements Initializable {
      * report from within the main controller.
      */
     private void recordAppointmentActivity() {
-        FileOutputStream fileOutputStream = null;
-
-        try {
-            fileOutputStream = new FileOutputStream(new File("appointment_activity.txt"), true);
-
-            // Pieces to the activity log
-            String timestamp;
-            int appointmentId = selectedAppointment.getAppointmentID();
-            String appointmentTitle = selectedAppointment.getTitle();
+        // Pieces to the activity log
+        String timestamp;
+        int appointmentId = selectedAppointment.getAppointmentID();
+        String appointmentTitle = selectedAppointment.getTitle();
 
-            // Retrieve the current timestamp in UTC
-            LocalDateTime now = LocalDateTime.now();
-            ZonedDateTime utcTime = now.atZone(ZoneId.of("UTC"));
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            timestamp = formatter.format(utcTime);
+        // Retrieve the current timestamp in UTC
+        timestamp = TimeCodec.databaseFormatter.format(LocalDateTime.now());
 
-            // Concatenate the pieces of the appointment activity that will be recorded in the text file
-            String record = timestamp + "," + appointmentId + "," + appointmentTitle + ",UPDATED\n";
+        // Concatenate the pieces of the appointment activity that will be recorded in the text file
+        String record = timestamp + "," + appointmentId + "," + appointmentTitle + ",UPDATED\n";
 
-            // Write to the text file
-            fileOutputStream.write(record.getBytes(StandardCharsets.UTF_8));
-        }
-        catch(FileNotFoundException e) {
-            System.out.println("appointment_activity.txt not found" + e);
-        }
-        catch(IOException e) {
-            System.out.println("Exception writing to appointment_activity.txt" + e);
-        }
-        finally {
-            // Close the file stream
-            try {
-                if(fileOutputStream != null) {
-                    fileOutputStream.close();
-                }
-            }
-            catch(IOException e) {
-                System.out.println("Error closing filestream: " + e);
-            }
-        }
+        // Queue the record to be written to the text file by the audit log's background writer
+        AuditLog.APPOINTMENT_ACTIVITY.append(record);
     }
 
     /**
-     * Closes current scene and switches back to the main controller
+     * Switches back to the main controller
      */
     @FXML
     private void returnToMainController() {
         try {
-            // Load the FXML file.
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/Scheduler/View_Controller/MainController.fxml"));
-            MainController controller = new MainController(loggedUserID, false);
-            loader.setController(controller);
-            Parent root = loader.load();
-
-            // Close the current window and build the MainController scene to display the appointment calendar
-            closeCurrentWindow();
-            Scene scene = new Scene(root);
-            Stage stage = new Stage();
-            stage.setScene(scene);
-            stage.show();
+            // Display the page in the application window, showing it again as it was left if it has been visited before
+            Navigator.showKept("MainController.fxml", () -> new MainController(loggedUserID, false));
         }
         catch (IOException e) {
             System.out.println("Error switching back to Main Controller.");
         }
     }
 
-    /**
-     * Closes the current window. This method is called within returnToMainController() as a helper function.
-     */
-    private void closeCurrentWindow() {
-        Stage currentStage = (Stage)addApptAnchorPane.getScene().getWindow();
-        currentStage.close();
-    }
 }
@@ -7,15 +7,18 @@
  */
 
 package Scheduler.View_Controller;
+import DAO.CustomerRepository;
+import DAO.ReferenceData;
+import Model.Country;
 import Model.Customer;
-import helper.JDBC;
+import Model.Division;
+import Model.User;
+import helper.BackgroundLoader;
+import helper.TimeCodec;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.MenuButton;
 import javafx.scene.control.MenuItem;
@@ -25,14 +28,9 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.net.URL;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
+import java.time.Instant;
 import java.util.ResourceBundle;
-import java.util.TimeZone;
 
 public class UpdateCustomerController implements Initializable {
     @FXML AnchorPane updateCustAnchorPane;
@@ -77,7 +75,10 @@ public class UpdateCustomerController implements Initializable {
      */
     public UpdateCustomerController(Customer selectedCustomer, int loggedUserID) {
         this.loggedUserID = loggedUserID;
-        this.updatedCustomer = selectedCustomer;
+
+        // The form edits a copy of the Customer, since the selected Customer is the one displayed from the customer cache
+        this.updatedCustomer = new Customer(selectedCustomer.getID(), selectedCustomer.getName(), selectedCustomer.getAddress(),
+                selectedCustomer.getPostalCode(), selectedCustomer.getPhoneNumber(), selectedCustomer.getDivisionID());
     }
 
     /**
@@ -99,23 +100,17 @@ public class UpdateCustomerController implements Initializable {
      */
     private void prepopulateCountryOptions() {
         try {
-            ArrayList<String> countryNames = new ArrayList<String>();
-
-            // DB Query
-            String query = "SELECT Country FROM countries";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            // Add the country options to the ArrayList
-            while(rs.next()) {
-                // Create Menu Items for each Country found in the DB
-                MenuItem menuItem = new MenuItem(rs.getString("Country"));
+            // Add the cached country options to the menu
+            for(Country country : ReferenceData.getCountries()) {
+                // Create Menu Items for each Country
+                MenuItem menuItem = new MenuItem(country.getName());
 
                 // Create the different onAction events based off country selection
                 menuItem.setOnAction(new EventHandler<ActionEvent>() {
                     @Override
                     public void handle(ActionEvent actionEvent) {
-                        updatedCustomer.setCountryName(menuItem.getText());
+                        updatedCustomer.setCountryName(country.getName());
+                        updatedCustomer.setCountryID(country.getID());
                         countryMenu.setText(menuItem.getText());
 
                         // Reset the division selection when a new country is selected
@@ -124,21 +119,6 @@ public class UpdateCustomerController implements Initializable {
                         divisionMenu.getItems().clear();
                         updatedCustomer.setDivisionID(0);
 
-                        // Get the country ID that will be used for pre-populating the division selection
-                        try {
-                            // DB Query
-                            String query = "SELECT Country_ID FROM countries WHERE Country = '" + updatedCustomer.getCountryName() + "'";
-                            Statement st = JDBC.connection.createStatement();
-                            ResultSet rs = st.executeQuery(query);
-
-                            while(rs.next()) {
-                                updatedCustomer.setCountryID(rs.getInt("Country_ID"));
-                            }
-                        }
-                        catch(SQLException e) {
-                            System.out.println("Error fetching countries from the database.");
-                        }
-
                         prepopulateDivisionOptions(updatedCustomer.getCountryID());
                     }
                 });
@@ -154,38 +134,19 @@ public class UpdateCustomerController implements Initializable {
      * Pre-populates State and Division options based off the country selection
      */
     private void prepopulateDivisionOptions(int id) {
-        // Query all the first level divisions from the DB
         try {
-            // DB Query
-            String query = "SELECT Division FROM first_level_divisions WHERE Country_ID = '" + updatedCustomer.getCountryID() + "'";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            // Add the division options to the menu
-            while(rs.next()) {
-                MenuItem menuItem = new MenuItem(rs.getString(1));
+            // Add the cached division options of the country to the menu
+            for(Division division : ReferenceData.getDivisions(id)) {
+                MenuItem menuItem = new MenuItem(division.getName());
 
                 // Set the onAction event
                 menuItem.setOnAction(new EventHandler<ActionEvent>() {
                     @Override
                     public void handle(ActionEvent actionEvent) {
-                        try {
-                            // Update GUI and set values
-                            String divisionName = menuItem.getText();
-                            divisionMenu.setText(divisionName);
-
-                            // DB Query
-                            String query = "SELECT Division_ID FROM first_level_divisions WHERE Division = '" + divisionName + "'";
-                            Statement st = JDBC.connection.createStatement();
-                            ResultSet rs = st.executeQuery(query);
-
-                            while(rs.next()) {
-                                updatedCustomer.setDivisionID(rs.getInt("Division_ID"));
-                            }
-                        }
-                        catch(SQLException e) {
-                            System.out.println("Error retrieving the Division_ID value from the database.");
-                        }
+                        // Update GUI and set values
+                        divisionMenu.setText(division.getName());
+                        updatedCustomer.setDivisionName(division.getName());
+                        updatedCustomer.setDivisionID(division.getID());
                     }
                 });
 
@@ -211,26 +172,16 @@ public class UpdateCustomerController implements Initializable {
             setAuditTimestamps();
 
             // Update the customer in the DB
-            try {
-                // DB Query to update the existing customer record
-                String update = "UPDATE customers SET " +
-                        "Customer_Name = " + "'" + updatedCustomer.getName() + "', " +
-                        "Address = " + "'" + updatedCustomer.getAddress() + "', " +
-                        "Postal_Code = " + "'" + updatedCustomer.getPostalCode() + "', " +
-                        "Phone = " + "'" + updatedCustomer.getPhoneNumber() + "', " +
-                        "Last_Update = " + "'" + updatedCustomer.getLastUpdate() + "', " +
-                        "Last_Updated_By = " + "'" + updatedCustomer.getLastUpdatedBy() + "', " +
-                        "Division_ID = " + "'" + updatedCustomer.getDivisionID() + "'" +
-                        "WHERE Customer_ID = " + updatedCustomer.getID();
-                Statement st = JDBC.connection.createStatement();
-                st.executeUpdate(update);
-
+            // DB Query to update the existing customer record
+            // The form is disabled until the save finishes, so the Customer cannot be changed or saved twice meanwhile
+            updateCustAnchorPane.setDisable(true);
+            BackgroundLoader.run(() -> {
+                CustomerRepository.update(updatedCustomer);
+                return updatedCustomer;
+            }, customer -> {
                 // Return to the ViewCustomerController after saving the new customer to the database
                 switchToViewCustomerController();
-            }
-            catch(SQLException e) {
-                System.out.println("Error adding customer to database.");
-            }
+            }, () -> updateCustAnchorPane.setDisable(false), "Error adding customer to database.");
         }
         else {
             Alert alert = new Alert(Alert.AlertType.WARNING);
@@ -252,12 +203,9 @@ public class UpdateCustomerController implements Initializable {
         String username = "";
 
         try {
-            String query = "SELECT User_Name FROM users WHERE User_ID = " + loggedUserID;
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            while(rs.next()) {
-                username = rs.getString("User_Name");
+            User user = ReferenceData.getUser(loggedUserID);
+            if(user != null) {
+                username = user.getName();
             }
         }
         catch (SQLException e) {
@@ -300,43 +248,25 @@ public class UpdateCustomerController implements Initializable {
      * Sets the 'created' and 'updated' fields in the Customer object
      */
     private void setAuditTimestamps() {
-        SimpleDateFormat utcFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        utcFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String now = TimeCodec.formatDatabase(Instant.now().getEpochSecond());
 
-        updatedCustomer.setLastUpdate(utcFormat.format(new Date()));
+        updatedCustomer.setLastUpdate(now);
         updatedCustomer.setLastUpdatedBy(loggedUsername);
 
     }
 
     /**
-     * Closes current scene and switches back to the main controller
+     * Switches back to the main controller
      */
     @FXML
     private void switchToViewCustomerController() {
         try {
-            // Load the FXML file.
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/Scheduler/View_Controller/ViewCustomerController.fxml"));
-            ViewCustomerController controller = new ViewCustomerController(loggedUserID);
-            loader.setController(controller);
-            Parent root = loader.load();
-
-            // Close the current window and build the MainController scene to display the appointment calendar
-            closeCurrentWindow();
-            Scene scene = new Scene(root);
-            Stage stage = new Stage();
-            stage.setScene(scene);
-            stage.show();
+            // Display the page in the application window, showing it again as it was left if it has been visited before
+            Navigator.showKept("ViewCustomerController.fxml", () -> new ViewCustomerController(loggedUserID));
         }
         catch(IOException e) {
             System.out.println("Error switching back to ViewCustomer Controller");
         }
     }
 
-    /**
-     * Closes the current window. This method is called within returnToMainController() as a helper function.
-     */
-    private void closeCurrentWindow() {
-        Stage currentStage = (Stage)updateCustAnchorPane.getScene().getWindow();
-        currentStage.close();
-    }
 }
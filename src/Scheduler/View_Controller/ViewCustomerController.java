@@ -6,29 +6,26 @@
  */
 
 package Scheduler.View_Controller;
+import DAO.CustomerRepository;
 import Model.Customer;
-import helper.JDBC;
+import helper.AppointmentExporter;
+import helper.BackgroundLoader;
+import helper.UiEvents;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.AnchorPane;
-import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.net.URL;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ResourceBundle;
 
-public class ViewCustomerController implements Initializable {
+public class ViewCustomerController implements Initializable, Navigator.KeptPage {
     // AnchorPane
     @FXML AnchorPane viewCustomerAnchorPane;
 
@@ -43,12 +40,18 @@ public class ViewCustomerController implements Initializable {
     @FXML TableColumn phoneNumberColumn;
     @FXML TableColumn divisionColumn;
 
+    // Loading indicator displayed while the Customers are being retrieved
+    @FXML ProgressIndicator loadingIndicator;
+
     // Buttons
     @FXML Button editButton;
     @FXML Button deleteButton;
+    @FXML Button exportButton;
     @FXML Button exitButton;
 
     private Customer selectedCustomer;
+    private BackgroundLoader customerLoader;
+    private long loadedVersion = -1; // Version of the customer cache that the table was last loaded from
 
     // Variable for tracking the user logged in
     private final int loggedUserID;
@@ -58,13 +61,31 @@ public class ViewCustomerController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle rb) {
+        customerLoader = new BackgroundLoader(loadingIndicator);
         initializeTableColumns();
         loadCustomers();
         initializeTableViewListener();
 
-        // Edit and Delete buttons are only visible when a change is made to a customer record
+        // Edit, Delete and Export buttons are only visible when a change is made to a customer record
+        editButton.setVisible(false);
+        deleteButton.setVisible(false);
+        exportButton.setVisible(false);
+    }
+
+    /**
+     * Reloads the Customers when the user returns to this page if they have been added or updated on the page the user
+     * returns from, which is known from the version of the customer cache, or if the cache has expired so changes made by
+     * other users are picked up. The selection is cleared either way, along with the buttons that act on it.
+     */
+    @Override
+    public void reshown() {
+        customerTableView.getSelectionModel().clearSelection();
         editButton.setVisible(false);
         deleteButton.setVisible(false);
+        exportButton.setVisible(false);
+        if(CustomerRepository.getVersion() != loadedVersion || CustomerRepository.isExpired()) {
+            loadCustomers();
+        }
     }
 
     public ViewCustomerController(int loggedUserID) {
@@ -80,6 +101,7 @@ public class ViewCustomerController implements Initializable {
                 selectedCustomer = customerTableView.getSelectionModel().getSelectedItem();
                 editButton.setVisible(true);
                 deleteButton.setVisible(true);
+                exportButton.setVisible(true);
             }
         });
     }
@@ -97,37 +119,25 @@ public class ViewCustomerController implements Initializable {
     }
 
     /**
-     * Fetches all the customers from the DB and loads it into the TableView
+     * Fetches all the customers from the customer cache, which reads them from the DB the first time, and loads them into
+     * the TableView
      */
     private void loadCustomers() {
         // Clear the table and selection before loading/reloading customers into the table
         customerTableView.getItems().clear();
         customerTableView.getSelectionModel().clearSelection();
         deleteButton.setVisible(false);
-
-        // Fetch all the customers
-        try {
-            // DB Query
-            String query = "SELECT * FROM customers";
-            Statement st = JDBC.connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
-
-            // Fetch each customer and add them as an object to the TableView
-            while (rs.next()) {
-                int ID = rs.getInt("Customer_ID");
-                String name = rs.getString("Customer_Name");
-                String address = rs.getString("Address");
-                String postalCode = rs.getString("Postal_Code");
-                String phoneNumber = rs.getString("Phone");
-                int divisionID = rs.getInt("Division_ID");
-
-                Customer tempCustomer = new Customer(ID, name, address, postalCode, phoneNumber, divisionID);
-
-                customerTableView.getItems().add(tempCustomer);
-            }
-        } catch (SQLException e) {
-            System.out.println("Error fetching customers from database.");
-        }
+        exportButton.setVisible(false);
+
+        // Fetch all the customers in the background and load them into the TableView once they have been retrieved. The
+        // version is read first, so a change made while loading causes another reload rather than being missed.
+        long version = CustomerRepository.getVersion();
+        UiEvents.DataLoad dataLoad = UiEvents.dataLoad("Customers");
+        customerLoader.load(CustomerRepository::getCustomers, customers -> {
+            customerTableView.getItems().addAll(customers);
+            loadedVersion = version;
+            dataLoad.finish(customers.size());
+        }, "Error fetching customers from database.");
     }
 
     /**
@@ -135,84 +145,74 @@ public class ViewCustomerController implements Initializable {
      */
     @FXML
     private void deleteCustomer() {
-        // Only delete the customer if the customer does not have an appointment
-        if(!selectedCustomer.hasAppointments()) {
-            try {
-                // DB Query
-                String update = "DELETE FROM customers WHERE Customer_ID = " + selectedCustomer.getID();
-                Statement st = JDBC.connection.createStatement();
-                st.executeUpdate(update);
-
-                // Re-load the table after deleting the customer from the DB and hide the edit button since there is no
-                // customer selected
-                loadCustomers();
+        Customer customer = selectedCustomer;
+
+        // Only delete the customer if the customer does not have an appointment. The check and the deletion are performed
+        // in the background.
+        BackgroundLoader.run(() -> {
+            if(customer.hasAppointments()) {
+                return false;
+            }
+            CustomerRepository.delete(customer.getID());
+            return true;
+        }, deleted -> {
+            if(deleted) {
+                // Remove the deleted customer from the table rather than re-loading every customer, and hide the edit and
+                // delete buttons since there is no customer selected
+                customerTableView.getItems().remove(customer);
+                customerTableView.getSelectionModel().clearSelection();
+                if(loadedVersion == CustomerRepository.getVersion() - 1) {
+                    loadedVersion = CustomerRepository.getVersion();
+                }
                 editButton.setVisible(false);
+                deleteButton.setVisible(false);
+                exportButton.setVisible(false);
 
                 // Display a custom message to confirm successful deletion
                 Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
                 alert.setTitle("Customer Deleted");
-                alert.setContentText(selectedCustomer.getName() + " has been deleted successfully.");
+                alert.setContentText(customer.getName() + " has been deleted successfully.");
                 alert.show();
             }
-            catch(SQLException e) {
-                System.out.println("Error deleting record from database");
+            // Display an error letting the user know that the associated customer has existing appointments
+            else {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Error Deleting Customer");
+                alert.setContentText(customer.getName() + " could not be deleted because the customer has existing appointments.\n\n" +
+                        "Please remove all existing appointments and try again.");
+
+                alert.show();
             }
-        }
-        // Display an error letting the user know that the associated customer has existing appointments
-        else {
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setTitle("Error Deleting Customer");
-            alert.setContentText(selectedCustomer.getName() + " could not be deleted because the customer has existing appointments.\n\n" +
-                    "Please remove all existing appointments and try again.");
-
-            alert.show();
-        }
+        }, "Error deleting record from database");
     }
 
     /**
-     * Closes the page and switches to the UpdateCustomerController screen where the customer's information can be updated
+     * Exports the Appointments of the selected Customer to a CSV or iCalendar file chosen by the user.
      */
     @FXML
-    private void switchToUpdateCustomerController() throws IOException {
-        // Load the FXML file.
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/Scheduler/View_Controller/UpdateCustomerController.fxml"));
-        UpdateCustomerController controller = new UpdateCustomerController(selectedCustomer, loggedUserID);
-        loader.setController(controller);
-        Parent root = loader.load();
-
-        // Close the current window and build the UpdateCustomerController scene
-        closeCurrentWindow();
-        Scene scene = new Scene(root);
-        Stage stage = new Stage();
-        stage.setScene(scene);
-        stage.show();
+    private void exportCustomerAppointments() {
+        int customerID = selectedCustomer.getID();
+        ExportDialog.show(customerTableView, "customer_" + customerID + "_appointments",
+                (format, file) -> AppointmentExporter.exportCustomer(customerID, format, file));
     }
 
-
     /**
-     * Closes current scene and switches back to the main controller
+     * Switches to the UpdateCustomerController screen where the customer's information can be updated
      */
     @FXML
-    private void switchToMainController() throws IOException {
-        // Load the FXML file.
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/Scheduler/View_Controller/MainController.fxml"));
-        MainController controller = new MainController(loggedUserID, false);
-        loader.setController(controller);
-        Parent root = loader.load();
-
-        // Close the current window and build the MainController scene to display the appointment calendar
-        closeCurrentWindow();
-        Scene scene = new Scene(root);
-        Stage stage = new Stage();
-        stage.setScene(scene);
-        stage.show();
+    private void switchToUpdateCustomerController() throws IOException {
+        // Load the page and display it in the application window
+        Navigator.show("UpdateCustomerController.fxml", new UpdateCustomerController(selectedCustomer, loggedUserID));
     }
 
+
     /**
-     * Closes the current window. This method is called within returnToMainController() as a helper function.
+     * Switches back to the main controller
      */
-    private void closeCurrentWindow() {
-        Stage currentStage = (Stage)viewCustomerAnchorPane.getScene().getWindow();
-        currentStage.close();
+    @FXML
+    private void switchToMainController() throws IOException {
+        // Display the page in the application window, showing it again as it was left if it has been visited before
+        Navigator.showKept("MainController.fxml", () -> new MainController(loggedUserID, false));
     }
+
 }
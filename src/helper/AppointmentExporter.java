@@ -0,0 +1,324 @@
+package helper;
+
+import DAO.AppointmentDAO;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+
+/**
+ * Exports Appointments to a CSV file or an iCalendar (.ics) file, for a range of time, a Contact or a Customer.
+ *
+ * Appointments are streamed from the database a batch of rows at a time (see AppointmentDAO.stream) and each row is
+ * written to the file as soon as it is read, through a ChannelWriter, without building an Appointment object. An export
+ * therefore uses the same small amount of memory whether it holds a hundred Appointments or ten million. The file is
+ * written under a temporary name and moved into place once it is complete, so a failed export never leaves a partial
+ * file behind.
+ */
+public abstract class AppointmentExporter {
+
+    /**
+     * The file formats that Appointments can be exported to.
+     */
+    public enum Format {
+        CSV("csv"),
+        ICS("ics");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * @return the file name extension of the format, without the dot.
+         */
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Exports the Appointments within a range, as displayed on the calendar.
+     *
+     * @param startRange is the beginning of the range, in any timezone.
+     * @param endRange is the end of the range, in any timezone.
+     * @param format is the file format to export to.
+     * @param file is the file to write, which is replaced if it exists.
+     * @return the number of Appointments exported.
+     * @throws SQLException if the Appointments could not be retrieved.
+     * @throws IOException if the file could not be written.
+     */
+    public static long exportRange(ZonedDateTime startRange, ZonedDateTime endRange, Format format, Path file) throws SQLException, IOException {
+        return export(format, file, sink -> AppointmentDAO.streamAppointmentsInRange(startRange, endRange, sink));
+    }
+
+    /**
+     * Exports the Appointments that a Contact is attending.
+     *
+     * @param contactID is the unique ID of the Contact.
+     * @param format is the file format to export to.
+     * @param file is the file to write, which is replaced if it exists.
+     * @return the number of Appointments exported.
+     * @throws SQLException if the Appointments could not be retrieved.
+     * @throws IOException if the file could not be written.
+     */
+    public static long exportContact(int contactID, Format format, Path file) throws SQLException, IOException {
+        return export(format, file, sink -> AppointmentDAO.streamAppointmentsByContact(contactID, sink));
+    }
+
+    /**
+     * Exports the Appointments that a Customer is attending.
+     *
+     * @param customerID is the unique ID of the Customer.
+     * @param format is the file format to export to.
+     * @param file is the file to write, which is replaced if it exists.
+     * @return the number of Appointments exported.
+     * @throws SQLException if the Appointments could not be retrieved.
+     * @throws IOException if the file could not be written.
+     */
+    public static long exportCustomer(int customerID, Format format, Path file) throws SQLException, IOException {
+        return export(format, file, sink -> AppointmentDAO.streamAppointmentsByCustomer(customerID, sink));
+    }
+
+    /**
+     * Streams Appointments into a temporary file beside the target, then moves it over the target.
+     */
+    private static long export(Format format, Path file, Query query) throws SQLException, IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        long rows;
+
+        try(ChannelWriter writer = new ChannelWriter(FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            FileSink sink = format == Format.CSV ? new CsvSink(writer) : new IcsSink(writer);
+            sink.begin();
+            rows = query.run(sink);
+            sink.end();
+        }
+        catch(SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    /**
+     * One of the streaming queries of AppointmentDAO.
+     */
+    private interface Query {
+        long run(AppointmentDAO.RowSink sink) throws SQLException, IOException;
+    }
+
+    /**
+     * Writes streamed Appointments in a file format, with whatever the format needs before the first row and after the
+     * last.
+     */
+    private abstract static class FileSink implements AppointmentDAO.RowSink {
+        final ChannelWriter writer;
+
+        FileSink(ChannelWriter writer) {
+            this.writer = writer;
+        }
+
+        abstract void begin() throws IOException;
+
+        abstract void end() throws IOException;
+    }
+
+    /**
+     * Writes one line per Appointment, following RFC 4180. Times are written in UTC in the form used by the database.
+     */
+    private static class CsvSink extends FileSink {
+        CsvSink(ChannelWriter writer) {
+            super(writer);
+        }
+
+        @Override
+        void begin() throws IOException {
+            writer.append("Appointment_ID,Title,Description,Location,Type,Start_UTC,End_UTC,Customer_ID,Customer_Name,User_ID,Contact_ID,Contact_Name\r\n");
+        }
+
+        @Override
+        public void row(int appointmentID, String title, String description, String location, String type, long utcStartEpochSecond,
+                        long utcEndEpochSecond, int customerID, String customerName, int userID, int contactID, String contactName) throws IOException {
+            writer.append(appointmentID).append(',');
+            field(title).append(',');
+            field(description).append(',');
+            field(location).append(',');
+            field(type).append(',');
+            writer.append(TimeCodec.formatDatabase(utcStartEpochSecond)).append(',');
+            writer.append(TimeCodec.formatDatabase(utcEndEpochSecond)).append(',');
+            writer.append(customerID).append(',');
+            field(customerName).append(',');
+            writer.append(userID).append(',');
+            writer.append(contactID).append(',');
+            field(contactName).append("\r\n");
+        }
+
+        @Override
+        void end() {
+        }
+
+        /**
+         * Writes a value, enclosed in double quotes (with its own double quotes doubled) if it contains a comma, a double
+         * quote or a line break.
+         */
+        private ChannelWriter field(String value) throws IOException {
+            if(value == null) {
+                return writer;
+            }
+
+            boolean quoted = false;
+            for(int i = 0; i < value.length() && !quoted; i++) {
+                char c = value.charAt(i);
+                quoted = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if(!quoted) {
+                return writer.append(value);
+            }
+
+            writer.append('"');
+            for(int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if(c == '"') {
+                    writer.append('"');
+                }
+                writer.append(c);
+            }
+            return writer.append('"');
+        }
+    }
+
+    /**
+     * Writes one VEVENT per Appointment in a single VCALENDAR, following RFC 5545. Times are written in UTC, text values
+     * are escaped, and lines longer than 75 octets are folded.
+     */
+    private static class IcsSink extends FileSink {
+        private static final int maxLineOctets = 75;
+
+        private final String timestamp = icsTime(Instant.now().getEpochSecond()); // When the export was created
+        private int lineOctets = 0;
+
+        IcsSink(ChannelWriter writer) {
+            super(writer);
+        }
+
+        @Override
+        void begin() throws IOException {
+            writer.append("BEGIN:VCALENDAR\r\n");
+            writer.append("VERSION:2.0\r\n");
+            writer.append("PRODID:-//Scheduler//Appointment Export//EN\r\n");
+            writer.append("CALSCALE:GREGORIAN\r\n");
+        }
+
+        @Override
+        public void row(int appointmentID, String title, String description, String location, String type, long utcStartEpochSecond,
+                        long utcEndEpochSecond, int customerID, String customerName, int userID, int contactID, String contactName) throws IOException {
+            writer.append("BEGIN:VEVENT\r\n");
+            writer.append("UID:appointment-").append(appointmentID).append("@scheduler\r\n");
+            writer.append("DTSTAMP:").append(timestamp).append("\r\n");
+            writer.append("DTSTART:").append(icsTime(utcStartEpochSecond)).append("\r\n");
+            writer.append("DTEND:").append(icsTime(utcEndEpochSecond)).append("\r\n");
+            property("SUMMARY", title);
+            property("DESCRIPTION", description);
+            property("LOCATION", location);
+            property("CATEGORIES", type);
+            property("CONTACT", contactName);
+            property("X-SCHEDULER-CUSTOMER", customerName);
+            writer.append("END:VEVENT\r\n");
+        }
+
+        @Override
+        void end() throws IOException {
+            writer.append("END:VCALENDAR\r\n");
+        }
+
+        /**
+         * Writes a text property, escaping backslashes, semicolons, commas and line breaks in its value. Properties
+         * without a value are left out.
+         */
+        private void property(String name, String value) throws IOException {
+            if(value == null || value.isEmpty()) {
+                return;
+            }
+
+            writer.append(name).append(':');
+            lineOctets = name.length() + 1;
+            for(int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch(c) {
+                    case '\\': case ';': case ',':
+                        fold(2);
+                        writer.append('\\').append(c);
+                        break;
+                    case '\n':
+                        fold(2);
+                        writer.append("\\n");
+                        break;
+                    case '\r':
+                        break; // Line breaks are written as \n alone
+                    default:
+                        fold(utf8Octets(c));
+                        writer.append(c);
+                }
+            }
+            writer.append("\r\n");
+        }
+
+        /**
+         * Starts a continuation line if the next octets would take the current line past 75 octets.
+         */
+        private void fold(int octets) throws IOException {
+            if(lineOctets + octets > maxLineOctets) {
+                writer.append("\r\n ");
+                lineOctets = 1;
+            }
+            lineOctets += octets;
+        }
+
+        /**
+         * @return the octets a character takes in UTF-8. A surrogate pair takes 4, all counted on its first half, so the
+         * pair is never split across lines.
+         */
+        private static int utf8Octets(char c) {
+            if(c < 0x80) {
+                return 1;
+            }
+            if(c < 0x800) {
+                return 2;
+            }
+            if(Character.isHighSurrogate(c)) {
+                return 4;
+            }
+            return Character.isLowSurrogate(c) ? 0 : 3;
+        }
+
+        /**
+         * Formats a time as an iCalendar UTC date-time, e.g. 20211027T140000Z.
+         */
+        private static String icsTime(long epochSecond) {
+            String timestamp = TimeCodec.formatDatabase(epochSecond); // yyyy-MM-dd HH:mm:ss
+            char[] text = new char[16];
+            int length = 0;
+            for(int i = 0; i < timestamp.length(); i++) {
+                char c = timestamp.charAt(i);
+                if(c == ' ') {
+                    text[length++] = 'T';
+                }
+                else if(c != '-' && c != ':') {
+                    text[length++] = c;
+                }
+            }
+            text[length++] = 'Z';
+            return new String(text, 0, length);
+        }
+    }
+}
@@ -0,0 +1,406 @@
+/**
+ * An append-only activity log whose records are written by a background thread, so recording activity never performs
+ * file I/O on the thread that records it.
+ *
+ * Records are handed to the writer through a bounded, lock-free ring buffer that any number of threads may append to.
+ * The single writer thread drains every record that is waiting and writes them with one call (group commit), then forces
+ * them to disk according to the log's FsyncPolicy. Before writing, the log file is rotated (renamed with a timestamp
+ * suffix) once it exceeds its maximum size or age. The time each file was started is kept in a sidecar file (the log's
+ * name with a .created suffix), because most Linux filesystems do not report a file's creation time to Java.
+ *
+ * If a group of records cannot be written, for example because the file cannot be opened or rotated, the writer keeps it
+ * and tries again, waiting longer after each failure, before it takes any more records from the queue. Records are only
+ * lost if they still cannot be written when the log is closed.
+ */
+
+package helper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+public class AuditLog {
+    /**
+     * When the writer forces written records to disk.
+     */
+    public enum FsyncPolicy {
+        // Leave flushing to the operating system
+        NEVER,
+        // Force after every group of records is written
+        EVERY_BATCH,
+        // Force at most once per fsync interval
+        INTERVAL
+    }
+
+    private static final long megabyte = 1024 * 1024;
+    private static final long day = TimeUnit.DAYS.toMillis(1);
+
+    // The shared application logs
+    public static final AuditLog APPOINTMENT_ACTIVITY = new AuditLog("appointment_activity.txt", FsyncPolicy.EVERY_BATCH, 0, 10 * megabyte, 0);
+    public static final AuditLog LOGIN_ACTIVITY = new AuditLog("login_activity.txt", FsyncPolicy.INTERVAL, 1000, 10 * megabyte, day);
+    public static final AuditLog SLOW_QUERIES = new AuditLog("slow_queries.txt", FsyncPolicy.NEVER, 0, 10 * megabyte, day);
+
+    private static final DateTimeFormatter rotationFormatter = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int queueCapacity = 8192;
+    private static final int maxBatchRecords = 1024;
+    private static final long idleParkNanos = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long minRetryMillis = 100;
+    private static final long maxRetryMillis = 5000;
+
+    private final Path path;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMillis;
+    private final long maxFileBytes;
+    private final long maxFileAgeMillis;
+
+    private final RecordQueue queue = new RecordQueue(queueCapacity);
+    private final Thread writer;
+    private volatile boolean writerWaiting = false;
+    private volatile boolean closed = false;
+
+    // State owned by the writer thread
+    private FileChannel channel;
+    private long fileBytes;
+    private long fileCreatedMillis;
+    private long lastFsyncMillis;
+    private boolean unsynced = false;
+
+    /**
+     * Creates a log and starts its writer thread.
+     *
+     * @param fileName is the file that records are appended to.
+     * @param fsyncPolicy determines when written records are forced to disk.
+     * @param fsyncIntervalMillis is the minimum time between forces under FsyncPolicy.INTERVAL.
+     * @param maxFileBytes is the size at which the file is rotated, or 0 to never rotate by size.
+     * @param maxFileAgeMillis is the age at which the file is rotated, or 0 to never rotate by age.
+     */
+    public AuditLog(String fileName, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis, long maxFileBytes, long maxFileAgeMillis) {
+        this.path = Paths.get(fileName);
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFileAgeMillis = maxFileAgeMillis;
+
+        writer = new Thread(this::runWriter, "audit-log-" + fileName);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a record to be appended to the log. This returns immediately; the record is written by the writer thread.
+     *
+     * @param record is the text to append, including its line terminator.
+     */
+    public void append(String record) {
+        if(closed) {
+            System.out.println("Error writing to " + path + ": the log has been closed.");
+            return;
+        }
+
+        // The queue is only full during an extreme burst; wait for the writer to make room rather than lose the record
+        while(!queue.offer(record)) {
+            LockSupport.unpark(writer);
+            Thread.yield();
+        }
+
+        if(writerWaiting) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Writes every queued record, forces the file to disk and stops the writer thread.
+     */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5000);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Closes the shared application logs. Called when the application exits.
+     */
+    public static void closeAll() {
+        APPOINTMENT_ACTIVITY.close();
+        LOGIN_ACTIVITY.close();
+        SLOW_QUERIES.close();
+    }
+
+    /**
+     * The writer thread's loop: write each group of waiting records, then wait for more.
+     */
+    private void runWriter() {
+        StringBuilder batch = new StringBuilder();
+        ByteBuffer pending = null; // A group of records that has not been fully written yet
+        long retryMillis = 0;
+
+        while(true) {
+            if(pending != null) {
+                if(writeBatch(pending)) {
+                    pending = null;
+                    retryMillis = 0;
+                }
+                else if(closed) {
+                    System.out.println("Error writing to " + path + ": " + pending.remaining() + " bytes of records were lost.");
+                    break;
+                }
+                else {
+                    // Back off before trying the same records again; close() wakes the writer for a last attempt
+                    retryMillis = retryMillis == 0 ? minRetryMillis : Math.min(retryMillis * 2, maxRetryMillis);
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(retryMillis));
+                }
+                continue;
+            }
+
+            String record = queue.poll();
+            if(record == null) {
+                if(closed) {
+                    break;
+                }
+                if(unsynced && fsyncPolicy == FsyncPolicy.INTERVAL) {
+                    forceIfDue();
+                }
+
+                // Park until a producer signals new records; the timeout bounds the latency of a missed signal
+                writerWaiting = true;
+                if(queue.isEmpty() && !closed) {
+                    LockSupport.parkNanos(this, idleParkNanos);
+                }
+                writerWaiting = false;
+                continue;
+            }
+
+            // Group every record that is waiting into a single write
+            batch.setLength(0);
+            int batchRecords = 0;
+            do {
+                batch.append(record);
+                batchRecords++;
+            } while(batchRecords < maxBatchRecords && (record = queue.poll()) != null);
+
+            pending = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        closeChannel();
+    }
+
+    /**
+     * Writes a group of records, rotating the file first if needed, and forces them to disk according to the policy.
+     *
+     * @param bytes holds the records. Its position is advanced past the bytes written, so a retry continues where a failed
+     * write stopped.
+     * @return true if every record was written, or false if the write must be retried.
+     */
+    private boolean writeBatch(ByteBuffer bytes) {
+        try {
+            if(channel == null) {
+                openChannel();
+            }
+            // A group that was partly written before a failure is finished in the same file
+            if(bytes.position() == 0 && rotationDue(bytes.remaining())) {
+                rotate();
+            }
+
+            while(bytes.hasRemaining()) {
+                fileBytes += channel.write(bytes);
+            }
+            unsynced = true;
+
+            if(fsyncPolicy == FsyncPolicy.EVERY_BATCH) {
+                force();
+            }
+            else if(fsyncPolicy == FsyncPolicy.INTERVAL) {
+                forceIfDue();
+            }
+            return true;
+        }
+        catch(IOException e) {
+            System.out.println("Exception writing to " + path + " " + e);
+            closeChannel();
+            return !bytes.hasRemaining();
+        }
+    }
+
+    /**
+     * @return true if writing the number of bytes would take the file past its maximum size, or the file is too old.
+     */
+    private boolean rotationDue(int batchBytes) {
+        if(fileBytes == 0) {
+            return false;
+        }
+        boolean tooLarge = maxFileBytes > 0 && fileBytes + batchBytes > maxFileBytes;
+        boolean tooOld = maxFileAgeMillis > 0 && System.currentTimeMillis() - fileCreatedMillis > maxFileAgeMillis;
+        return tooLarge || tooOld;
+    }
+
+    /**
+     * Renames the current file with a timestamp suffix and starts a new, empty file.
+     */
+    private void rotate() throws IOException {
+        closeChannel();
+
+        String suffix = rotationFormatter.format(LocalDateTime.now());
+        Path rotated = path.resolveSibling(path.getFileName() + "." + suffix);
+        for(int i = 1; Files.exists(rotated); i++) {
+            rotated = path.resolveSibling(path.getFileName() + "." + suffix + "." + i);
+        }
+        Files.move(path, rotated, StandardCopyOption.ATOMIC_MOVE);
+
+        openChannel();
+    }
+
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileBytes = channel.size();
+
+        // Files that already had records are aged from when they were started, new files (and files started before the
+        // time was recorded) from now
+        Path createdPath = path.resolveSibling(path.getFileName() + ".created");
+        long createdMillis = fileBytes == 0 ? -1 : readCreatedMillis(createdPath);
+        if(createdMillis < 0) {
+            createdMillis = System.currentTimeMillis();
+            Files.write(createdPath, Long.toString(createdMillis).getBytes(StandardCharsets.UTF_8));
+        }
+        fileCreatedMillis = createdMillis;
+    }
+
+    /**
+     * @return the time recorded in the sidecar file when the log file was started, or -1 if none was recorded.
+     */
+    private static long readCreatedMillis(Path createdPath) {
+        if(!Files.exists(createdPath)) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(createdPath), StandardCharsets.UTF_8).trim());
+        }
+        catch(IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void forceIfDue() {
+        if(System.currentTimeMillis() - lastFsyncMillis >= fsyncIntervalMillis) {
+            try {
+                force();
+            }
+            catch(IOException e) {
+                System.out.println("Exception writing to " + path + " " + e);
+            }
+        }
+    }
+
+    private void force() throws IOException {
+        if(channel != null) {
+            channel.force(false);
+        }
+        lastFsyncMillis = System.currentTimeMillis();
+        unsynced = false;
+    }
+
+    private void closeChannel() {
+        if(channel == null) {
+            return;
+        }
+
+        try {
+            if(unsynced && fsyncPolicy != FsyncPolicy.NEVER) {
+                force();
+            }
+            channel.close();
+        }
+        catch(IOException e) {
+            System.out.println("Error closing " + path + ": " + e);
+        }
+        channel = null;
+    }
+
+    /**
+     * A bounded multi-producer, single-consumer queue backed by a ring buffer. Each slot carries a sequence number that
+     * tells producers when the slot is free and the consumer when the slot holds a record, so neither side takes a lock.
+     */
+    private static final class RecordQueue {
+        private final String[] records;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong(); // Next position producers will claim
+        private long head = 0; // Next position the consumer will read; only accessed by the consumer
+
+        private RecordQueue(int capacity) {
+            // Capacity must be a power of two so positions can be mapped to slots with a mask
+            records = new String[capacity];
+            sequences = new AtomicLongArray(capacity);
+            mask = capacity - 1;
+            for(int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        /**
+         * @return false if the queue is full.
+         */
+        private boolean offer(String record) {
+            long position = tail.get();
+            while(true) {
+                int slot = (int) (position & mask);
+                long difference = sequences.get(slot) - position;
+
+                if(difference == 0) {
+                    // The slot is free for this position; claim it
+                    if(tail.compareAndSet(position, position + 1)) {
+                        records[slot] = record;
+                        sequences.set(slot, position + 1); // Publishes the record to the consumer
+                        return true;
+                    }
+                    position = tail.get();
+                }
+                else if(difference < 0) {
+                    // The slot still holds a record from the previous lap
+                    return false;
+                }
+                else {
+                    // Another producer claimed this position first
+                    position = tail.get();
+                }
+            }
+        }
+
+        /**
+         * @return the oldest record, or null if the queue is empty.
+         */
+        private String poll() {
+            int slot = (int) (head & mask);
+            if(sequences.get(slot) != head + 1) {
+                return null;
+            }
+
+            String record = records[slot];
+            records[slot] = null;
+            sequences.set(slot, head + records.length); // Frees the slot for the next lap
+            head++;
+            return record;
+        }
+
+        private boolean isEmpty() {
+            return sequences.get((int) (head & mask)) != head + 1;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package helper;
+
+import javafx.concurrent.Task;
+import javafx.scene.Node;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs database work off the JavaFX application thread and hands the results back to it.
+ *
+ * All work is executed by a shared pool of daemon threads, sized to the connection pool so that background work never
+ * queues up on a connection. Each BackgroundLoader tracks the latest request made through it: starting a new load cancels
+ * the previous one, so a result that arrives after the user has moved on (for example after rapidly paging through
+ * weeks) is discarded instead of being displayed. While a load is in progress the loader's loading indicator is shown.
+ *
+ * The callbacks are always invoked on the JavaFX application thread, and load() and cancel() must be called from it.
+ */
+public class BackgroundLoader {
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(JDBC.maxPoolSize, runnable -> {
+        Thread thread = new Thread(runnable, "data-access-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Node loadingIndicator;
+    private Task<?> current;
+
+    /**
+     * @param loadingIndicator is displayed while a load is in progress, or null if there is nothing to display.
+     */
+    public BackgroundLoader(Node loadingIndicator) {
+        this.loadingIndicator = loadingIndicator;
+        setLoading(false);
+    }
+
+    /**
+     * Cancels the previous load made through this loader, if it is still running, and starts a new one.
+     *
+     * @param work is the database work to perform on a background thread.
+     * @param onLoaded receives the result of the work on the JavaFX application thread.
+     * @param errorMessage is printed if the work fails.
+     * @return the Task performing the work.
+     */
+    public <T> Task<T> load(Callable<T> work, Consumer<T> onLoaded, String errorMessage) {
+        cancel();
+
+        Task<T> task = createTask(work);
+        current = task;
+        setLoading(true);
+
+        // Only the latest request may update the loading indicator
+        task.setOnSucceeded(event -> {
+            if(current == task) {
+                current = null;
+                setLoading(false);
+            }
+            onLoaded.accept(task.getValue());
+        });
+        task.setOnFailed(event -> {
+            if(current == task) {
+                current = null;
+                setLoading(false);
+            }
+            System.out.println(errorMessage);
+        });
+
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Cancels the load in progress, if any. Its result is discarded. The database work itself is not interrupted, so the
+     * connection it uses is returned to the pool normally.
+     */
+    public void cancel() {
+        if(current != null) {
+            current.cancel(false);
+            current = null;
+            setLoading(false);
+        }
+    }
+
+    /**
+     * Runs database work in the background without tracking it, for work that should never be cancelled, such as saving a
+     * record.
+     *
+     * @param work is the database work to perform on a background thread.
+     * @param onLoaded receives the result of the work on the JavaFX application thread.
+     * @param errorMessage is printed if the work fails.
+     * @return the Task performing the work.
+     */
+    public static <T> Task<T> run(Callable<T> work, Consumer<T> onLoaded, String errorMessage) {
+        return run(work, onLoaded, () -> {}, errorMessage);
+    }
+
+    /**
+     * Runs database work in the background without tracking it, and lets the caller recover if it fails, e.g. by enabling
+     * a form again so the user can retry.
+     *
+     * @param work is the database work to perform on a background thread.
+     * @param onLoaded receives the result of the work on the JavaFX application thread.
+     * @param onFailed is run on the JavaFX application thread if the work fails.
+     * @param errorMessage is printed if the work fails.
+     * @return the Task performing the work.
+     */
+    public static <T> Task<T> run(Callable<T> work, Consumer<T> onLoaded, Runnable onFailed, String errorMessage) {
+        Task<T> task = createTask(work);
+        task.setOnSucceeded(event -> onLoaded.accept(task.getValue()));
+        task.setOnFailed(event -> {
+            System.out.println(errorMessage);
+            onFailed.run();
+        });
+
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Stops accepting new work and waits briefly for work in progress to finish. Called when the application exits.
+     */
+    public static void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wraps the work in a Task. The handlers are attached by the caller.
+     */
+    private static <T> Task<T> createTask(Callable<T> work) {
+        return new Task<T>() {
+            @Override
+            protected T call() throws Exception {
+                return work.call();
+            }
+        };
+    }
+
+    private void setLoading(boolean loading) {
+        if(loadingIndicator != null) {
+            loadingIndicator.setVisible(loading);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package helper;
+
+import DAO.AppointmentDAO;
+import Model.AppointmentStore;
+import Model.AppointmentStoreList;
+
+import java.sql.SQLException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the Appointments of the weeks/months around the one being viewed on the calendar, so that moving to the next or
+ * previous week/month displays its Appointments straight away instead of waiting for the database.
+ *
+ * Each window (the range of one week or month) is loaded once into an AppointmentStoreList. After the calendar displays a
+ * window, the windows before and after it are prefetched in the background. At most maxWindows windows are kept, and the
+ * least recently viewed one is evicted first; the window being viewed is never evicted. A window that is requested while
+ * it is still being prefetched waits for that load rather than starting another.
+ *
+ * The Appointments added, updated and deleted by any user (see ChangeFeed) are applied to every kept window, and to the
+ * windows still being loaded once their Appointments arrive, so a kept window always matches what a reload would show.
+ * While the changes are not being followed, a kept window is only used for maxAgeMillis after it was loaded and is read
+ * from the database again after that.
+ *
+ * A CalendarWindowCache must only be used on the JavaFX application thread.
+ */
+public class CalendarWindowCache {
+    private static final int maxWindows = 6;
+    private static final long maxAgeMillis = 30 * 1000; // How long a window is used without the ChangeFeed
+
+    // Kept windows, from the least to the most recently viewed
+    private final LinkedHashMap<Window, KeptWindow> windows = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Window, PendingLoad> pendingLoads = new HashMap<>();
+    private Window viewed;
+
+    /**
+     * Gets the Appointments of a window for displaying it, loading them in the background if the window is not kept or
+     * has expired.
+     *
+     * @param start is the beginning of the window.
+     * @param end is the end of the window.
+     * @param onLoaded receives the Appointments of the window on the JavaFX application thread, or null if they could not
+     *                 be retrieved. It is called before this method returns if the window is kept.
+     * @return true if the window was kept and onLoaded has already been called.
+     */
+    public boolean load(ZonedDateTime start, ZonedDateTime end, Consumer<AppointmentStoreList> onLoaded) {
+        Window window = new Window(start, end);
+        viewed = window;
+
+        KeptWindow kept = getKept(window);
+        if(kept != null) {
+            onLoaded.accept(kept.appointments);
+            return true;
+        }
+
+        startLoad(window, start, end).waiters.add(onLoaded);
+        return false;
+    }
+
+    /**
+     * Loads the Appointments of a window in the background so they are kept for when the window is viewed, unless the
+     * window is already kept, and has not expired, or is being loaded.
+     *
+     * @param start is the beginning of the window.
+     * @param end is the end of the window.
+     */
+    public void prefetch(ZonedDateTime start, ZonedDateTime end) {
+        Window window = new Window(start, end);
+        if(getKept(window) == null) {
+            startLoad(window, start, end);
+        }
+    }
+
+    /**
+     * Applies Appointments that were added, updated or deleted to every kept window, and records them for the windows
+     * still being loaded.
+     *
+     * @param changes are the Appointments that changed, from the ChangeFeed.
+     */
+    public void applyChanges(ChangeFeed.Changes changes) {
+        for(Map.Entry<Window, KeptWindow> entry : windows.entrySet()) {
+            Window window = entry.getKey();
+            entry.getValue().appointments.applyChanges(changes.getChanged(), changes.getDeletedIDs(), window.start, window.end);
+        }
+        for(PendingLoad pendingLoad : pendingLoads.values()) {
+            pendingLoad.changes.add(changes);
+        }
+    }
+
+    /**
+     * Discards every kept window, so each one is read from the database again the next time it is displayed. Windows still
+     * being loaded are kept once they arrive.
+     */
+    public void clear() {
+        windows.clear();
+    }
+
+    /**
+     * @return the kept window, or null if it is not kept or has expired, in which case it is discarded.
+     */
+    private KeptWindow getKept(Window window) {
+        KeptWindow kept = windows.get(window);
+        if(kept != null && !ChangeFeed.isRunning() && System.currentTimeMillis() - kept.loadedMillis > maxAgeMillis) {
+            windows.remove(window);
+            return null;
+        }
+        return kept;
+    }
+
+    /**
+     * Starts loading a window in the background, or returns the load already in progress.
+     */
+    private PendingLoad startLoad(Window window, ZonedDateTime start, ZonedDateTime end) {
+        PendingLoad pendingLoad = pendingLoads.get(window);
+        if(pendingLoad != null) {
+            return pendingLoad;
+        }
+
+        PendingLoad newLoad = new PendingLoad();
+        pendingLoads.put(window, newLoad);
+        BackgroundLoader.run(() -> {
+            try {
+                return AppointmentDAO.getAppointmentsInRange(start, end);
+            }
+            catch(SQLException e) {
+                System.out.println("Error retrieving Appointment information from the database.");
+                return null;
+            }
+        }, store -> loaded(window, newLoad, store), "Error retrieving Appointment information from the database.");
+        return newLoad;
+    }
+
+    /**
+     * Keeps a window that has finished loading, after applying the changes that arrived while it was loading, and hands it
+     * to the waiting callers. Changes that the load already includes have no further effect.
+     */
+    private void loaded(Window window, PendingLoad pendingLoad, AppointmentStore store) {
+        pendingLoads.remove(window);
+
+        AppointmentStoreList appointments = null;
+        if(store != null) {
+            appointments = new AppointmentStoreList(store);
+            for(ChangeFeed.Changes changes : pendingLoad.changes) {
+                appointments.applyChanges(changes.getChanged(), changes.getDeletedIDs(), window.start, window.end);
+            }
+            windows.put(window, new KeptWindow(appointments));
+            evict();
+        }
+
+        for(Consumer<AppointmentStoreList> waiter : pendingLoad.waiters) {
+            waiter.accept(appointments);
+        }
+    }
+
+    /**
+     * Evicts the least recently viewed windows, other than the one being viewed, until at most maxWindows are kept.
+     */
+    private void evict() {
+        Iterator<Window> leastRecentlyViewed = windows.keySet().iterator();
+        while(windows.size() > maxWindows && leastRecentlyViewed.hasNext()) {
+            if(!leastRecentlyViewed.next().equals(viewed)) {
+                leastRecentlyViewed.remove();
+            }
+        }
+    }
+
+    /**
+     * The range of a week or month, in seconds since the epoch.
+     */
+    private static class Window {
+        private final long start;
+        private final long end;
+
+        private Window(ZonedDateTime start, ZonedDateTime end) {
+            this.start = start.toEpochSecond();
+            this.end = end.toEpochSecond();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if(!(other instanceof Window)) {
+                return false;
+            }
+            Window window = (Window) other;
+            return start == window.start && end == window.end;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(start) * 31 + Long.hashCode(end);
+        }
+    }
+
+    /**
+     * The Appointments of a kept window, along with when they were loaded.
+     */
+    private static class KeptWindow {
+        private final AppointmentStoreList appointments;
+        private final long loadedMillis = System.currentTimeMillis();
+
+        private KeptWindow(AppointmentStoreList appointments) {
+            this.appointments = appointments;
+        }
+    }
+
+    /**
+     * A window being loaded: the callers waiting for it and the changes that arrived since the load started.
+     */
+    private static class PendingLoad {
+        private final List<Consumer<AppointmentStoreList>> waiters = new ArrayList<>();
+        private final List<ChangeFeed.Changes> changes = new ArrayList<>();
+    }
+}
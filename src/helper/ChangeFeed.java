@@ -0,0 +1,296 @@
+package helper;
+
+import DAO.AppointmentChanges;
+import DAO.AppointmentDAO;
+import Model.AppointmentStore;
+import javafx.application.Platform;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tells the open pages about Appointments that have been added, updated or deleted, by this user or by any other user of
+ * the database, so they can apply just those Appointments instead of reloading every Appointment they display.
+ *
+ * Every change to the appointments table is recorded in its change log (see AppointmentChanges). A background timer polls
+ * the log every few seconds for the changes made after the last one it has seen (the high-water mark), and immediately
+ * after pollNow() is called when this user changes an Appointment. The changes are collapsed to the latest change of each
+ * Appointment, the current rows of the added and updated Appointments are read with one query, and each subscriber
+ * receives them on the JavaFX application thread.
+ *
+ * A Change_ID is assigned when its row is inserted, not when its transaction commits, so a change can become visible
+ * after changes with higher IDs have already been read. Every ID skipped over below the high-water mark is remembered
+ * as a gap, and the log is read again from the lowest gap on each poll until the missing change appears or gapTimeoutMillis
+ * passes (the ID of a rolled back transaction is never filled). Changes that were already delivered are skipped. Since
+ * subscribers are given the current row of each changed Appointment, a change delivered late still leaves them up to
+ * date.
+ *
+ * Until the high-water mark has been read, for example because the change log cannot be read, isRunning() returns false
+ * and pages reload their Appointments instead. If a poll fails unexpectedly, some of its changes may not have been
+ * delivered, so the feed starts again from the latest change and subscribers are told to reload every Appointment.
+ */
+public abstract class ChangeFeed {
+    private static final long pollMillis = 3000;
+    private static final int batchSize = 500; // Most changes read from the log by one query
+    private static final long gapTimeoutMillis = 60 * 1000; // How long a skipped Change_ID is waited for
+    private static final int maxGaps = 10000; // Most skipped Change_IDs remembered at once
+
+    private static ScheduledExecutorService poller;
+    private static final List<Consumer<Changes>> subscribers = new CopyOnWriteArrayList<>();
+
+    // State owned by the poller thread; -1 until the high-water mark has been read
+    private static long highWaterMark = -1;
+    private static final TreeMap<Long, Long> gaps = new TreeMap<>(); // Skipped Change_IDs and when they were skipped
+    private static boolean reloadRequired = false; // Changes may have been missed since the high-water mark was last read
+    private static volatile boolean following = false; // True while every change is being delivered
+
+    /**
+     * Starts polling the change log, unless it is already being polled. Only changes made after this call are delivered.
+     */
+    public static synchronized void start() {
+        if(poller != null) {
+            return;
+        }
+
+        highWaterMark = -1;
+        gaps.clear();
+        reloadRequired = false;
+        following = false;
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "appointment-changes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(ChangeFeed::poll, 0, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Polls the change log now rather than on the next tick. Called after this user adds, updates or deletes an
+     * Appointment, so the change is displayed straight away.
+     */
+    public static synchronized void pollNow() {
+        if(poller != null) {
+            poller.execute(ChangeFeed::poll);
+        }
+    }
+
+    /**
+     * @return true if the change log is being followed, in which case subscribers are told about every change. This is
+     * false until the first poll has read the high-water mark, and after a failed poll until it has been read again.
+     */
+    public static synchronized boolean isRunning() {
+        return poller != null && following;
+    }
+
+    /**
+     * Stops polling the change log. Called when the application exits.
+     */
+    public static synchronized void stop() {
+        if(poller == null) {
+            return;
+        }
+
+        following = false;
+        poller.shutdownNow();
+        try {
+            poller.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        poller = null;
+    }
+
+    /**
+     * @param subscriber receives the changes found by each poll, on the JavaFX application thread.
+     */
+    public static void subscribe(Consumer<Changes> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * @param subscriber is a subscriber that no longer receives changes.
+     */
+    public static void unsubscribe(Consumer<Changes> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Reads the high-water mark if it has not been read yet, and otherwise the changes made since. An exception escaping
+     * this method would cancel polling for good, so every exception is caught here.
+     */
+    private static void poll() {
+        try {
+            if(highWaterMark < 0) {
+                highWaterMark = AppointmentChanges.getHighWaterMark();
+                following = true;
+                if(reloadRequired) {
+                    reloadRequired = false;
+                    deliver(new Changes(new AppointmentStore(), new HashSet<>(), true));
+                }
+                return;
+            }
+
+            readChanges();
+        }
+        catch(SQLException e) {
+            System.out.println("Error retrieving appointment changes from the database.");
+        }
+        catch(RuntimeException e) {
+            // The changes of the failed poll may not have been delivered, so start again from the latest change
+            System.out.println("Error applying appointment changes: " + e);
+            following = false;
+            highWaterMark = -1;
+            gaps.clear();
+            reloadRequired = true;
+        }
+    }
+
+    /**
+     * Reads the changes made since the lowest gap, or the high-water mark if there are no gaps, and delivers the ones not
+     * delivered before to the subscribers, a batch at a time.
+     */
+    private static void readChanges() throws SQLException {
+        long now = System.currentTimeMillis();
+        gaps.values().removeIf(skippedMillis -> now - skippedMillis > gapTimeoutMillis);
+
+        long readFrom = gaps.isEmpty() ? highWaterMark : gaps.firstKey() - 1;
+        List<AppointmentChanges.Change> log;
+        do {
+            log = AppointmentChanges.getChangesSince(readFrom, batchSize);
+            List<AppointmentChanges.Change> undelivered = new ArrayList<>();
+            for(AppointmentChanges.Change change : log) {
+                // A change in a gap committed after later changes were read
+                if(change.getChangeID() > highWaterMark || gaps.containsKey(change.getChangeID())) {
+                    undelivered.add(change);
+                }
+            }
+
+            // The changed rows are read before the high-water mark moves, so a failed read is retried by the next poll
+            Changes changes = undelivered.isEmpty() ? null : collapse(undelivered);
+            for(AppointmentChanges.Change change : undelivered) {
+                long changeID = change.getChangeID();
+                if(changeID > highWaterMark) {
+                    for(long skipped = Math.max(highWaterMark + 1, changeID - maxGaps); skipped < changeID; skipped++) {
+                        gaps.put(skipped, now);
+                    }
+                    highWaterMark = changeID;
+                }
+                else {
+                    gaps.remove(changeID);
+                }
+            }
+            while(gaps.size() > maxGaps) {
+                gaps.pollFirstEntry();
+            }
+
+            if(changes != null) {
+                deliver(changes);
+            }
+            if(!log.isEmpty()) {
+                readFrom = log.get(log.size() - 1).getChangeID();
+            }
+        } while(log.size() == batchSize);
+    }
+
+    /**
+     * Collapses a batch of the change log to the latest change of each Appointment and reads the current rows of the
+     * Appointments that were added or updated. An Appointment whose row is gone was deleted after it was logged, and is
+     * delivered as deleted.
+     */
+    private static Changes collapse(List<AppointmentChanges.Change> log) throws SQLException {
+        Map<Integer, Boolean> deletedByID = new LinkedHashMap<>();
+        for(AppointmentChanges.Change change : log) {
+            deletedByID.put(change.getAppointmentID(), change.isDelete());
+        }
+
+        List<Integer> changedIDs = new ArrayList<>();
+        Set<Integer> deletedIDs = new HashSet<>();
+        for(Map.Entry<Integer, Boolean> entry : deletedByID.entrySet()) {
+            if(entry.getValue()) {
+                deletedIDs.add(entry.getKey());
+            }
+            else {
+                changedIDs.add(entry.getKey());
+            }
+        }
+
+        AppointmentStore changed = AppointmentDAO.getAppointmentsByID(changedIDs);
+        if(changed.size() < changedIDs.size()) {
+            Set<Integer> found = new HashSet<>();
+            for(int row = 0; row < changed.size(); row++) {
+                found.add(changed.getAppointmentID(row));
+            }
+            for(int appointmentID : changedIDs) {
+                if(!found.contains(appointmentID)) {
+                    deletedIDs.add(appointmentID);
+                }
+            }
+        }
+
+        return new Changes(changed, deletedIDs, false);
+    }
+
+    /**
+     * Refreshes the upcoming reminders and hands the changes to each subscriber.
+     */
+    private static void deliver(Changes changes) {
+        // Reminders may have been changed by another user, so they are reloaded on their next use
+        ReminderScheduler.refresh();
+
+        Platform.runLater(() -> {
+            for(Consumer<Changes> subscriber : subscribers) {
+                subscriber.accept(changes);
+            }
+        });
+    }
+
+    /**
+     * The Appointments that were added, updated or deleted between two polls.
+     */
+    public static class Changes {
+        private final AppointmentStore changed;
+        private final Set<Integer> deletedIDs;
+        private final boolean reloadRequired;
+
+        private Changes(AppointmentStore changed, Set<Integer> deletedIDs, boolean reloadRequired) {
+            this.changed = changed;
+            this.deletedIDs = Collections.unmodifiableSet(deletedIDs);
+            this.reloadRequired = reloadRequired;
+        }
+
+        /**
+         * @return true if changes may have been missed, in which case there are no changed or deleted Appointments and
+         * every Appointment displayed must be reloaded instead.
+         */
+        public boolean isReloadRequired() {
+            return reloadRequired;
+        }
+
+        /**
+         * @return the current values of the Appointments that were added or updated. The store must not be modified.
+         */
+        public AppointmentStore getChanged() {
+            return changed;
+        }
+
+        /**
+         * @return the unique IDs of the Appointments that were deleted.
+         */
+        public Set<Integer> getDeletedIDs() {
+            return deletedIDs;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package helper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes text to a channel as UTF-8 through fixed-size buffers. Characters are collected in a char buffer, encoded into a
+ * direct byte buffer, and written to the channel only when the byte buffer is full, so writing a large file takes a few
+ * large writes and the memory used stays the same no matter how much text is written.
+ *
+ * A ChannelWriter is not thread-safe.
+ */
+public class ChannelWriter implements Closeable {
+    private static final int bufferSize = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars = CharBuffer.allocate(bufferSize);
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(bufferSize);
+    private long bytesWritten = 0;
+
+    /**
+     * @param channel is the channel to write to. It is closed when the writer is closed.
+     */
+    public ChannelWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Appends text. Null is written as nothing.
+     *
+     * @param text is the text to append.
+     * @return this writer.
+     * @throws IOException if a full buffer could not be written to the channel.
+     */
+    public ChannelWriter append(CharSequence text) throws IOException {
+        if(text == null) {
+            return this;
+        }
+
+        int start = 0;
+        while(start < text.length()) {
+            if(!chars.hasRemaining()) {
+                encode(false);
+            }
+            int end = Math.min(text.length(), start + chars.remaining());
+            chars.append(text, start, end);
+            start = end;
+        }
+        return this;
+    }
+
+    /**
+     * Appends a single character.
+     *
+     * @param c is the character to append.
+     * @return this writer.
+     * @throws IOException if a full buffer could not be written to the channel.
+     */
+    public ChannelWriter append(char c) throws IOException {
+        if(!chars.hasRemaining()) {
+            encode(false);
+        }
+        chars.put(c);
+        return this;
+    }
+
+    /**
+     * Appends a number in decimal.
+     *
+     * @param value is the number to append.
+     * @return this writer.
+     * @throws IOException if a full buffer could not be written to the channel.
+     */
+    public ChannelWriter append(long value) throws IOException {
+        return append(Long.toString(value));
+    }
+
+    /**
+     * @return the number of bytes written to the channel so far.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Writes all buffered text to the channel.
+     *
+     * @throws IOException if the text could not be written.
+     */
+    public void flush() throws IOException {
+        encode(false);
+        writeBytes();
+    }
+
+    /**
+     * Writes all buffered text to the channel and closes it.
+     *
+     * @throws IOException if the text could not be written or the channel could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            encode(true);
+            while(encoder.flush(bytes).isOverflow()) {
+                writeBytes();
+            }
+            writeBytes();
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Encodes the buffered characters into the byte buffer, writing the byte buffer to the channel whenever it fills. A
+     * character split across two appends (the first half of a surrogate pair) is kept until its second half arrives.
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+        CoderResult result;
+        while((result = encoder.encode(chars, bytes, endOfInput)).isOverflow()) {
+            writeBytes();
+        }
+        if(result.isError()) {
+            result.throwException();
+        }
+        chars.compact();
+    }
+
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while(bytes.hasRemaining()) {
+            bytesWritten += channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
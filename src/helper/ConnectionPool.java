@@ -0,0 +1,687 @@
+package helper;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * A bounded pool of physical database connections exposed as a DataSource. Connections handed out by getConnection()
+ * are proxies; calling close() on them returns the physical connection to the pool instead of closing it.
+ *
+ * Idle connections are validated before they are handed out, connections that sit idle for longer than the idle timeout
+ * are evicted by a background housekeeping thread, and borrowed connections that are held longer than the leak
+ * threshold are reported along with the stack trace of the code that borrowed them.
+ *
+ * Each physical connection also keeps a cache of the PreparedStatements prepared on it, keyed by their SQL. Closing a
+ * statement prepared through a pooled connection returns it to the cache, so preparing the same SQL again on that
+ * connection reuses the statement (and, with server-side prepare, the plan the database already built for it) instead of
+ * preparing it again. The least recently used statements are closed once the cache is full.
+ *
+ * Every statement created through a pooled connection is timed by the pool's QueryMetrics, if it has one.
+ */
+public class ConnectionPool implements DataSource {
+    private final String jdbcUrl;
+    private final String userName;
+    private final String password;
+
+    // Pool sizing and timeouts
+    private final int maxPoolSize;
+    private final int minIdle;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+    private final QueryMetrics queryMetrics;
+    private static final int validationTimeoutSeconds = 2;
+
+    // Pool state
+    private final Semaphore permits;
+    private final ArrayDeque<IdleConnection> idleConnections = new ArrayDeque<>();
+    private final Map<Connection, BorrowRecord> borrowedConnections = new ConcurrentHashMap<>();
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>(); // Keyed by physical connection
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // Metrics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong validationFailureCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    /**
+     * Creates the pool. No physical connections are opened until warmUp() or getConnection() is called.
+     *
+     * @param jdbcUrl is the URL of the database that connections are opened against.
+     * @param userName is the database user.
+     * @param password is the password of the database user.
+     * @param maxPoolSize is the maximum number of physical connections (borrowed + idle) the pool will hold.
+     * @param minIdle is the number of idle connections that idle eviction will always leave in the pool.
+     * @param idleTimeoutMillis is how long a connection may sit idle before it is evicted.
+     * @param borrowTimeoutMillis is how long getConnection() waits for a free connection before failing.
+     * @param leakThresholdMillis is how long a connection may be borrowed before it is reported as a possible leak.
+     * @param statementCacheSize is the number of PreparedStatements cached per physical connection, or 0 to disable caching.
+     * @param queryMetrics times the statements executed through pooled connections, or null to disable timing.
+     */
+    public ConnectionPool(String jdbcUrl, String userName, String password, int maxPoolSize, int minIdle,
+                          long idleTimeoutMillis, long borrowTimeoutMillis, long leakThresholdMillis, int statementCacheSize,
+                          QueryMetrics queryMetrics) {
+        this.jdbcUrl = jdbcUrl;
+        this.userName = userName;
+        this.password = password;
+        this.maxPoolSize = maxPoolSize;
+        this.minIdle = Math.min(minIdle, maxPoolSize);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.queryMetrics = queryMetrics;
+        this.permits = new Semaphore(maxPoolSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens physical connections until the pool holds at least minIdle idle connections.
+     */
+    public void warmUp() throws SQLException {
+        while(!closed) {
+            synchronized (idleConnections) {
+                if(idleConnections.size() + borrowedConnections.size() >= minIdle) {
+                    return;
+                }
+            }
+            Connection physical = openPhysicalConnection();
+            synchronized (idleConnections) {
+                idleConnections.push(new IdleConnection(physical));
+            }
+        }
+    }
+
+    /**
+     * Borrows a connection from the pool, waiting up to the borrow timeout for one to become free. Idle connections are
+     * validated before being returned; a new physical connection is opened if no valid idle connection is available.
+     *
+     * @return a pooled connection that must be closed to be returned to the pool.
+     * @throws SQLException if the pool is closed, the wait times out, or a new connection cannot be opened.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if(closed) {
+            throw new SQLException("The connection pool has been closed.");
+        }
+
+        long waitStart = System.nanoTime();
+        try {
+            if(!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + "ms waiting for a database connection.");
+            }
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+        recordWait(System.nanoTime() - waitStart);
+
+        try {
+            Connection physical = takeValidIdleConnection();
+            if(physical == null) {
+                physical = openPhysicalConnection();
+            }
+
+            Connection pooled = wrap(physical);
+            borrowedConnections.put(pooled, new BorrowRecord());
+            borrowCount.incrementAndGet();
+            return pooled;
+        }
+        catch(SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Pooled connections always use the credentials the pool was created with.
+     */
+    @Override
+    public Connection getConnection(String userName, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled connections use the credentials the pool was created with.");
+    }
+
+    /**
+     * Closes every idle connection and stops the housekeeping thread. Borrowed connections are closed when they are
+     * returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        synchronized (idleConnections) {
+            for(IdleConnection idle : idleConnections) {
+                discard(idle.connection);
+            }
+            idleConnections.clear();
+        }
+    }
+
+    // Metrics accessors
+    public int getActiveConnections() {
+        return borrowedConnections.size();
+    }
+
+    public int getIdleConnections() {
+        synchronized (idleConnections) {
+            return idleConnections.size();
+        }
+    }
+
+    public int getTotalConnections() {
+        return getActiveConnections() + getIdleConnections();
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public int getThreadsAwaitingConnection() {
+        return permits.getQueueLength();
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0 : totalWaitNanos.get() / (double) borrows / 1_000_000;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    public long getValidationFailureCount() {
+        return validationFailureCount.get();
+    }
+
+    public long getLeakCount() {
+        return leakCount.get();
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits.get();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.get();
+    }
+
+    /**
+     * @return the fraction of prepareStatement() calls that were served from a statement cache, from 0 to 1.
+     */
+    public double getStatementCacheHitRate() {
+        long hits = statementCacheHits.get();
+        long lookups = hits + statementCacheMisses.get();
+        return lookups == 0 ? 0 : hits / (double) lookups;
+    }
+
+    /**
+     * @return the timings of the statements executed through the pool, or null if statements are not timed.
+     */
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    /**
+     * @return the pool metrics, followed by the statement timings, in the Prometheus text exposition format.
+     */
+    public String exportMetrics() {
+        StringBuilder out = new StringBuilder();
+        writeGauge(out, "scheduler_pool_active_connections", "gauge", "Connections currently borrowed.", getActiveConnections());
+        writeGauge(out, "scheduler_pool_idle_connections", "gauge", "Connections waiting in the pool.", getIdleConnections());
+        writeGauge(out, "scheduler_pool_max_connections", "gauge", "Maximum number of connections.", maxPoolSize);
+        writeGauge(out, "scheduler_pool_waiting_threads", "gauge", "Threads waiting for a connection.", getThreadsAwaitingConnection());
+        writeGauge(out, "scheduler_pool_borrows_total", "counter", "Connections borrowed.", getBorrowCount());
+        writeGauge(out, "scheduler_pool_wait_seconds_max", "gauge", "Longest wait for a connection.", getMaxWaitMillis() / 1000);
+        writeGauge(out, "scheduler_pool_created_total", "counter", "Physical connections opened.", getCreatedCount());
+        writeGauge(out, "scheduler_pool_evicted_total", "counter", "Idle connections evicted.", getEvictedCount());
+        writeGauge(out, "scheduler_pool_invalid_total", "counter", "Idle connections that failed validation.", getValidationFailureCount());
+        writeGauge(out, "scheduler_pool_leaks_total", "counter", "Connections reported as possible leaks.", getLeakCount());
+        writeGauge(out, "scheduler_statement_cache_hits_total", "counter", "Prepared statements reused from the cache.", getStatementCacheHits());
+        writeGauge(out, "scheduler_statement_cache_misses_total", "counter", "Prepared statements prepared anew.", getStatementCacheMisses());
+        if(queryMetrics != null) {
+            queryMetrics.writePrometheus(out);
+        }
+        return out.toString();
+    }
+
+    private static void writeGauge(StringBuilder out, String name, String type, String help, Number value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d idle=%d max=%d waiting=%d borrows=%d avgWait=%.2fms maxWait=%.2fms created=%d evicted=%d invalid=%d leaks=%d " +
+                        "stmtHits=%d stmtMisses=%d stmtHitRate=%.1f%%",
+                getActiveConnections(), getIdleConnections(), maxPoolSize, getThreadsAwaitingConnection(), getBorrowCount(),
+                getAverageWaitMillis(), getMaxWaitMillis(), getCreatedCount(), getEvictedCount(), getValidationFailureCount(), getLeakCount(),
+                getStatementCacheHits(), getStatementCacheMisses(), getStatementCacheHitRate() * 100);
+    }
+
+    /**
+     * Pops idle connections (most recently used first) until one passes validation.
+     *
+     * @return a valid physical connection or null if the pool has no valid idle connections.
+     */
+    private Connection takeValidIdleConnection() {
+        while(true) {
+            IdleConnection idle;
+            synchronized (idleConnections) {
+                idle = idleConnections.poll();
+            }
+            if(idle == null) {
+                return null;
+            }
+
+            try {
+                if(idle.connection.isValid(validationTimeoutSeconds)) {
+                    return idle.connection;
+                }
+            }
+            catch(SQLException e) {
+                // Treated the same as a failed validation
+            }
+            validationFailureCount.incrementAndGet();
+            discard(idle.connection);
+        }
+    }
+
+    /**
+     * Returns a physical connection to the pool when its proxy is closed. Connections that are broken, or that come back
+     * after the pool has been closed, are discarded.
+     */
+    private void release(Connection pooled, Connection physical) {
+        if(borrowedConnections.remove(pooled) == null) {
+            return; // Already returned
+        }
+
+        try {
+            boolean reusable = !closed && !physical.isClosed();
+            if(reusable && !physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+
+            if(reusable) {
+                synchronized (idleConnections) {
+                    idleConnections.push(new IdleConnection(physical));
+                }
+            }
+            else {
+                discard(physical);
+            }
+        }
+        catch(SQLException e) {
+            discard(physical);
+        }
+        finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Evicts connections that have been idle longer than the idle timeout (never going below minIdle) and reports
+     * borrowed connections that have been held longer than the leak threshold.
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        synchronized (idleConnections) {
+            // The oldest idle connections are at the tail of the deque
+            Iterator<IdleConnection> oldestFirst = idleConnections.descendingIterator();
+            while(oldestFirst.hasNext() && idleConnections.size() > minIdle) {
+                IdleConnection idle = oldestFirst.next();
+                if(now - idle.idleSince > idleTimeoutMillis) {
+                    oldestFirst.remove();
+                    discard(idle.connection);
+                    evictedCount.incrementAndGet();
+                }
+            }
+        }
+
+        for(BorrowRecord record : borrowedConnections.values()) {
+            if(!record.reported && now - record.borrowedAt > leakThresholdMillis) {
+                record.reported = true;
+                leakCount.incrementAndGet();
+                System.out.println("Possible connection leak: a connection has been borrowed for " + (now - record.borrowedAt) + "ms.");
+                record.borrowSite.printStackTrace(System.out);
+            }
+        }
+    }
+
+    private Connection openPhysicalConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(jdbcUrl, userName, password);
+        createdCount.incrementAndGet();
+        return connection;
+    }
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Wraps a physical connection in a proxy whose close() returns the connection to the pool. Every other call is
+     * passed straight through to the physical connection until the proxy has been closed.
+     */
+    private Connection wrap(Connection physical) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean returned;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if(!returned) {
+                            returned = true;
+                            release((Connection) proxy, physical);
+                        }
+                        return null;
+                    case "isClosed":
+                        return returned || physical.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "PooledConnection[" + physical + "]";
+                    case "prepareStatement":
+                        // Only the plain prepareStatement(sql) is cached; the other overloads create statements with
+                        // different result set or key generation settings
+                        if(!returned && args.length == 1 && statementCacheSize > 0) {
+                            StatementCache cache = statementCaches.computeIfAbsent(physical, StatementCache::new);
+                            return instrument(method, args, cache.prepare((Connection) proxy, (String) args[0]));
+                        }
+                        break;
+                }
+
+                if(returned) {
+                    throw new SQLException("Connection has already been returned to the pool.");
+                }
+                try {
+                    return instrument(method, args, method.invoke(physical, args));
+                }
+                catch(InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    /**
+     * Wraps the statements returned by createStatement() and prepareStatement() so their executions are timed. Any other
+     * result is returned as it is.
+     */
+    private Object instrument(Method method, Object[] args, Object result) {
+        if(queryMetrics == null) {
+            return result;
+        }
+        switch (method.getName()) {
+            case "createStatement":
+                return queryMetrics.wrap((Statement) result);
+            case "prepareStatement":
+                return queryMetrics.wrap((PreparedStatement) result, (String) args[0]);
+            default:
+                return result;
+        }
+    }
+
+    /**
+     * Closes a physical connection that is leaving the pool, along with the statements cached on it.
+     */
+    private void discard(Connection physical) {
+        StatementCache cache = statementCaches.remove(physical);
+        if(cache != null) {
+            cache.closeAll();
+        }
+        closeQuietly(physical);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        }
+        catch(SQLException e) {
+            // Nothing more can be done with a connection that fails to close
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        }
+        catch(SQLException e) {
+            // Nothing more can be done with a statement that fails to close
+        }
+    }
+
+    // DataSource boilerplate
+    @Override
+    public PrintWriter getLogWriter() {
+        return DriverManager.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        DriverManager.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if(iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("ConnectionPool does not wrap " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * A physical connection sitting in the pool along with the time it was returned.
+     */
+    private static class IdleConnection {
+        private final Connection connection;
+        private final long idleSince = System.currentTimeMillis();
+
+        private IdleConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * The PreparedStatements cached on one physical connection, most recently used last. A statement is removed from the
+     * cache while it is in use, so the same SQL prepared twice on a connection gets two independent statements.
+     */
+    private class StatementCache {
+        private final Connection physical;
+        private final Map<String, PreparedStatement> statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if(size() > statementCacheSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        private StatementCache(Connection physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * Takes the cached statement for the SQL, or prepares a new one, and wraps it so that closing it returns it here.
+         */
+        private synchronized PreparedStatement prepare(Connection pooled, String sql) throws SQLException {
+            PreparedStatement statement = statements.remove(sql);
+            if(statement != null && !statement.isClosed()) {
+                statementCacheHits.incrementAndGet();
+            }
+            else {
+                statementCacheMisses.incrementAndGet();
+                statement = physical.prepareStatement(sql);
+            }
+            return wrapStatement(pooled, sql, statement);
+        }
+
+        /**
+         * Returns a statement to the cache once the code using it has closed it.
+         */
+        private synchronized void giveBack(String sql, PreparedStatement statement, boolean reconfigured) {
+            try {
+                if(reconfigured || statements.containsKey(sql) || physical.isClosed() || statement.isClosed()) {
+                    closeQuietly(statement);
+                    return;
+                }
+                statement.clearParameters();
+                statements.put(sql, statement);
+            }
+            catch(SQLException e) {
+                closeQuietly(statement);
+            }
+        }
+
+        private synchronized void closeAll() {
+            for(PreparedStatement statement : statements.values()) {
+                closeQuietly(statement);
+            }
+            statements.clear();
+        }
+
+        /**
+         * Wraps a cached statement in a proxy whose close() gives the statement back to the cache. Statements whose
+         * execution settings were changed are closed rather than cached, so the next user gets a statement with defaults.
+         */
+        private PreparedStatement wrapStatement(Connection pooled, String sql, PreparedStatement statement) {
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean closed;
+                private boolean reconfigured;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "close":
+                            if(!closed) {
+                                closed = true;
+                                giveBack(sql, statement, reconfigured);
+                            }
+                            return null;
+                        case "isClosed":
+                            return closed || statement.isClosed();
+                        case "getConnection":
+                            return pooled;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "CachedStatement[" + statement + "]";
+                        case "setFetchSize":
+                        case "setFetchDirection":
+                        case "setMaxRows":
+                        case "setLargeMaxRows":
+                        case "setMaxFieldSize":
+                        case "setQueryTimeout":
+                        case "setEscapeProcessing":
+                        case "setPoolable":
+                        case "setCursorName":
+                        case "closeOnCompletion":
+                            reconfigured = true;
+                            break;
+                    }
+
+                    if(closed) {
+                        throw new SQLException("Statement has already been closed.");
+                    }
+                    try {
+                        return method.invoke(statement, args);
+                    }
+                    catch(InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            };
+
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, handler);
+        }
+    }
+
+    /**
+     * Tracks when and where a connection was borrowed so leaks can be reported.
+     */
+    private static class BorrowRecord {
+        private final long borrowedAt = System.currentTimeMillis();
+        private final Throwable borrowSite = new Throwable("Connection borrowed here");
+        private volatile boolean reported;
+    }
+}
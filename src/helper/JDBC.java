@@ -1,24 +1,50 @@
 package helper;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.SQLException;
 
 public abstract class JDBC {
     private static final String protocol = "jdbc";
     private static final String vendor = ":mysql:";
     private static final String location = "//localhost/";
     private static final String databaseName = "client_schedule";
-    private static final String jdbcUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = SERVER"; // LOCAL
-    private static final String userName = "sqlUser";
-    private static final String password = "Passw0rd!";
-    private static final String driver = "com.mysql.cj.jdbc.Driver"; // Driver reference
-    public static Connection connection;  // Connection Interface
+    private static final String defaultJdbcUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = SERVER" // LOCAL
+            + "&useServerPrepStmts=true" // Prepare statements on the server so their parsed plans can be reused
+            + "&useCursorFetch=true"; // Fetch rows in batches of the statement's fetch size when one is set, e.g. for exports
 
-    public static void openConnection()
+    // The database can be overridden with system properties, e.g. to run the benchmarks against an embedded database
+    private static final String jdbcUrl = System.getProperty("scheduler.jdbc.url", defaultJdbcUrl);
+    private static final String userName = System.getProperty("scheduler.jdbc.user", "sqlUser");
+    private static final String password = System.getProperty("scheduler.jdbc.password", "Passw0rd!");
+    private static final String driver = System.getProperty("scheduler.jdbc.driver", "com.mysql.cj.jdbc.Driver"); // Driver reference
+
+    // Connection pool settings
+    static final int maxPoolSize = 10;
+    private static final int minIdle = 2;
+    private static final long idleTimeoutMillis = 5 * 60 * 1000;
+    private static final long borrowTimeoutMillis = 30 * 1000;
+    private static final long leakThresholdMillis = 60 * 1000;
+    private static final int statementCacheSize = 64; // PreparedStatements cached per connection
+    private static final long slowQueryMillis = 200; // Executions slower than this are written to slow_queries.txt
+    // Pooled DataSource that connections are borrowed from. It is created on a background thread at startup and read
+    // without locking, so it is volatile to publish the fully constructed pool to every thread.
+    private static volatile ConnectionPool pool;
+
+    /**
+     * Loads the driver, creates the connection pool and opens the initial idle connections.
+     */
+    public static synchronized void openConnection()
     {
+        if(pool != null) {
+            return;
+        }
+
         try {
             Class.forName(driver); // Locate Driver
-            connection = DriverManager.getConnection(jdbcUrl, userName, password); // Reference Connection object
+            pool = new ConnectionPool(jdbcUrl, userName, password, maxPoolSize, minIdle,
+                    idleTimeoutMillis, borrowTimeoutMillis, leakThresholdMillis, statementCacheSize,
+                    new QueryMetrics(slowQueryMillis, AuditLog.SLOW_QUERIES));
+            pool.warmUp();
         }
         catch(Exception e)
         {
@@ -26,9 +52,41 @@ public abstract class JDBC {
         }
     }
 
-    public static void closeConnection() {
+    /**
+     * Borrows a connection from the pool. The connection must be closed (ideally with try-with-resources) to return it
+     * to the pool.
+     *
+     * @return a pooled connection to the database.
+     * @throws SQLException if no connection could be borrowed.
+     */
+    public static Connection getConnection() throws SQLException {
+        ConnectionPool currentPool = pool;
+        if(currentPool == null) {
+            openConnection();
+            currentPool = pool;
+        }
+        if(currentPool == null) {
+            throw new SQLException("The connection pool could not be created.");
+        }
+        return currentPool.getConnection();
+    }
+
+    /**
+     * @return the connection pool, used for reporting pool metrics. This is null until openConnection() has been called.
+     */
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    public static synchronized void closeConnection() {
+        if(pool == null) {
+            return;
+        }
+
         try {
-            connection.close();
+            System.out.println("Connection pool: " + pool);
+            pool.close();
+            pool = null;
             System.out.println("Connection closed!");
         }
         catch(Exception e)
@@ -0,0 +1,144 @@
+package helper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An index of the byte offset at which each line of a text file starts, so that any line can be read on demand without
+ * reading the lines before it. Only the offsets are held in memory, not the lines themselves.
+ *
+ * The index is built incrementally: refresh() only scans the bytes appended since the previous refresh, which makes it
+ * cheap to follow a file that is being appended to. If the file shrinks (for example because it was rotated) the index is
+ * rebuilt from the start. A trailing line without a line terminator is not indexed until it is completed.
+ */
+public class LineIndex {
+    private static final int scanBufferBytes = 64 * 1024;
+
+    private final Path path;
+
+    // lineStarts[i] is the offset of line i; indexedBytes is the offset just past the last complete line
+    private long[] lineStarts = new long[1024];
+    private int lineCount = 0;
+    private long indexedBytes = 0;
+
+    /**
+     * @param path is the text file to index. The file does not need to exist yet.
+     */
+    public LineIndex(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Indexes the lines appended to the file since the previous refresh.
+     *
+     * @return the number of lines before the refresh that are still valid. This is the previous line count, or 0 if the
+     * file was replaced and the index was rebuilt.
+     * @throws IOException if the file could not be read.
+     */
+    public synchronized int refresh() throws IOException {
+        if(!Files.exists(path)) {
+            reset();
+            return 0;
+        }
+
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int validLines = lineCount;
+            if(size < indexedBytes) {
+                reset();
+                validLines = 0;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(scanBufferBytes);
+            long position = indexedBytes;
+            while(position < size) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if(read <= 0) {
+                    break;
+                }
+
+                byte[] bytes = buffer.array();
+                for(int i = 0; i < read; i++) {
+                    if(bytes[i] == '\n') {
+                        addLine(indexedBytes);
+                        indexedBytes = position + i + 1;
+                    }
+                }
+                position += read;
+            }
+
+            return validLines;
+        }
+    }
+
+    /**
+     * @return the number of complete lines indexed.
+     */
+    public synchronized int size() {
+        return lineCount;
+    }
+
+    /**
+     * Reads a contiguous range of lines from the file with a single read.
+     *
+     * @param fromLine is the index of the first line to read, starting at 0.
+     * @param toLine is the index just past the last line to read.
+     * @return the text of each line, without its line terminator.
+     * @throws IOException if the file could not be read.
+     */
+    public synchronized String[] readLines(int fromLine, int toLine) throws IOException {
+        if(fromLine < 0 || toLine > lineCount || fromLine > toLine) {
+            throw new IndexOutOfBoundsException("Lines " + fromLine + " to " + toLine + " of " + lineCount);
+        }
+
+        String[] lines = new String[toLine - fromLine];
+        if(lines.length == 0) {
+            return lines;
+        }
+
+        long start = lineStarts[fromLine];
+        long end = toLine < lineCount ? lineStarts[toLine] : indexedBytes;
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while(buffer.hasRemaining()) {
+                if(channel.read(buffer, start + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        }
+
+        byte[] bytes = buffer.array();
+        for(int line = fromLine; line < toLine; line++) {
+            int lineStart = (int) (lineStarts[line] - start);
+            int lineEnd = (int) ((line + 1 < lineCount ? lineStarts[line + 1] : indexedBytes) - start);
+            lineEnd = Math.min(lineEnd, buffer.position());
+
+            // Strip the line terminator
+            while(lineEnd > lineStart && (bytes[lineEnd - 1] == '\n' || bytes[lineEnd - 1] == '\r')) {
+                lineEnd--;
+            }
+            lines[line - fromLine] = new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+        }
+        return lines;
+    }
+
+    private void addLine(long start) {
+        if(lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+        }
+        lineStarts[lineCount++] = start;
+    }
+
+    private void reset() {
+        lineCount = 0;
+        indexedBytes = 0;
+    }
+}
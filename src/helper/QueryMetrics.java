@@ -0,0 +1,555 @@
+package helper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Times every statement executed through the connection pool and aggregates the results by statement shape: the SQL with
+ * its literal values replaced by ?, so the same query run with different values is counted together. For each shape it
+ * keeps the number of calls, errors and rows, and a latency histogram from which percentiles are reported.
+ *
+ * Executions that take longer than the slow query threshold are written to the slow query log. So is any shape executed
+ * many times in a row on one thread with almost no time in between, which is the pattern of an N+1 query: a lookup run
+ * once per row of an earlier result instead of being joined into it.
+ *
+ * The latency recorded is the time the execute call takes, which includes the database's work and the transfer of the
+ * first rows, but not the time the caller spends reading the rest of a ResultSet.
+ *
+ * ResultSets are returned to the caller as the driver created them, so reading rows and columns costs nothing extra.
+ * Rows written are taken from the update counts; rows read are reported by the DAO that read them, with recordRows().
+ */
+public class QueryMetrics {
+    private static final DateTimeFormatter logFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    // A shape executed this many times in a row, each within the gap of the previous one, is reported as an N+1 query
+    private static final int repeatThreshold = 10;
+    private static final long repeatGapNanos = TimeUnit.MILLISECONDS.toNanos(50);
+
+    // Histogram buckets: exact below 4 microseconds, then 4 buckets per power of two, which bounds the error to 25%
+    private static final int bucketCount = 160;
+
+    // At most this many distinct SQL strings have their shapes cached; the rest are normalized on every execution
+    private static final int maxCachedShapes = 1024;
+    private static final Pattern inList = Pattern.compile("(?i)\\bIN \\(\\?(?: ?, ?\\?)+\\)");
+
+    private final long slowQueryNanos;
+    private final AuditLog slowQueryLog;
+
+    private final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+    private final Map<String, String> shapes = new ConcurrentHashMap<>();
+    private final ThreadLocal<RepeatTracker> repeatTrackers = ThreadLocal.withInitial(RepeatTracker::new);
+    private volatile LocalDateTime since = LocalDateTime.now();
+
+    /**
+     * @param slowQueryMillis is the time an execution may take before it is written to the slow query log.
+     * @param slowQueryLog is the log slow and repeated executions are written to.
+     */
+    public QueryMetrics(long slowQueryMillis, AuditLog slowQueryLog) {
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * Wraps a statement created with createStatement() so that each SQL string it executes is timed.
+     */
+    public Statement wrap(Statement statement) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                new InstrumentedStatement(statement, null));
+    }
+
+    /**
+     * Wraps a prepared statement so that each of its executions is timed.
+     *
+     * @param sql is the SQL the statement was prepared with.
+     */
+    public PreparedStatement wrap(PreparedStatement statement, String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new InstrumentedStatement(statement, getStats(sql)));
+    }
+
+    /**
+     * @return the statistics of every statement shape executed since the metrics were created or last reset, the shapes
+     * that took the most time in total first.
+     */
+    public List<QueryStats> snapshot() {
+        List<QueryStats> snapshot = new ArrayList<>();
+        for(StatementStats stats : statements.values()) {
+            snapshot.add(new QueryStats(stats));
+        }
+        snapshot.sort(Comparator.comparingLong((QueryStats stats) -> stats.totalNanos).reversed());
+        return snapshot;
+    }
+
+    /**
+     * @return when the metrics were created or last reset.
+     */
+    public LocalDateTime getSince() {
+        return since;
+    }
+
+    /**
+     * Discards every statistic recorded so far.
+     */
+    public void reset() {
+        statements.clear();
+        since = LocalDateTime.now();
+    }
+
+    /**
+     * Counts the rows a caller has read from the last ResultSet of a statement against the statement's shape.
+     *
+     * @param statement is the statement the rows were read from. Statements not created through the connection pool are
+     * ignored.
+     * @param rows is the number of rows read.
+     */
+    public static void recordRows(Statement statement, long rows) {
+        if(rows <= 0 || !Proxy.isProxyClass(statement.getClass())) {
+            return;
+        }
+
+        InvocationHandler handler = Proxy.getInvocationHandler(statement);
+        if(handler instanceof InstrumentedStatement) {
+            StatementStats stats = ((InstrumentedStatement) handler).lastStats;
+            if(stats != null) {
+                stats.rows.add(rows);
+            }
+        }
+    }
+
+    /**
+     * Appends the statistics in the Prometheus text exposition format, labelled by statement shape.
+     */
+    public void writePrometheus(StringBuilder out) {
+        List<QueryStats> snapshot = snapshot();
+
+        writeMetric(out, snapshot, "scheduler_query_calls_total", "counter", "Statements executed.", stats -> stats.calls);
+        writeMetric(out, snapshot, "scheduler_query_errors_total", "counter", "Statements that failed.", stats -> stats.errors);
+        writeMetric(out, snapshot, "scheduler_query_rows_total", "counter", "Rows read or written.", stats -> stats.rows);
+        writeMetric(out, snapshot, "scheduler_query_slow_total", "counter", "Executions slower than the slow query threshold.",
+                stats -> stats.slowCalls);
+        writeMetric(out, snapshot, "scheduler_query_repeated_total", "counter", "Runs of repeated executions reported as N+1 queries.",
+                stats -> stats.repeatBursts);
+
+        out.append("# HELP scheduler_query_duration_seconds Statement execution time.\n");
+        out.append("# TYPE scheduler_query_duration_seconds summary\n");
+        for(QueryStats stats : snapshot) {
+            String label = "statement=\"" + escapeLabel(stats.statement) + "\"";
+            for(double quantile : new double[]{0.5, 0.95, 0.99}) {
+                out.append("scheduler_query_duration_seconds{").append(label).append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(formatSeconds(stats.percentileNanos(quantile * 100))).append('\n');
+            }
+            out.append("scheduler_query_duration_seconds_sum{").append(label).append("} ")
+                    .append(formatSeconds(stats.totalNanos)).append('\n');
+            out.append("scheduler_query_duration_seconds_count{").append(label).append("} ").append(stats.calls).append('\n');
+        }
+    }
+
+    private static void writeMetric(StringBuilder out, List<QueryStats> snapshot, String name, String type, String help,
+                                    ToLongFunction<QueryStats> value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        for(QueryStats stats : snapshot) {
+            out.append(name).append("{statement=\"").append(escapeLabel(stats.statement)).append("\"} ")
+                    .append(value.applyAsLong(stats)).append('\n');
+        }
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String formatSeconds(long nanos) {
+        return String.format(Locale.ROOT, "%.6f", nanos / 1e9);
+    }
+
+    /**
+     * @return the statistics of the shape the SQL belongs to, created on first use.
+     */
+    private StatementStats getStats(String sql) {
+        String shape = shapes.get(sql);
+        if(shape == null) {
+            shape = shapeOf(sql);
+            if(shapes.size() < maxCachedShapes) {
+                shapes.put(sql, shape);
+            }
+        }
+        return statements.computeIfAbsent(shape, StatementStats::new);
+    }
+
+    /**
+     * Normalizes SQL into its shape: whitespace is collapsed, string and numeric literals become ?, and IN lists of any
+     * length become IN (?).
+     */
+    static String shapeOf(String sql) {
+        StringBuilder shape = new StringBuilder(sql.length());
+        int i = 0;
+        while(i < sql.length()) {
+            char c = sql.charAt(i);
+            if(Character.isWhitespace(c)) {
+                while(i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if(shape.length() > 0 && i < sql.length()) {
+                    shape.append(' ');
+                }
+            }
+            else if(c == '\'' || c == '"') {
+                // Skip to the closing quote; a doubled or backslash-escaped quote does not close the literal
+                i++;
+                while(i < sql.length()) {
+                    char d = sql.charAt(i++);
+                    if(d == '\\') {
+                        i++;
+                    }
+                    else if(d == c) {
+                        if(i < sql.length() && sql.charAt(i) == c) {
+                            i++;
+                        }
+                        else {
+                            break;
+                        }
+                    }
+                }
+                shape.append('?');
+            }
+            else if(Character.isDigit(c) && (shape.length() == 0 || !isIdentifierPart(shape.charAt(shape.length() - 1)))) {
+                while(i < sql.length() && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                shape.append('?');
+            }
+            else {
+                shape.append(c);
+                i++;
+            }
+        }
+        return inList.matcher(shape).replaceAll("IN (?)");
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    /**
+     * Records one execution of a statement shape.
+     *
+     * @param rows is the number of rows written, or 0 for queries, whose rows are reported with recordRows().
+     */
+    private void record(StatementStats stats, String method, long startNanos, long elapsedNanos, long rows, boolean failed) {
+        stats.calls.increment();
+        stats.totalNanos.add(elapsedNanos);
+        stats.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        stats.buckets.incrementAndGet(bucketOf(elapsedNanos));
+        if(rows > 0) {
+            stats.rows.add(rows);
+        }
+        if(failed) {
+            stats.errors.increment();
+        }
+
+        if(elapsedNanos >= slowQueryNanos) {
+            stats.slowCalls.increment();
+            log(String.format(Locale.ROOT, "SLOW %.1fms", elapsedNanos / 1e6), method, stats.shape);
+        }
+
+        // Look for the same shape executed again and again on this thread, as an N+1 query does
+        RepeatTracker tracker = repeatTrackers.get();
+        if(tracker.stats == stats && startNanos - tracker.lastEndNanos <= repeatGapNanos) {
+            tracker.count++;
+            stats.maxRepeats.accumulateAndGet(tracker.count, Math::max);
+            if(tracker.count == repeatThreshold) {
+                stats.repeatBursts.increment();
+                log("REPEATED " + repeatThreshold + "+ times in a row (possible N+1 query)", method, stats.shape);
+            }
+        }
+        else {
+            tracker.stats = stats;
+            tracker.count = 1;
+        }
+        tracker.lastEndNanos = startNanos + elapsedNanos;
+    }
+
+    private void log(String event, String method, String shape) {
+        slowQueryLog.append(logFormatter.format(LocalDateTime.now()) + " " + event + " " + method + " [" +
+                Thread.currentThread().getName() + "] " + shape + "\n");
+    }
+
+    private static int bucketOf(long nanos) {
+        long micros = nanos / 1000;
+        if(micros < 4) {
+            return (int) Math.max(0, micros);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - 2)) & 3;
+        return Math.min(bucketCount - 1, 4 * (exponent - 1) + sub);
+    }
+
+    /**
+     * @return the exclusive upper bound of the bucket, in microseconds.
+     */
+    private static long bucketUpperMicros(int bucket) {
+        if(bucket < 4) {
+            return bucket + 1;
+        }
+        int exponent = bucket / 4 + 1;
+        return (long) (5 + bucket % 4) << (exponent - 2);
+    }
+
+    /**
+     * The live statistics of one statement shape, updated concurrently by every thread that executes it.
+     */
+    private static class StatementStats {
+        private final String shape;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder slowCalls = new LongAdder();
+        private final LongAdder repeatBursts = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong maxRepeats = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(bucketCount);
+
+        private StatementStats(String shape) {
+            this.shape = shape;
+        }
+    }
+
+    /**
+     * The last statement shape a thread executed and how many times in a row it has executed it.
+     */
+    private static class RepeatTracker {
+        private StatementStats stats;
+        private int count;
+        private long lastEndNanos;
+    }
+
+    /**
+     * The statistics of one statement shape at the time snapshot() was called, with the latencies in milliseconds.
+     */
+    public static class QueryStats {
+        private final String statement;
+        private final long calls;
+        private final long errors;
+        private final long rows;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long slowCalls;
+        private final long repeatBursts;
+        private final long maxRepeats;
+        private final long[] buckets = new long[bucketCount];
+
+        private QueryStats(StatementStats stats) {
+            this.statement = stats.shape;
+            this.calls = stats.calls.sum();
+            this.errors = stats.errors.sum();
+            this.rows = stats.rows.sum();
+            this.totalNanos = stats.totalNanos.sum();
+            this.maxNanos = stats.maxNanos.get();
+            this.slowCalls = stats.slowCalls.sum();
+            this.repeatBursts = stats.repeatBursts.sum();
+            this.maxRepeats = stats.maxRepeats.get();
+            for(int i = 0; i < bucketCount; i++) {
+                buckets[i] = stats.buckets.get(i);
+            }
+        }
+
+        /**
+         * @return the latency below which the given percentage of executions completed, rounded up to its histogram
+         * bucket and capped at the slowest execution.
+         */
+        private long percentileNanos(double percentile) {
+            long total = 0;
+            for(long count : buckets) {
+                total += count;
+            }
+            if(total == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for(int i = 0; i < bucketCount; i++) {
+                seen += buckets[i];
+                if(seen >= rank) {
+                    return Math.min(maxNanos, TimeUnit.MICROSECONDS.toNanos(bucketUpperMicros(i)));
+                }
+            }
+            return maxNanos;
+        }
+
+        private static double toMillis(long nanos) {
+            return Math.round(nanos / 10_000.0) / 100.0;
+        }
+
+        public String getStatement() {
+            return statement;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public double getRowsPerCall() {
+            return calls == 0 ? 0 : Math.round(rows * 10.0 / calls) / 10.0;
+        }
+
+        public double getTotalMillis() {
+            return toMillis(totalNanos);
+        }
+
+        public double getMeanMillis() {
+            return calls == 0 ? 0 : toMillis(totalNanos / calls);
+        }
+
+        public double getP50Millis() {
+            return toMillis(percentileNanos(50));
+        }
+
+        public double getP95Millis() {
+            return toMillis(percentileNanos(95));
+        }
+
+        public double getP99Millis() {
+            return toMillis(percentileNanos(99));
+        }
+
+        public double getMaxMillis() {
+            return toMillis(maxNanos);
+        }
+
+        public long getSlowCalls() {
+            return slowCalls;
+        }
+
+        public long getRepeatBursts() {
+            return repeatBursts;
+        }
+
+        public long getMaxRepeats() {
+            return maxRepeats;
+        }
+    }
+
+    /**
+     * Times the executions of a statement. Plain statements are attributed to the shape of the SQL passed to each
+     * execution; prepared statements to the shape they were prepared with.
+     */
+    private class InstrumentedStatement implements InvocationHandler {
+        private final Statement statement;
+        private final StatementStats preparedStats;
+        private StatementStats batchStats; // The first SQL added to a plain statement's batch
+        private StatementStats lastStats; // The shape of the last execution, which recordRows() counts rows against
+
+        private InstrumentedStatement(Statement statement, StatementStats preparedStats) {
+            this.statement = statement;
+            this.preparedStats = preparedStats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "addBatch":
+                    if(batchStats == null && args != null && args.length == 1 && args[0] instanceof String) {
+                        batchStats = getStats((String) args[0]);
+                    }
+                    break;
+                case "clearBatch":
+                    batchStats = null;
+                    break;
+            }
+
+            if(!name.startsWith("execute")) {
+                return invokeTarget(method, args);
+            }
+
+            StatementStats stats;
+            if(args != null && args.length > 0 && args[0] instanceof String) {
+                stats = getStats((String) args[0]);
+            }
+            else if(preparedStats != null) {
+                stats = preparedStats;
+            }
+            else {
+                stats = batchStats != null ? batchStats : getStats("(empty batch)");
+            }
+            if(name.endsWith("Batch")) {
+                batchStats = null;
+            }
+            lastStats = stats;
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invokeTarget(method, args);
+            }
+            catch(Throwable e) {
+                record(stats, name, start, System.nanoTime() - start, 0, true);
+                throw e;
+            }
+            record(stats, name, start, System.nanoTime() - start, rowsWritten(result), false);
+            return result;
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(statement, args);
+            }
+            catch(InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * @return the number of rows an update or batch reports it wrote.
+     */
+    private static long rowsWritten(Object result) {
+        long rows = 0;
+        if(result instanceof Integer || result instanceof Long) {
+            rows = ((Number) result).longValue();
+        }
+        else if(result instanceof int[]) {
+            for(int count : (int[]) result) {
+                rows += Math.max(0, count);
+            }
+        }
+        else if(result instanceof long[]) {
+            for(long count : (long[]) result) {
+                rows += Math.max(0, count);
+            }
+        }
+        return Math.max(0, rows);
+    }
+}
@@ -0,0 +1,200 @@
+package helper;
+
+import DAO.AppointmentDAO;
+import Model.AppointmentStore;
+import javafx.application.Platform;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Raises a reminder for each Appointment 15 minutes before it starts, for as long as the user is logged in.
+ *
+ * Only the Appointments starting within the next few hours are loaded, with a range query on the Start column, and their
+ * reminders are kept in a priority queue ordered by when they come due. A background timer ticks every second and only
+ * looks at the head of the queue, so each tick costs the same no matter how many Appointments are in the database. The
+ * horizon is reloaded every few minutes, and immediately after refresh() is called when an Appointment is added, updated
+ * or deleted.
+ */
+public abstract class ReminderScheduler {
+    private static final long leadSeconds = TimeUnit.MINUTES.toSeconds(15);
+    private static final long horizonSeconds = TimeUnit.HOURS.toSeconds(4);
+    private static final long reloadSeconds = TimeUnit.MINUTES.toSeconds(5);
+    private static final long tickMillis = 1000;
+
+    private static ScheduledExecutorService timer;
+    private static Consumer<List<Reminder>> listener;
+    private static volatile boolean reloadRequested;
+
+    // State owned by the timer thread
+    private static final PriorityQueue<Reminder> reminders = new PriorityQueue<>(Comparator.comparingLong(Reminder::getDueEpochSecond));
+    private static final Map<Integer, Long> remindedStarts = new HashMap<>(); // Start times already reminded of, by Appointment ID
+    private static long nextReloadEpochSecond;
+    private static boolean firstTick;
+
+    /**
+     * Starts raising reminders, replacing any reminders already running. The first tick always notifies the listener, with
+     * an empty list if no Appointment starts within 15 minutes, so the user can be told there are no upcoming Appointments.
+     *
+     * @param onDue receives the reminders that have come due, on the JavaFX application thread.
+     */
+    public static synchronized void start(Consumer<List<Reminder>> onDue) {
+        stop();
+
+        listener = onDue;
+        reminders.clear();
+        remindedStarts.clear();
+        reloadRequested = true;
+        firstTick = true;
+
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "appointment-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(ReminderScheduler::tick, 0, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reloads the upcoming Appointments on the next tick. Called after an Appointment is added, updated or deleted.
+     */
+    public static void refresh() {
+        reloadRequested = true;
+    }
+
+    /**
+     * Stops raising reminders. Called when the application exits.
+     */
+    public static synchronized void stop() {
+        if(timer == null) {
+            return;
+        }
+
+        // Wait for a tick in progress so it cannot run alongside the next start()
+        timer.shutdownNow();
+        try {
+            timer.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        timer = null;
+    }
+
+    /**
+     * Runs one tick of the timer. An unexpected exception would cancel the timer and end reminders for the session, so it
+     * is reported and the upcoming Appointments are reloaded on the next tick instead.
+     */
+    private static void tick() {
+        try {
+            raiseDueReminders();
+        }
+        catch(RuntimeException e) {
+            System.out.println("Error raising appointment reminders: " + e);
+            reloadRequested = true;
+        }
+    }
+
+    /**
+     * Pops every reminder that has come due and hands the ones whose Appointment has not started yet to the listener.
+     */
+    private static void raiseDueReminders() {
+        long now = Instant.now().getEpochSecond();
+        if(reloadRequested || now >= nextReloadEpochSecond) {
+            if(!reload(now) && firstTick) {
+                // Without the upcoming Appointments it is unknown whether any are upcoming, so nothing is reported
+                firstTick = false;
+            }
+        }
+
+        List<Reminder> due = new ArrayList<>();
+        while(!reminders.isEmpty() && reminders.peek().getDueEpochSecond() <= now) {
+            Reminder reminder = reminders.poll();
+            Long remindedStart = remindedStarts.put(reminder.getAppointmentID(), reminder.startEpochSecond);
+            boolean alreadyReminded = remindedStart != null && remindedStart == reminder.startEpochSecond;
+            if(reminder.startEpochSecond >= now && !alreadyReminded) {
+                due.add(reminder);
+            }
+        }
+
+        if(!due.isEmpty() || firstTick) {
+            firstTick = false;
+            Consumer<List<Reminder>> onDue = listener;
+            Platform.runLater(() -> onDue.accept(due));
+        }
+    }
+
+    /**
+     * Replaces the queued reminders with those of the Appointments starting between now and the end of the horizon.
+     *
+     * @return false if the Appointments could not be retrieved, in which case the queued reminders are kept.
+     */
+    private static boolean reload(long now) {
+        reloadRequested = false;
+        nextReloadEpochSecond = now + reloadSeconds;
+
+        AppointmentStore upcoming;
+        try {
+            upcoming = AppointmentDAO.getAppointmentsStartingBetween(toUtc(now), toUtc(now + horizonSeconds));
+        }
+        catch(SQLException e) {
+            System.out.println("Error retrieving upcoming Appointments from the database.");
+            return false;
+        }
+
+        reminders.clear();
+        for(int row = 0; row < upcoming.size(); row++) {
+            reminders.add(new Reminder(upcoming.getAppointmentID(row), upcoming.getType(row), upcoming.getUtcStartEpochSecond(row)));
+        }
+
+        // Appointments that have started can no longer be reminded of again
+        remindedStarts.values().removeIf(start -> start < now);
+        return true;
+    }
+
+    private static ZonedDateTime toUtc(long epochSecond) {
+        return TimeCodec.toUtc(epochSecond);
+    }
+
+    /**
+     * A reminder for one Appointment, due 15 minutes before the Appointment starts.
+     */
+    public static class Reminder {
+        private final int appointmentID;
+        private final String type;
+        private final long startEpochSecond;
+
+        private Reminder(int appointmentID, String type, long startEpochSecond) {
+            this.appointmentID = appointmentID;
+            this.type = type;
+            this.startEpochSecond = startEpochSecond;
+        }
+
+        public int getAppointmentID() {
+            return appointmentID;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public ZonedDateTime getLocalStartZDT() {
+            return TimeCodec.toLocal(startEpochSecond);
+        }
+
+        private long getDueEpochSecond() {
+            return startEpochSecond - leadSeconds;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package helper;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures how long the application takes to become usable. Two times are reported:
+ * - time-to-login-screen: from the start of the JVM until the Login page is displayed.
+ * - time-to-calendar: from submitting the login form until the first Appointments are displayed on the calendar.
+ * The time spent warming the database connections and reference data in the background is reported alongside them, so
+ * it can be seen whether the warm-up finished before the user logged in.
+ *
+ * Each time is printed to the console once and emitted as a Flight Recorder event (see UiEvents).
+ */
+public abstract class StartupMetrics {
+    public static final String loginScreen = "time-to-login-screen";
+    public static final String calendar = "time-to-calendar";
+    public static final String warmUp = "background-warm-up";
+
+    private static final Map<String, Long> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static volatile long loginSubmittedNanos;
+
+    /**
+     * Records that the Login page has been displayed.
+     */
+    public static void loginScreenShown() {
+        record(loginScreen, System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime());
+    }
+
+    /**
+     * Records that the login form has been submitted. The calendar is timed from the last submission, since a failed
+     * login attempt is followed by another.
+     */
+    public static void loginSubmitted() {
+        loginSubmittedNanos = System.nanoTime();
+    }
+
+    /**
+     * Records that Appointments have been displayed on the calendar. Only the first call after logging in is recorded.
+     */
+    public static void calendarShown() {
+        if(loginSubmittedNanos != 0 && !phases.containsKey(calendar)) {
+            record(calendar, (System.nanoTime() - loginSubmittedNanos) / 1_000_000);
+        }
+    }
+
+    /**
+     * Records how long the background warm-up took.
+     *
+     * @param startNanos is the value of System.nanoTime() when the warm-up started.
+     */
+    public static void warmUpFinished(long startNanos) {
+        record(warmUp, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * @return the phases recorded so far and their durations in milliseconds, in the order they were recorded.
+     */
+    public static Map<String, Long> getPhases() {
+        synchronized(phases) {
+            return new LinkedHashMap<>(phases);
+        }
+    }
+
+    /**
+     * Records the duration of a phase the first time it completes.
+     */
+    private static void record(String phase, long millis) {
+        if(phases.putIfAbsent(phase, millis) == null) {
+            System.out.println("Startup: " + phase + " " + millis + "ms");
+            UiEvents.startupPhase(phase, millis);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package helper;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Converts between the timestamps stored in the database and the times displayed to the end-user.
+ *
+ * The Start/End columns and the audit columns hold UTC timestamps in the form "yyyy-MM-dd HH:mm:ss". Thousands of them
+ * are read for every page of Appointments, so they are parsed into seconds since the epoch, and formatted back, by hand
+ * instead of through a DateTimeFormatter: the digits are read straight out of (or written straight into) the text and the
+ * date is converted with integer arithmetic, so parsing creates no objects at all. Text that is not in exactly that form is handed to
+ * databaseFormatter, so malformed timestamps are rejected with the same DateTimeParseException as before.
+ *
+ * DateTimeFormatters and ZoneIds are immutable and thread-safe, so the ones used throughout the application are created
+ * once here rather than on every call.
+ */
+public abstract class TimeCodec {
+    // Zones
+    public static final ZoneId utcZone = ZoneId.of("UTC");
+    public static final ZoneId businessZone = ZoneId.of("America/New_York"); // Business hours are 8AM - 10PM in this zone
+    private static final ZoneId localZone = ZoneId.systemDefault();
+
+    // Formatters
+    public static final DateTimeFormatter databaseFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    public static final DateTimeFormatter displayFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd h:mm a");
+    public static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    public static final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("h:mm a");
+
+    private static final int timestampLength = 19; // "yyyy-MM-dd HH:mm:ss"
+    private static final int secondsPerDay = 24 * 60 * 60;
+    private static final int daysPer400Years = 146097;
+    private static final int daysFrom0000To1970 = 719468; // From March 1st of year 0, which starts each 400 year cycle
+    private static final long firstEpochDay = -719162; // 0001-01-01; earlier years are formatted by databaseFormatter
+    private static final long lastEpochDay = 2932896; // 9999-12-31; later years do not fit in four digits
+
+    /**
+     * @return the zone of the end-user's machine, as it was when the application started.
+     */
+    public static ZoneId localZone() {
+        return localZone;
+    }
+
+    /**
+     * Parses a UTC timestamp as stored in the database.
+     *
+     * @param timestamp is a timestamp in the form "yyyy-MM-dd HH:mm:ss", in UTC.
+     * @return the timestamp in seconds since the epoch.
+     * @throws java.time.format.DateTimeParseException if the timestamp could not be parsed.
+     */
+    public static long parseEpochSecond(CharSequence timestamp) {
+        if(timestamp.length() == timestampLength
+                && timestamp.charAt(4) == '-' && timestamp.charAt(7) == '-' && timestamp.charAt(10) == ' '
+                && timestamp.charAt(13) == ':' && timestamp.charAt(16) == ':') {
+            int year = digits(timestamp, 0, 4);
+            int month = digits(timestamp, 5, 2);
+            int day = digits(timestamp, 8, 2);
+            int hour = digits(timestamp, 11, 2);
+            int minute = digits(timestamp, 14, 2);
+            int second = digits(timestamp, 17, 2);
+
+            if(year >= 1 && month >= 1 && month <= 12 && day >= 1 && day <= lengthOfMonth(year, month)
+                    && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0 && second <= 59) {
+                return epochDay(year, month, day) * secondsPerDay + hour * 3600 + minute * 60 + second;
+            }
+        }
+
+        // Not a valid timestamp in the database's form; the formatter either resolves it or reports why it is invalid
+        return LocalDateTime.parse(timestamp, databaseFormatter).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Formats a time as a UTC timestamp in the form stored in the database.
+     *
+     * @param epochSecond is the time in seconds since the epoch.
+     * @return the time as a timestamp in the form "yyyy-MM-dd HH:mm:ss", in UTC.
+     */
+    public static String formatDatabase(long epochSecond) {
+        long epochDay = Math.floorDiv(epochSecond, secondsPerDay);
+        int secondOfDay = Math.floorMod(epochSecond, secondsPerDay);
+        if(epochDay < firstEpochDay || epochDay > lastEpochDay) {
+            return databaseFormatter.format(LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC));
+        }
+
+        // Convert the day to a date, with years starting on March 1st so the leap day falls at the end of the year
+        long shifted = epochDay + daysFrom0000To1970;
+        int era = (int) (shifted / daysPer400Years);
+        int dayOfEra = (int) (shifted - (long) era * daysPer400Years);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / (daysPer400Years - 1)) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        char[] text = new char[timestampLength];
+        write(text, 0, year, 4);
+        text[4] = '-';
+        write(text, 5, month, 2);
+        text[7] = '-';
+        write(text, 8, day, 2);
+        text[10] = ' ';
+        write(text, 11, secondOfDay / 3600, 2);
+        text[13] = ':';
+        write(text, 14, secondOfDay / 60 % 60, 2);
+        text[16] = ':';
+        write(text, 17, secondOfDay % 60, 2);
+        return new String(text);
+    }
+
+    /**
+     * Formats a time as a UTC timestamp in the form stored in the database.
+     *
+     * @param dateTime is the time, in any zone.
+     * @return the time as a timestamp in the form "yyyy-MM-dd HH:mm:ss", in UTC.
+     */
+    public static String formatDatabase(ZonedDateTime dateTime) {
+        return formatDatabase(dateTime.toEpochSecond());
+    }
+
+    /**
+     * @param epochSecond is a time in seconds since the epoch.
+     * @return the time in UTC.
+     */
+    public static ZonedDateTime toUtc(long epochSecond) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), utcZone);
+    }
+
+    /**
+     * @param epochSecond is a time in seconds since the epoch.
+     * @return the time in the zone of the end-user's machine.
+     */
+    public static ZonedDateTime toLocal(long epochSecond) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), localZone);
+    }
+
+    /**
+     * Reads a number of decimal digits, or returns -1 if one of the characters is not a digit.
+     */
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for(int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if(digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Writes a number as a fixed number of decimal digits, padded with leading zeros.
+     */
+    private static void write(char[] text, int start, int value, int count) {
+        for(int i = start + count - 1; i >= start; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if(month == 2) {
+            return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        }
+        return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+    }
+
+    /**
+     * Counts the days from 1970-01-01 to a date, with years starting on March 1st so the leap day falls at the end of the
+     * year.
+     */
+    private static long epochDay(int year, int month, int day) {
+        int shiftedYear = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(shiftedYear, 400);
+        int yearOfEra = shiftedYear - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return (long) era * daysPer400Years + dayOfEra - daysFrom0000To1970;
+    }
+}
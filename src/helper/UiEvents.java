@@ -0,0 +1,204 @@
+package helper;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Java Flight Recorder events for the work a user waits on: starting the application, loading data into a table, paging
+ * the calendar, switching between pages and checking an Appointment before it is saved. They appear under the "Scheduler"
+ * category of a recording started with -XX:StartFlightRecording, next to the JDK's own events for garbage collection,
+ * locks and JDBC socket reads, so a slow page can be traced to what the JVM was doing at the same time.
+ *
+ * When a recording is not running, or these events are disabled in its settings, begin() and commit() do nothing and the
+ * events cost next to nothing.
+ */
+public abstract class UiEvents {
+
+    /**
+     * Starts timing a load of data into a page.
+     *
+     * @param source describes what is being loaded, e.g. "Appointments in range".
+     * @return the started event, to be finished once the data is displayed.
+     */
+    public static DataLoad dataLoad(String source) {
+        DataLoad event = new DataLoad();
+        event.source = source;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Starts timing a move of the calendar to the next or previous week/month.
+     *
+     * @param direction is "Next" or "Previous".
+     * @param view is "Week" or "Month".
+     * @return the started event, to be finished once the Appointments in the new range are displayed.
+     */
+    public static Navigation navigation(String direction, String view) {
+        Navigation event = new Navigation();
+        event.direction = direction;
+        event.view = view;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Starts timing a switch to another page.
+     *
+     * @param fxml is the name of the FXML file of the page being switched to.
+     * @return the started event, to be finished once the page is shown.
+     */
+    public static SceneSwitch sceneSwitch(String fxml) {
+        SceneSwitch event = new SceneSwitch();
+        event.fxml = fxml;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Runs one of the checks an Appointment must pass before it is saved, recording how long it took and whether it passed.
+     *
+     * @param check is the name of the check, e.g. "isWithinBusinessHours".
+     * @param appointmentID is the unique ID of the Appointment being checked.
+     * @param customerID is the unique ID of the Customer the Appointment is for.
+     * @param validation performs the check.
+     * @return true if the check passed.
+     */
+    public static boolean validate(String check, int appointmentID, int customerID, BooleanSupplier validation) {
+        AppointmentValidation event = new AppointmentValidation();
+        event.begin();
+        boolean passed = validation.getAsBoolean();
+        event.check = check;
+        event.appointmentID = appointmentID;
+        event.customerID = customerID;
+        event.passed = passed;
+        event.commit();
+        return passed;
+    }
+
+    /**
+     * Records how long a phase of starting the application took (see StartupMetrics).
+     *
+     * @param phase is the name of the phase, e.g. "time-to-login-screen".
+     * @param millis is how long the phase took, in milliseconds.
+     */
+    public static void startupPhase(String phase, long millis) {
+        StartupPhase event = new StartupPhase();
+        event.phase = phase;
+        event.millis = millis;
+        event.commit();
+    }
+
+    @Name("scheduler.DataLoad")
+    @Label("Data Load")
+    @Category({"Scheduler", "Data"})
+    @Description("Rows loaded into a page, from the request until they were displayed")
+    public static class DataLoad extends Event {
+        @Label("Source")
+        String source;
+
+        @Label("Rows")
+        int rows;
+
+        /**
+         * Commits the event once the rows have been displayed. Loads that are cancelled are never finished, so they are
+         * not recorded.
+         *
+         * @param rows is the number of rows that were loaded.
+         */
+        public void finish(int rows) {
+            this.rows = rows;
+            commit();
+        }
+    }
+
+    @Name("scheduler.Navigation")
+    @Label("Calendar Navigation")
+    @Category({"Scheduler", "Navigation"})
+    @Description("A move of the calendar to the next or previous week/month, until its Appointments were displayed")
+    public static class Navigation extends Event {
+        @Label("Direction")
+        String direction;
+
+        @Label("View")
+        String view;
+
+        @Label("Range Start")
+        String rangeStart;
+
+        @Label("Rows")
+        int rows;
+
+        /**
+         * Commits the event once the Appointments in the new range have been displayed.
+         *
+         * @param rangeStart is the start of the range that was moved to.
+         * @param rows is the number of Appointments in the range.
+         */
+        public void finish(String rangeStart, int rows) {
+            this.rangeStart = rangeStart;
+            this.rows = rows;
+            commit();
+        }
+    }
+
+    @Name("scheduler.SceneSwitch")
+    @Label("Scene Switch")
+    @Category({"Scheduler", "Navigation"})
+    @Description("Switching the window to another page, or opening a report on top of it")
+    public static class SceneSwitch extends Event {
+        @Label("FXML")
+        String fxml;
+
+        @Label("Cached")
+        @Description("Whether a page kept from an earlier visit was shown again instead of loading the FXML")
+        boolean cached;
+
+        /**
+         * Commits the event once the page is shown.
+         *
+         * @param cached is true if a page kept from an earlier visit was shown again.
+         */
+        public void finish(boolean cached) {
+            this.cached = cached;
+            commit();
+        }
+    }
+
+    @Name("scheduler.StartupPhase")
+    @Label("Startup Phase")
+    @Category({"Scheduler", "Startup"})
+    @Description("How long a phase of starting the application took")
+    public static class StartupPhase extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Duration")
+        @Timespan(Timespan.MILLISECONDS)
+        long millis;
+    }
+
+    @Name("scheduler.AppointmentValidation")
+    @Label("Appointment Validation")
+    @Category({"Scheduler", "Validation"})
+    @Description("One of the checks an Appointment must pass before it is saved")
+    public static class AppointmentValidation extends Event {
+        @Label("Check")
+        String check;
+
+        @Label("Appointment ID")
+        int appointmentID;
+
+        @Label("Customer ID")
+        int customerID;
+
+        @Label("Passed")
+        boolean passed;
+    }
+}